@@ -568,6 +568,35 @@ public interface WebContainer extends HttpService {
 	 */
 	SharedWebContainerContext getDefaultSharedHttpContext();
 
+	/**
+	 * Registers resources like {@link #registerResources(String, String, HttpContext)}. If
+	 * {@code fingerprinted} is true, the resources are also served under paths containing
+	 * a fingerprint of their content, e.g. "/static/app.3f2a9c0e1b.js" for "/static/app.js",
+	 * with {@code Cache-Control: public, max-age=31536000, immutable}. Only entries of the
+	 * bundle of the http context are fingerprinted.
+	 *
+	 * @param alias         name in the URI namespace at which the resources are registered
+	 * @param name          the base name of the resources that will be registered
+	 * @param fingerprinted whether resources are also served under fingerprinted paths
+	 * @param httpContext   the {@code HttpContext} object for the registered resources, or
+	 *                      {@code null} if a default {@code HttpContext} is to be created and used
+	 * @throws NamespaceException if the registration fails because the alias is already in use
+	 * @see #getFingerprintedPath(String, HttpContext)
+	 */
+	void registerResources(String alias, String name, boolean fingerprinted, HttpContext httpContext)
+			throws NamespaceException;
+
+	/**
+	 * Returns the fingerprinted path of a resource registered with fingerprinting, to be
+	 * used in links. The fingerprint changes whenever the content of the resource does.
+	 *
+	 * @param path        path of the resource within the http context, e.g. "/static/app.js"
+	 * @param httpContext the http context the resources are registered with
+	 * @return fingerprinted path within the http context, e.g. "/static/app.3f2a9c0e1b.js",
+	 *         or null if there is no such fingerprinted resource
+	 */
+	String getFingerprintedPath(String path, HttpContext httpContext);
+
 	/**
 	 * Unregister method for {@link ServletContainerInitializer}s
 	 *
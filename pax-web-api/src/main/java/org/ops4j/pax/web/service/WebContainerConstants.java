@@ -152,6 +152,30 @@ public interface WebContainerConstants {
 	String PROPERTY_IDLE_TIMEOUT = "org.ops4j.pax.web.server.idleTimeout";
 	String PROPERTY_CONNECTOR_IDLE_TIMEOUT = "org.ops4j.pax.web.server.connector.idleTimeout";
 	String PROPERTY_SHOW_STACKS = "org.ops4j.pax.web.server.showStacks";
+	/**
+	 * Maximum number of resolved request paths cached per virtual host, 0 disables the route cache.
+	 */
+	String PROPERTY_ROUTE_CACHE_SIZE = "org.ops4j.pax.web.server.routeCacheSize";
+	/**
+	 * Maximum number of bytes of static resource content cached by the resource servlets, 0 disables the cache.
+	 */
+	String PROPERTY_RESOURCE_CACHE_SIZE = "org.ops4j.pax.web.server.resourceCacheSize";
+	/**
+	 * Maximum size in bytes of a single static resource kept in the resource cache.
+	 */
+	String PROPERTY_RESOURCE_CACHE_MAX_ENTRY_SIZE = "org.ops4j.pax.web.server.resourceCacheMaxEntrySize";
+	/**
+	 * Whether precompressed "br" and "gz" siblings of cached static resources are served.
+	 */
+	String PROPERTY_RESOURCE_PRECOMPRESSED = "org.ops4j.pax.web.server.resourcePrecompressed";
+	/**
+	 * Comma separated mime types of cached static resources that are gzip compressed on first request.
+	 */
+	String PROPERTY_RESOURCE_COMPRESSION_MIME_TYPES = "org.ops4j.pax.web.server.resourceCompressionMimeTypes";
+	/**
+	 * Minimum size in bytes of static resources written with non-blocking asynchronous output.
+	 */
+	String PROPERTY_RESOURCE_ASYNC_THRESHOLD = "org.ops4j.pax.web.server.resourceAsyncThreshold";
 
 	/**
 	 * Servlet context attribute containing the bundle context of the bundle
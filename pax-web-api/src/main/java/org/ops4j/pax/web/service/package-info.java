@@ -14,7 +14,7 @@ See the License for the specific language governing permissions and
 limitations under the License.
  */
 
-@Version("6.0.0")
+@Version("6.1.0")
 package org.ops4j.pax.web.service;
 
 import org.osgi.annotation.versioning.Version;
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.model.ContextModel;
+import org.ops4j.pax.web.service.spi.model.ServerModel;
+import org.ops4j.pax.web.service.spi.model.ServletModel;
+import org.osgi.framework.Bundle;
+
+/**
+ * {@link ServerModel#matchPathToContext(String, String)} with a growing
+ * number of registered servlets, spread over a few contexts. The looked up
+ * paths mix exact, prefix, extension and unmatched requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerModelBenchmark {
+
+	private static final int CONTEXTS = 10;
+
+	private static final int PATHS = 1024;
+
+	@Param({"10", "1000", "10000"})
+	public int registrations;
+
+	@Param({"0", "1024"})
+	public int routeCacheSize;
+
+	private ServerModel serverModel;
+
+	private String[] paths;
+
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		serverModel = new ServerModel(routeCacheSize);
+		ContextModel[] contexts = new ContextModel[CONTEXTS];
+		for (int c = 0; c < CONTEXTS; c++) {
+			contexts[c] = new ContextModel(Stubs.stub(WebContainerContext.class), Stubs.stub(Bundle.class),
+					getClass().getClassLoader(), false);
+			Hashtable<String, String> contextParams = new Hashtable<>();
+			contextParams.put(WebContainerConstants.CONTEXT_NAME, "context" + c);
+			contexts[c].setContextParams(contextParams);
+		}
+		for (int i = 0; i < registrations; i++) {
+			ContextModel context = contexts[i % CONTEXTS];
+			String[] urlPatterns = new String[] {
+					"/servlet" + i + "/*", "/servlet" + i + "/exact", "/servlet" + i + "/*.do"
+			};
+			serverModel.addServletModel(new ServletModel(context, Stubs.stub(Servlet.class), null, urlPatterns,
+					null, null, null, null, null));
+		}
+
+		paths = new String[PATHS];
+		for (int p = 0; p < PATHS; p++) {
+			int i = (p * 7919) % registrations;
+			String servletPath = "/context" + (i % CONTEXTS) + "/servlet" + i;
+			switch (p % 4) {
+				case 0:
+					paths[p] = servletPath + "/exact";
+					break;
+				case 1:
+					paths[p] = servletPath + "/some/deeper/path";
+					break;
+				case 2:
+					paths[p] = servletPath + "/action.do";
+					break;
+				default:
+					paths[p] = "/unknown" + p + "/path";
+					break;
+			}
+		}
+	}
+
+	@Benchmark
+	public ContextModel matchPathToContext() {
+		String path = paths[next++ & (PATHS - 1)];
+		return serverModel.matchPathToContext("localhost", path);
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Minimal interface stubs (servlet API, OSGi, Pax Web API) for benchmarks
+ * that exercise the container code outside of a running OSGi framework and
+ * server. A stub answers the configured values by method name, and the
+ * default value of the return type otherwise.
+ */
+public final class Stubs {
+
+	private Stubs() {
+	}
+
+	public static <T> T stub(final Class<T> type) {
+		return stub(type, Collections.<String, Object>emptyMap());
+	}
+
+	/**
+	 * Creates a stub answering {@code values.get(methodName)}. The map is
+	 * consulted on every call, so a benchmark may change the answers of a
+	 * stub between invocations.
+	 *
+	 * @param type   interface to stub
+	 * @param values return values by method name
+	 * @return the stub
+	 */
+	public static <T> T stub(final Class<T> type, final Map<String, ?> values) {
+		final Map<String, ?> answers = values;
+		Object stub = Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return answers.containsKey("toString") ? answers.get("toString")
+									: type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+						default:
+							break;
+					}
+					if (answers.containsKey(method.getName())) {
+						return answers.get(method.getName());
+					}
+					return defaultValue(method.getReturnType());
+				});
+		return type.cast(stub);
+	}
+
+	private static Object defaultValue(final Class<?> type) {
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == Enumeration.class) {
+			return Collections.emptyEnumeration();
+		} else if (type.isPrimitive() && type != void.class) {
+			throw new UnsupportedOperationException("No default value for " + type);
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.undertow.internal.ContextAwarePathHandler;
+import org.ops4j.pax.web.service.undertow.internal.PathMatcher;
+
+/**
+ * Context selection of the Undertow backend: the bare {@link PathMatcher}
+ * and the {@link ContextAwarePathHandler} wrapping it, with a growing number
+ * of registered context paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UndertowPathMatcherBenchmark {
+
+	private static final int PATHS = 1024;
+
+	private static final HttpHandler NO_OP = exchange -> {
+	};
+
+	@Param({"10", "1000", "10000"})
+	public int registrations;
+
+	private PathMatcher<HttpHandler> pathMatcher;
+
+	private ContextAwarePathHandler pathHandler;
+
+	private HttpServerExchange exchange;
+
+	private String[] paths;
+
+	private int next;
+
+	@Setup
+	public void setUp() {
+		pathMatcher = new PathMatcher<>(NO_OP);
+		pathHandler = new ContextAwarePathHandler(NO_OP);
+		for (int i = 0; i < registrations; i++) {
+			pathMatcher.addPrefixPath("/context" + i, NO_OP);
+			pathHandler.addPrefixPath("/context" + i, NO_OP);
+		}
+
+		paths = new String[PATHS];
+		for (int p = 0; p < PATHS; p++) {
+			int i = (p * 7919) % registrations;
+			switch (p % 3) {
+				case 0:
+					paths[p] = "/context" + i;
+					break;
+				case 1:
+					paths[p] = "/context" + i + "/servlet/path/resource.css";
+					break;
+				default:
+					// falls through to the default handler
+					paths[p] = "/unknown" + p + "/path";
+					break;
+			}
+		}
+		exchange = new HttpServerExchange(null);
+	}
+
+	@Benchmark
+	public PathMatcher.PathMatch<HttpHandler> pathMatcher() {
+		return pathMatcher.match(paths[next++ & (PATHS - 1)]);
+	}
+
+	@Benchmark
+	public HttpServerExchange contextAwarePathHandler() throws Exception {
+		String path = paths[next++ & (PATHS - 1)];
+		exchange.setRelativePath(path);
+		exchange.setResolvedPath("");
+		pathHandler.handleRequest(exchange);
+		return exchange;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.Stubs;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.model.ServerModel;
+import org.ops4j.pax.web.service.whiteboard.ServletMapping;
+import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
+import org.ops4j.pax.web.service.whiteboard.WhiteboardServlet;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.http.runtime.dto.RuntimeDTO;
+
+/**
+ * Building the {@link RuntimeDTO} of the whiteboard runtime with a growing
+ * number of whiteboard servlets, spread over a few servlet contexts. Lives in
+ * the package of the (package private) DTO building method.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WhiteboardDtoServiceBenchmark {
+
+	private static final int CONTEXTS = 10;
+
+	@Param({"10", "1000", "10000"})
+	public int registrations;
+
+	private WhiteboardDtoService dtoService;
+
+	private ServerModel serverModel;
+
+	private List<WhiteboardElement> elements;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		dtoService = new WhiteboardDtoService();
+		serverModel = new ServerModel();
+		String[] contextIds = new String[CONTEXTS];
+		for (int c = 0; c < CONTEXTS; c++) {
+			contextIds[c] = c == 0 ? WebContainerContext.DefaultContextIds.DEFAULT.getValue() : "context" + c;
+			Map<String, Object> servletContext = new HashMap<>();
+			servletContext.put("getServletContextName", contextIds[c]);
+			servletContext.put("getContextPath", c == 0 ? "" : "/" + contextIds[c]);
+			// service.id is the only property read from the reference
+			Map<String, Object> reference = new HashMap<>();
+			reference.put("getProperty", (long) c);
+			dtoService.addServletContext(Stubs.stub(ServiceReference.class, reference),
+					Stubs.stub(ServletContext.class, servletContext));
+		}
+
+		elements = new ArrayList<>(registrations);
+		for (int i = 0; i < registrations; i++) {
+			Map<String, Object> mapping = new HashMap<>();
+			mapping.put("getHttpContextId", i % CONTEXTS == 0 ? null : contextIds[i % CONTEXTS]);
+			mapping.put("getServlet", Stubs.stub(Servlet.class));
+			mapping.put("getServletName", "servlet" + i);
+			mapping.put("getUrlPatterns", new String[] {"/servlet" + i + "/*"});
+			mapping.put("getInitParams", Collections.emptyMap());
+			Map<String, Object> servlet = new HashMap<>();
+			servlet.put("getServletMapping", Stubs.stub(ServletMapping.class, mapping));
+			servlet.put("getServiceID", (long) (CONTEXTS + i));
+			servlet.put("isValid", true);
+			elements.add(Stubs.stub(WhiteboardServlet.class, servlet));
+		}
+	}
+
+	@Benchmark
+	public RuntimeDTO createWhiteboardRuntimeDTO() {
+		return dtoService.createWhiteboardRuntimeDTO(elements.iterator(), serverModel, null);
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.Stubs;
+import org.osgi.service.http.HttpContext;
+
+/**
+ * Static resource serving through the Jetty {@link ResourceServlet}, for a
+ * growing number of resources in the served directory. Lives in the package
+ * of the (package private) servlet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JettyResourceServletBenchmark {
+
+	private static final int PATHS = 1024;
+
+	private static final long LAST_MODIFIED = 1500000000000L;
+
+	private static final int CONTENT_LENGTH = 4096;
+
+	@Param({"10", "1000", "10000"})
+	public int registrations;
+
+	private File directory;
+
+	private ResourceServlet servlet;
+
+	private final Map<String, Object> request = new HashMap<>();
+
+	private HttpServletRequest httpServletRequest;
+
+	private HttpServletResponse httpServletResponse;
+
+	private String[] paths;
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("pax-web-benchmark").toFile();
+		byte[] content = new byte[CONTENT_LENGTH];
+		Arrays.fill(content, (byte) 'x');
+		for (int i = 0; i < registrations; i++) {
+			File file = new File(directory, "resource" + i + ".html");
+			Files.write(file.toPath(), content);
+			if (!file.setLastModified(LAST_MODIFIED)) {
+				throw new IOException("Can't set last modification time of " + file);
+			}
+		}
+		servlet = new ResourceServlet(new DirectoryHttpContext(directory), "", "/", "default");
+
+		paths = new String[PATHS];
+		for (int p = 0; p < PATHS; p++) {
+			paths[p] = "/resource" + ((p * 7919) % registrations) + ".html";
+		}
+
+		httpServletRequest = Stubs.stub(HttpServletRequest.class, request);
+		Map<String, Object> response = new HashMap<>();
+		response.put("getOutputStream", new NullServletOutputStream());
+		httpServletResponse = Stubs.stub(HttpServletResponse.class, response);
+	}
+
+	@TearDown
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public HttpServletResponse serve() throws Exception {
+		request.put("getRequestURI", paths[next++ & (PATHS - 1)]);
+		request.remove("getHeader");
+		servlet.service(httpServletRequest, httpServletResponse);
+		return httpServletResponse;
+	}
+
+	@Benchmark
+	public HttpServletResponse notModified() throws Exception {
+		request.put("getRequestURI", paths[next++ & (PATHS - 1)]);
+		// the stub answers any header, the servlet only asks for If-None-Match first
+		request.put("getHeader", String.valueOf(LAST_MODIFIED));
+		servlet.service(httpServletRequest, httpServletResponse);
+		return httpServletResponse;
+	}
+
+	private static final class DirectoryHttpContext implements HttpContext {
+
+		private final File directory;
+
+		DirectoryHttpContext(final File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public boolean handleSecurity(final HttpServletRequest request, final HttpServletResponse response) {
+			return true;
+		}
+
+		@Override
+		public URL getResource(final String name) {
+			File file = new File(directory, name);
+			try {
+				return file.exists() ? file.toURI().toURL() : null;
+			} catch (MalformedURLException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public String getMimeType(final String name) {
+			return null;
+		}
+	}
+
+	private static final class NullServletOutputStream extends ServletOutputStream {
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(final WriteListener writeListener) {
+		}
+
+		@Override
+		public void write(final int b) {
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+		}
+	}
+
+}
@@ -17,6 +17,8 @@
 package org.ops4j.pax.web.service.jetty.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -48,6 +50,13 @@ class JettyServerHandlerCollection extends HandlerCollection {
 
 	private final ServerModel serverModel;
 
+	/**
+	 * Handlers which are not a {@link ContextHandler}, split from the current
+	 * {@link #getHandlers()} array. These are called also when a context
+	 * matched.
+	 */
+	private volatile NonContextHandlers nonContextHandlers = new NonContextHandlers(null);
+
 	JettyServerHandlerCollection(final ServerModel serverModel) {
 		super(true);
 		NullArgumentException.validateNotNull(serverModel, "Server model");
@@ -72,7 +81,7 @@ class JettyServerHandlerCollection extends HandlerCollection {
 					"The server is null!");
 
 			final ContextHandler context = ((JettyServerWrapper) getServer())
-					.getContext(matched.getHttpContext());
+					.getMatchedContext(matched);
 
 			try {
 				if (context == null) {
@@ -98,19 +107,26 @@ class JettyServerHandlerCollection extends HandlerCollection {
 		//  - Upon receipt of a client request, the Web container determines the Web application to which to forward it.
 		//  - The Web container next must locate the servlet to process the request using the path mapping procedure [...]
 		//  - The first successful match is used with no further matches attempted
-		for (Handler handler : getHandlers()) {
-			if (matched != null
-					&& (handler instanceof ContextHandler || matchedContextEqualsHandler(matched, handler))) {
-				continue;
+		final Handler[] handlers = matched != null ? getNonContextHandlers() : getHandlers();
+		if (handlers != null) {
+			for (Handler handler : handlers) {
+				handler.handle(target, baseRequest, request, response);
 			}
-			handler.handle(target, baseRequest, request, response);
 		}
 	}
 
-	private boolean matchedContextEqualsHandler(ContextModel matched,
-												Handler handler) {
-		return handler == ((JettyServerWrapper) getServer())
-				.getContext(matched.getHttpContext());
+	/**
+	 * The handlers array is replaced (never modified) on every change, so the
+	 * split is redone only when the array is not the one it was made from.
+	 */
+	private Handler[] getNonContextHandlers() {
+		final Handler[] handlers = getHandlers();
+		NonContextHandlers split = nonContextHandlers;
+		if (split.handlers != handlers) {
+			split = new NonContextHandlers(handlers);
+			nonContextHandlers = split;
+		}
+		return split.nonContextHandlers;
 	}
 
 	@Override
@@ -125,4 +141,23 @@ class JettyServerHandlerCollection extends HandlerCollection {
 		return addBean(o, false);
 	}
 
+	private static final class NonContextHandlers {
+
+		private final Handler[] handlers;
+		private final Handler[] nonContextHandlers;
+
+		NonContextHandlers(final Handler[] handlers) {
+			this.handlers = handlers;
+			List<Handler> others = new ArrayList<>();
+			if (handlers != null) {
+				for (Handler handler : handlers) {
+					if (!(handler instanceof ContextHandler)) {
+						others.add(handler);
+					}
+				}
+			}
+			this.nonContextHandlers = others.toArray(new Handler[others.size()]);
+		}
+	}
+
 }
@@ -335,7 +335,7 @@ class JettyServerImpl implements JettyServer {
 					}
 				}
 				if (!hasDefault) {
-					ResourceServlet servlet = new ResourceServlet(model.getHttpContext(), model.getContextName(), "/", "default");
+					ResourceServlet servlet = new ResourceServlet(model.getHttpContext(), model.getBundle(), model.getContextName(), "/", "default");
 					ResourceModel resourceModel = new ResourceModel(model, servlet, "/", "default");
 					addServlet(resourceModel);
 				}
@@ -79,11 +79,18 @@ class JettyServerWrapper extends Server {
 
 	private static final class ServletContextInfo {
 
+		private final JettyServerWrapper server;
 		private final HttpServiceContext handler;
 		private final AtomicInteger refCount = new AtomicInteger(1);
+		/**
+		 * Set once the info is removed from {@link #contexts}, so context
+		 * models still bound to it fall back to the lookup.
+		 */
+		private volatile boolean removed;
 
-		public ServletContextInfo(HttpServiceContext handler) {
+		public ServletContextInfo(JettyServerWrapper server, HttpServiceContext handler) {
 			super();
+			this.server = server;
 			this.handler = handler;
 		}
 
@@ -195,6 +202,35 @@ class JettyServerWrapper extends Server {
 		}
 	}
 
+	/**
+	 * Returns the context handler of a context model matched by the
+	 * {@link ServerModel}. The first lookup binds the handler to the model, so
+	 * that further requests to the same context skip the locked lookup.
+	 *
+	 * @param model matched context model
+	 * @return context handler or null if the context is not (or no longer) created
+	 */
+	HttpServiceContext getMatchedContext(final ContextModel model) {
+		final Object bound = model.getServerContext();
+		if (bound instanceof ServletContextInfo) {
+			final ServletContextInfo info = (ServletContextInfo) bound;
+			if (info.server == this && !info.removed) {
+				return info.getHandler();
+			}
+		}
+		readLock.lock();
+		try {
+			ServletContextInfo servletContextInfo = contexts.get(model.getHttpContext());
+			if (servletContextInfo == null) {
+				return null;
+			}
+			model.setServerContext(servletContextInfo);
+			return servletContextInfo.getHandler();
+		} finally {
+			readLock.unlock();
+		}
+	}
+
 	HttpServiceContext getOrCreateContext(final Model model) {
 		return getOrCreateContext(model.getContextModel());
 	}
@@ -215,7 +251,7 @@ class JettyServerWrapper extends Server {
 						LOG.debug("Creating new ServletContextHandler for HTTP context [{}] and model [{}]",
 								httpContext, model);
 
-						context = new ServletContextInfo(this.addContext(model));
+						context = new ServletContextInfo(this, this.addContext(model));
 						contexts.put(httpContext, context);
 						// don't increment! - it's already == 1 after creation
 //						context.incrementRefCount();
@@ -249,6 +285,9 @@ class JettyServerWrapper extends Server {
 					writeLock.lock();
 					LOG.debug("Removing ServletContextHandler for HTTP context [{}].", httpContext);
 					context = contexts.remove(httpContext);
+					if (context != null) {
+						context.removed = true;
+					}
 				} finally {
 					readLock.lock();
 					writeLock.unlock();
@@ -16,12 +16,19 @@
  */
 package org.ops4j.pax.web.service.jetty.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
@@ -33,9 +40,20 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.ops4j.pax.web.service.spi.util.AsyncResourceWriter;
+import org.ops4j.pax.web.service.spi.util.BundleEntryIndex;
+import org.ops4j.pax.web.service.spi.util.ByteRanges;
+import org.ops4j.pax.web.service.spi.util.ETags;
+import org.ops4j.pax.web.service.spi.util.FileResources;
+import org.ops4j.pax.web.service.spi.util.MimeTypeCache;
+import org.ops4j.pax.web.service.spi.util.ResourceCache;
+import org.ops4j.pax.web.service.spi.util.ResourceFingerprints;
+import org.ops4j.pax.web.service.spi.util.WelcomeFileCache;
+import org.osgi.framework.Bundle;
 import org.osgi.service.http.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +62,21 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 
 	private static final int SECOND = 1000;
 
+	/**
+	 * Maximum number of directories whose welcome file is remembered
+	 */
+	private static final int WELCOME_FILE_CACHE_SIZE = 1024;
+
+	/**
+	 * Maximum number of extensions whose mime type is remembered
+	 */
+	private static final int MIME_TYPE_CACHE_SIZE = 1024;
+
+	/**
+	 * Files of at least this size are memory mapped, smaller ones are streamed from their channel
+	 */
+	private static final long MAPPED_MIN_SIZE = 48 * 1024;
+
 	/**
 	 *
 	 */
@@ -61,22 +94,43 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 	@SuppressWarnings("unused")
 	private static final String KEEP_ALIVE = "Keep-Alive";
 	private static final String ETAG = "ETag";
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String VARY = "Vary";
 	// CHECKSTYLE:ON
 
 	private static final Logger LOG = LoggerFactory
 			.getLogger(ResourceServlet.class);
 
 	private final HttpContext httpContext;
+	private final Bundle bundle;
 	private final String contextName;
 	private final String alias;
 	private final String name;
 	private final MimeTypes mimeTypes = new MimeTypes();
+	private final MimeTypeCache mimeTypeCache = new MimeTypeCache(MIME_TYPE_CACHE_SIZE);
+	private final ResourceCache resourceCache = ResourceCache.shared();
+	private final BundleEntryIndex entryIndex = BundleEntryIndex.shared();
+	private final FileResources fileResources = FileResources.shared();
+	private final AsyncResourceWriter asyncWriter = AsyncResourceWriter.shared();
+	private final ResourceFingerprints fingerprints = ResourceFingerprints.shared();
+	private final WelcomeFileCache<String> welcomeFileCache = new WelcomeFileCache<>(WELCOME_FILE_CACHE_SIZE);
 
 	private String[] welcomes;
+	private boolean fingerprinted;
 
 	ResourceServlet(final HttpContext httpContext, final String contextName,
 					final String alias, final String name) {
+		this(httpContext, null, contextName, alias, name);
+	}
+
+	/**
+	 * @param bundle bundle of the http context, used to cache its resources; may be null
+	 */
+	ResourceServlet(final HttpContext httpContext, final Bundle bundle, final String contextName,
+					final String alias, final String name) {
 		this.httpContext = httpContext;
+		this.bundle = bundle;
 		this.contextName = "/" + contextName;
 		this.alias = alias;
 		if ("/".equals(name)) {
@@ -95,6 +149,18 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 		if (welcomes == null) {
 			welcomes = new String[]{"index.html", "index.jsp"};
 		}
+		welcomeFileCache.clear();
+		if (contextHandler.getMimeTypes() != null) {
+			mimeTypeCache.seed(contextHandler.getMimeTypes().getMimeMap());
+		}
+		fingerprinted = Boolean.parseBoolean(getInitParameter(ResourceFingerprints.INIT_PARAM));
+	}
+
+	@Override
+	public void destroy() {
+		// cached resources are keyed by the http context, which may not be used anymore
+		resourceCache.invalidateContext(httpContext);
+		super.destroy();
 	}
 
 	/**
@@ -168,6 +234,17 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 		boolean endsWithSlash = (mapping == null ? request.getServletPath()
 				: mapping).endsWith(URIUtil.SLASH);
 
+		if (fingerprinted && !included) {
+			// "/app.3f2a9c0e1b.js" is served as "/app.js"
+			mapping = fingerprints.resolve(bundle, mapping, httpContext::getResource, response);
+		}
+
+		ResourceCache.Entry cached = resourceCache.get(bundle, httpContext, mapping);
+		if (cached != null) {
+			serveCached(request, response, cached);
+			return;
+		}
+
 		final URL url = httpContext.getResource(mapping);
 		if (url == null) {
 			response.sendError(HttpServletResponse.SC_NOT_FOUND);
@@ -183,9 +260,13 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 			resource = null;
 		}
 
+		// entries of the context bundle are looked up in memory instead of asking the url
+		final BundleEntryIndex.Entry indexed = entryIndex.get(bundle, url);
+
 		try {
 
-			if ((resource == null || (!resource.exists()) && getWelcomeFile(mapping) == null)) {
+			boolean exists = resource != null && (indexed != null || resource.exists());
+			if ((resource == null || (!exists) && getWelcomeFile(mapping) == null)) {
 				if (!response.isCommitted()) {
 					if (mapping.equals("/")) {
 						// root directory listing, but no "dir entry" from bundle
@@ -199,8 +280,10 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 
 			// let's check if this is maybe a directory. org.osgi.framework.Bundle.getResource()
 			// returns proper URL for directory entry and we can't tell if it's a directory or not
-			boolean possibleDirectoryBundleEntry = !resource.exists();
-			if (resource.exists()) {
+			boolean possibleDirectoryBundleEntry = !exists;
+			if (indexed != null) {
+				possibleDirectoryBundleEntry = indexed.isDirectory();
+			} else if (exists) {
 				try (InputStream peek = resource.getInputStream()) {
 					possibleDirectoryBundleEntry = peek.available() == 0;
 				}
@@ -237,84 +320,255 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 						}
 					}
 				}
-			} else if (resource != null && resource.isDirectory()) {
+			} else if (indexed != null ? indexed.isDirectory() : resource.isDirectory()) {
 				// directory listing
 				response.sendError(HttpServletResponse.SC_FORBIDDEN);
 				return;
 			}
 
-			// if the request contains an etag and its the same for the
-			// resource, we deliver a NOT MODIFIED response
-			String eTag = String.valueOf(resource.lastModified());
-			if ((request.getHeader(IF_NONE_MATCH) != null)
-					&& (eTag.equals(request.getHeader(IF_NONE_MATCH)))) {
-				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			final long lastModified = indexed != null ? indexed.getLastModified() : resource.lastModified();
+			final long length = indexed != null ? indexed.getLength() : resource.length();
+			String eTag = resourceCache.getETag(bundle, url, lastModified, length);
+			String mimeType = getMimeType(mapping, url);
+
+			ResourceCache.Entry loaded = resourceCache.isEnabled()
+					? resourceCache.load(bundle, httpContext, mapping, url, length, lastModified, mimeType, eTag,
+					httpContext::getResource)
+					: null;
+			if (loaded != null) {
+				serveCached(request, response, loaded);
 				return;
-			} else if (request.getHeader(IF_MODIFIED_SINCE) != null) {
-				long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
-				if (resource.lastModified() != -1) {
-					// resource.lastModified()/1000 <= ifmsl/1000
-					if (resource.lastModified() / SECOND <= ifModifiedSince / SECOND) {
-						response.reset();
-						response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-						response.flushBuffer();
-						return;
-					}
-				}
-			} else if (request.getHeader(IF_UNMODIFIED_SINCE) != null) {
-				long modifiedSince = request.getDateHeader(IF_UNMODIFIED_SINCE);
+			}
 
-				if (modifiedSince != -1) {
-					if (resource.lastModified() / SECOND > modifiedSince / SECOND) {
-						response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
-						return;
-					}
+			// precompressed siblings are served whether or not the resource itself is cached
+			Map<String, URL> precompressed = resourceCache.getPrecompressed(mapping, httpContext::getResource);
+			if (!precompressed.isEmpty()) {
+				response.addHeader(VARY, ACCEPT_ENCODING);
+				ResourceCache.Precompressed sibling = resourceCache.selectPrecompressed(bundle, entryIndex,
+						precompressed, request.getHeader(ACCEPT_ENCODING));
+				if (sibling != null) {
+					servePrecompressed(request, response, sibling, mimeType);
+					return;
 				}
 			}
 
-			// set the etag
-			response.setHeader(ETAG, eTag);
-			String mimeType = httpContext.getMimeType(mapping);
-			if (mimeType == null) {
-				mimeType = mimeTypes.getMimeByExtension(mapping);
+			// if the request contains an etag and its the same for the
+			// resource, we deliver a NOT MODIFIED response
+			if (!checkPreconditions(request, response, eTag, lastModified)) {
+				return;
 			}
 
-			if (mimeType == null) {
-				try {
-					mimeType = url.openConnection().getContentType();
-				} catch (IOException ignore) {
-					// we do not care about such an exception as the fact that
-					// we are using also the connection for
-					// finding the mime type is just a "nice to have" not an
-					// requirement
-				}
+			// set the etag
+			response.setHeader(ETAG, eTag);
+			if (mimeType != null) {
+				response.setContentType(mimeType);
 			}
 
-			if (mimeType == null) {
-				ServletContext servletContext = getServletConfig()
-						.getServletContext();
-				mimeType = servletContext.getMimeType(mapping);
+			// files (file: urls, bundles installed from directories) are sent from a file channel
+			final Path file = fileResources.toFile(bundle, url);
+			final Resource content = resource;
+			if (ByteRanges.serve(request, response, eTag, lastModified, length, mimeType,
+					file != null ? ByteRanges.source(file) : content::writeTo)) {
+				return;
 			}
 
-			if (mimeType != null) {
-				response.setContentType(mimeType);
+			// large resources are written by the container as the client reads them,
+			// the status has to be set before writing starts
+			response.setStatus(HttpServletResponse.SC_OK);
+			if (asyncWriter.write(request, response, length,
+					file != null ? () -> Files.newInputStream(file) : url::openStream)) {
+				return;
 			}
 
 			OutputStream out = response.getOutputStream();
 			if (out != null) { // null should be just in unit testing
-				if (out instanceof HttpOutput) {
+				if (out instanceof HttpOutput && file != null) {
+					sendFile(response, (HttpOutput) out, file);
+				} else if (out instanceof HttpOutput) {
 					((HttpOutput) out).sendContent(resource.getInputStream());
 				} else {
 					// Write content normally
-					resource.writeTo(out, 0, resource.length());
+					resource.writeTo(out, 0, length);
 				}
 			}
-			response.setStatus(HttpServletResponse.SC_OK);
 		} finally {
 			resource.release();
 		}
 	}
 
+	private String getMimeType(final String mapping, final URL url) {
+		String mimeType = httpContext.getMimeType(mapping);
+		if (mimeType == null) {
+			// the fallbacks only depend on the extension
+			mimeType = mimeTypeCache.get(mapping, name -> guessMimeType(name, url));
+		}
+		return mimeType;
+	}
+
+	private String guessMimeType(final String mapping, final URL url) {
+		String mimeType = mimeTypes.getMimeByExtension(mapping);
+
+		if (mimeType == null) {
+			try {
+				mimeType = url.openConnection().getContentType();
+			} catch (IOException ignore) {
+				// we do not care about such an exception as the fact that
+				// we are using also the connection for
+				// finding the mime type is just a "nice to have" not an
+				// requirement
+			}
+		}
+
+		if (mimeType == null) {
+			ServletContext servletContext = getServletConfig()
+					.getServletContext();
+			mimeType = servletContext.getMimeType(mapping);
+		}
+		return mimeType;
+	}
+
+	/**
+	 * Serves a cached resource in the content coding preferred by the client.
+	 */
+	private void serveCached(final HttpServletRequest request, final HttpServletResponse response,
+							 final ResourceCache.Entry entry) throws IOException {
+		ResourceCache.Entry representation = entry.select(request.getHeader(ACCEPT_ENCODING));
+		if (entry.hasVariants()) {
+			response.addHeader(VARY, ACCEPT_ENCODING);
+		}
+		if (!checkPreconditions(request, response, representation.getETag(), representation.getLastModified())) {
+			return;
+		}
+		response.setHeader(ETAG, representation.getETag());
+		if (representation.getContentEncoding() != null) {
+			response.setHeader(CONTENT_ENCODING, representation.getContentEncoding());
+		}
+		if (representation.getMimeType() != null) {
+			response.setContentType(representation.getMimeType());
+		}
+		send(request, response, representation);
+	}
+
+	/**
+	 * Streams the precompressed sibling of a resource which is not cached.
+	 */
+	private void servePrecompressed(final HttpServletRequest request, final HttpServletResponse response,
+									final ResourceCache.Precompressed sibling, final String mimeType)
+			throws IOException {
+		if (!checkPreconditions(request, response, sibling.getETag(), sibling.getLastModified())) {
+			return;
+		}
+		response.setHeader(ETAG, sibling.getETag());
+		response.setHeader(CONTENT_ENCODING, sibling.getContentEncoding());
+		if (mimeType != null) {
+			response.setContentType(mimeType);
+		}
+		final URL url = sibling.getUrl();
+		final Path file = fileResources.toFile(bundle, url);
+		if (ByteRanges.serve(request, response, sibling.getETag(), sibling.getLastModified(),
+				sibling.getContentLength(), mimeType, file != null ? ByteRanges.source(file) : ByteRanges.source(url))) {
+			return;
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+		if (asyncWriter.write(request, response, sibling.getContentLength(),
+				file != null ? () -> Files.newInputStream(file) : url::openStream)) {
+			return;
+		}
+		OutputStream out = response.getOutputStream();
+		if (out != null) { // null should be just in unit testing
+			if (out instanceof HttpOutput && file != null) {
+				sendFile(response, (HttpOutput) out, file);
+			} else {
+				response.setContentLengthLong(sibling.getContentLength());
+				try (InputStream in = url.openStream()) {
+					if (out instanceof HttpOutput) {
+						((HttpOutput) out).sendContent(in);
+					} else {
+						IO.copy(in, out);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Handles the conditional headers of a request.
+	 *
+	 * @return true if the resource should be sent, false if the response is already complete
+	 */
+	private boolean checkPreconditions(final HttpServletRequest request, final HttpServletResponse response,
+									   final String eTag, final long lastModified) throws IOException {
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+		if (ifNoneMatch != null && ETags.matches(ifNoneMatch, eTag)) {
+			response.setHeader(ETAG, eTag);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return false;
+		} else if (ifNoneMatch == null && request.getHeader(IF_MODIFIED_SINCE) != null) {
+			long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+			if (lastModified != -1) {
+				// resource.lastModified()/1000 <= ifmsl/1000
+				if (lastModified / SECOND <= ifModifiedSince / SECOND) {
+					response.reset();
+					response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					response.flushBuffer();
+					return false;
+				}
+			}
+		} else if (request.getHeader(IF_UNMODIFIED_SINCE) != null) {
+			long modifiedSince = request.getDateHeader(IF_UNMODIFIED_SINCE);
+
+			if (modifiedSince != -1) {
+				if (lastModified / SECOND > modifiedSince / SECOND) {
+					response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sends the content, or the requested ranges of it, of a cached resource.
+	 */
+	private void send(final HttpServletRequest request, final HttpServletResponse response,
+					  final ResourceCache.Entry entry) throws IOException {
+		if (ByteRanges.serve(request, response, entry.getETag(), entry.getLastModified(), entry.getContentLength(),
+				entry.getMimeType(), ByteRanges.source(entry.getContent()))) {
+			return;
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+		if (asyncWriter.write(request, response, entry.getContentLength(),
+				() -> new ByteArrayInputStream(entry.getContent()))) {
+			return;
+		}
+		response.setContentLength(entry.getContentLength());
+		OutputStream out = response.getOutputStream();
+		if (out != null) { // null should be just in unit testing
+			if (out instanceof HttpOutput) {
+				((HttpOutput) out).sendContent(ByteBuffer.wrap(entry.getContent()));
+			} else {
+				out.write(entry.getContent());
+			}
+		}
+	}
+
+	/**
+	 * Sends a large file as memory mapped buffer, so Jetty writes it without copying it to the heap.
+	 * Mapping a small file costs more than copying it.
+	 */
+	private static void sendFile(final HttpServletResponse response, final HttpOutput out, final Path file)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			response.setContentLengthLong(size);
+			if (size >= MAPPED_MIN_SIZE && size <= Integer.MAX_VALUE) {
+				out.sendContent(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			} else {
+				out.sendContent(channel);
+			}
+		}
+	}
+
 	/**
 	 * Finds a matching welcome file for the supplied {@link Resource}. This
 	 * will be the first entry in the list of configured {@link #_welcomes
@@ -332,6 +586,12 @@ class ResourceServlet extends HttpServlet implements ResourceFactory {
 	 */
 	private String getWelcomeFile(String pathInContext)
 			throws MalformedURLException, IOException {
+		// welcomes is replaced when the servlet is reinitialized with new welcome files
+		return welcomeFileCache.get(bundle, welcomes, pathInContext, this::findWelcomeFile);
+	}
+
+	private String findWelcomeFile(String pathInContext)
+			throws MalformedURLException, IOException {
 		if (welcomes == null) {
 			return null;
 		}
@@ -228,7 +228,7 @@ class ServerControllerImpl implements ServerController {
 	@Override
 	public Servlet createResourceServlet(ContextModel contextModel,
 										 String alias, String name) {
-		return new ResourceServlet(contextModel.getHttpContext(),
+		return new ResourceServlet(contextModel.getHttpContext(), contextModel.getBundle(),
 				contextModel.getContextName(), alias, name);
 	}
 
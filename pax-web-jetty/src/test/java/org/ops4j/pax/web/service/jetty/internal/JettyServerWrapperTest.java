@@ -17,6 +17,7 @@ package org.ops4j.pax.web.service.jetty.internal;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -191,6 +192,29 @@ public class JettyServerWrapperTest {
 		}
 	}
 
+	@Test
+	public void matchedContextIsBoundToContextModelUntilRemoved()
+			throws Exception {
+		doCallRealMethod().when(contextModelMock).getServerContext();
+		doCallRealMethod().when(contextModelMock).setServerContext(any());
+		final JettyServerWrapper jettyServerWrapperUnderTest = new JettyServerWrapper(
+				serverModelMock, new QueuedThreadPool());
+		try {
+			jettyServerWrapperUnderTest.start();
+			assertNull(jettyServerWrapperUnderTest.getMatchedContext(contextModelMock));
+			final HttpServiceContext created = jettyServerWrapperUnderTest.getOrCreateContext(contextModelMock);
+
+			assertSame(created, jettyServerWrapperUnderTest.getMatchedContext(contextModelMock));
+			assertNotNull(contextModelMock.getServerContext());
+			assertSame(created, jettyServerWrapperUnderTest.getMatchedContext(contextModelMock));
+
+			jettyServerWrapperUnderTest.removeContext(httpContextMock, false);
+			assertNull(jettyServerWrapperUnderTest.getMatchedContext(contextModelMock));
+		} finally {
+			jettyServerWrapperUnderTest.stop();
+		}
+	}
+
 	@Test
 	public void registrationAndUnregistrationOfTwoServletsThereShouldBeNoContexts()
 			throws Exception {
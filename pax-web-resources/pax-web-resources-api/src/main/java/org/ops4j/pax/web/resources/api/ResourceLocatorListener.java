@@ -0,0 +1,37 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.api;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * <p>
+ * Services registered with this interface (whiteboard-style) are notified whenever
+ * the resources of the {@link OsgiResourceLocator} provided by the extender change,
+ * so that resources resolved earlier can be discarded.
+ * </p>
+ */
+public interface ResourceLocatorListener {
+
+	/**
+	 * Called after the resources of a bundle were added to or removed from the lookup-process.
+	 *
+	 * @param bundle the registered or unregistered bundle
+	 */
+	void resourcesChanged(Bundle bundle);
+
+}
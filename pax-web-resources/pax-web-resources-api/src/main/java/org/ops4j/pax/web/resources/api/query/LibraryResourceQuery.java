@@ -0,0 +1,64 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.api.query;
+
+import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
+
+/**
+ * <p>
+ * A {@link ResourceQueryMatcher} for resources laid out as
+ * {@code [localePrefix/][libraryName/][libraryVersion/]resourceName[/resourceVersion]},
+ * where versions are digits separated by '_' (e.g. {@code 1_2}) and a resource-version
+ * keeps the extension of the resource (e.g. {@code resource.png/2_1.png}).
+ * </p>
+ * <p>
+ * An {@link OsgiResourceLocator} may resolve such a query from an index of that layout instead
+ * of calling {@link #matches(String)} for every resource. It then returns the matches ordered
+ * from best to worst: resources with the locale-prefix first, then by descending library-version
+ * and descending resource-version.
+ * </p>
+ */
+public interface LibraryResourceQuery extends ResourceQueryMatcher {
+
+	/**
+	 * @return the locale-prefix, may be null
+	 */
+	String getLocalePrefix();
+
+	/**
+	 * @return the library-name, may be null
+	 */
+	String getLibraryName();
+
+	/**
+	 * @return the resource-name, never null
+	 */
+	String getResourceName();
+
+	/**
+	 * Creates the result of a resource matched through an index.
+	 *
+	 * @param matchedLocalePrefix whether the resource is located under the locale-prefix
+	 * @param matchedLibraryName  whether the resource is located in the library
+	 * @param libraryVersion      library-version of the resource, may be null
+	 * @param resourceVersion     resource-version of the resource, may be null
+	 * @return the result, equal to the one {@link #matches(String)} returns for that resource
+	 */
+	<R extends ResourceQueryResult> R createResult(boolean matchedLocalePrefix, boolean matchedLibraryName,
+												   String libraryVersion, String resourceVersion);
+
+}
@@ -23,17 +23,23 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
 import org.ops4j.pax.web.resources.api.ResourceInfo;
+import org.ops4j.pax.web.resources.api.ResourceLocatorListener;
+import org.ops4j.pax.web.resources.api.query.LibraryResourceQuery;
 import org.ops4j.pax.web.resources.api.query.ResourceQueryMatcher;
 import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
 import org.osgi.framework.Bundle;
@@ -55,6 +61,24 @@ import org.slf4j.LoggerFactory;
  * the map is already used, the old value will be moved to a separated
  * collection, until the overriding bundle is stopped.
  * </p>
+ * <p>
+ * Queries for JSF-like resources ({@link LibraryResourceQuery}) are resolved from a
+ * {@link LibraryResourceIndex} of the same resources, without matching all of them.
+ * </p>
+ * <p>
+ * Registered {@link ResourceLocatorListener}s are notified after the resources of a
+ * bundle were added or removed.
+ * </p>
+ * <p>
+ * Bundles may be scanned by an {@link Executor}, in parallel. Their resources are still
+ * added to the index in the order of registration, so overriding does not depend on
+ * which scan finishes first. Until then, resources are looked up directly in the
+ * bundles being scanned.
+ * </p>
+ * <p>
+ * With a {@link ResourceIndexStore}, the entries found in a bundle are stored and only
+ * scanned again if the bundle changed.
+ * </p>
  *
  * @author Marc Schlegel
  */
@@ -68,48 +92,175 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 	private ResourceBundleIndex index;
 	private transient Logger logger;
 
+	private List<ResourceLocatorListener> listeners = new CopyOnWriteArrayList<>();
+
+	private final Executor scanExecutor;
 
-	private List<ResourceBundleIndexEntry> shadowedMap = new CopyOnWriteArrayList<>();
+	private final ResourceIndexStore store;
 
+	/**
+	 * Registrations of bundles which are not yet added to the index
+	 */
+	private final Map<Bundle, Registration> scanningBundles = new ConcurrentHashMap<>();
+
+	private final AtomicLong registrations = new AtomicLong();
+
+	/**
+	 * Completes when all registered bundles are added to the index
+	 */
+	private CompletableFuture<Void> indexed = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Creates a locator which scans bundles when they are registered.
+	 *
+	 * @param context bundle-context of the extender
+	 */
 	public IndexedOsgiResourceLocator(BundleContext context) {
+		this(context, Runnable::run, null);
+	}
+
+	/**
+	 * Creates a locator which scans registered bundles with the given executor.
+	 *
+	 * @param context      bundle-context of the extender
+	 * @param scanExecutor executes the scans of bundles
+	 * @param store        stores the entries of scanned bundles, may be {@code null}
+	 */
+	public IndexedOsgiResourceLocator(BundleContext context, Executor scanExecutor, ResourceIndexStore store) {
 		this.logger = LoggerFactory.getLogger(getClass());
 		this.context = context;
+		this.scanExecutor = scanExecutor;
+		this.store = store;
 		index = new ResourceBundleIndex();
 	}
 
 	@Override
 	public void register(final Bundle bundle) {
-		Collection<URL> urls;
+		final Registration registration = new Registration(bundle, registrations.incrementAndGet());
+		scanningBundles.put(bundle, registration);
+		CompletableFuture<Collection<URL>> scan = CompletableFuture.supplyAsync(() -> scan(bundle), scanExecutor);
+		synchronized (this) {
+			indexed = indexed.thenCombine(scan, (previous, urls) -> {
+				addToIndex(registration, urls);
+				return null;
+			});
+		}
+	}
+
+	private Collection<URL> scan(final Bundle bundle) {
 		try {
-			urls = Collections.list(bundle.findEntries(RESOURCE_ROOT, "*.*", true));
-		} catch (IllegalStateException e) {
+			Collection<URL> urls = store != null ? store.load(bundle) : null;
+			if (urls != null) {
+				logger.debug("Using stored resources of bundle '{}'", bundle.getSymbolicName());
+				return urls;
+			}
+			Enumeration<URL> entries = bundle.findEntries(RESOURCE_ROOT, "*.*", true);
+			urls = entries != null ? Collections.list(entries) : Collections.emptyList();
+			if (store != null) {
+				store.save(bundle, urls);
+			}
+			return urls;
+		} catch (RuntimeException e) {
 			logger.error("Error retrieving bundle-resources from bundle '{}'", bundle.getSymbolicName(), e);
-			urls = Collections.emptyList();
+			return Collections.emptyList();
 		}
+	}
 
-		urls.forEach(url -> index.addResourceToIndex(
-				url.getPath(),
-				new ResourceInfo(url, LocalDateTime.ofInstant(
-						Instant.ofEpochMilli(
-								bundle.getLastModified()),
-						ZoneId.systemDefault()),
-						bundle.getBundleId()),
-				bundle));
-
-		logger.info("Bundle '{}' scanned for resources in '{}': {} entries added to index.",
-				new Object[]{bundle.getSymbolicName(),
-						RESOURCE_ROOT, urls.size()});
+	private void addToIndex(final Registration registration, final Collection<URL> urls) {
+		final Bundle bundle = registration.bundle;
+		try {
+			final LocalDateTime lastModified = getLastModified(bundle);
+			synchronized (index) {
+				if (scanningBundles.get(bundle) != registration) {
+					// unregistered (or registered again) while being scanned
+					return;
+				}
+				urls.forEach(url -> index.addResourceToIndex(
+						url.getPath(),
+						new ResourceInfo(url, lastModified, bundle.getBundleId()),
+						bundle));
+				scanningBundles.remove(bundle, registration);
+			}
+			logger.info("Bundle '{}' scanned for resources in '{}': {} entries added to index.",
+					new Object[]{bundle.getSymbolicName(),
+							RESOURCE_ROOT, urls.size()});
+			fireResourcesChanged(bundle);
+		} catch (RuntimeException e) {
+			logger.error("Error indexing bundle-resources from bundle '{}'", bundle.getSymbolicName(), e);
+		}
 	}
 
 	@Override
 	public void unregister(Bundle bundle) {
-		index.cleanBundleFromIndex(bundle);
+		synchronized (index) {
+			scanningBundles.remove(bundle);
+			index.cleanBundleFromIndex(bundle);
+		}
+		fireResourcesChanged(bundle);
+	}
+
+	private static LocalDateTime getLastModified(Bundle bundle) {
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(bundle.getLastModified()), ZoneId.systemDefault());
+	}
+
+	/**
+	 * Looks up a resource directly in the bundles which are not yet added to the index.
+	 *
+	 * @param lookupPath full path of the resource
+	 * @return the resource of the bundle registered last, or {@code null}
+	 */
+	private ResourceInfo locateInScanningBundles(final String lookupPath) {
+		Registration latest = null;
+		URL url = null;
+		for (Registration registration : scanningBundles.values()) {
+			if (latest != null && registration.sequence < latest.sequence) {
+				continue;
+			}
+			try {
+				URL entry = registration.bundle.getEntry(lookupPath);
+				if (entry != null) {
+					latest = registration;
+					url = entry;
+				}
+			} catch (IllegalStateException e) {
+				// uninstalled meanwhile
+			}
+		}
+		if (latest == null) {
+			return null;
+		}
+		return new ResourceInfo(url, getLastModified(latest.bundle), latest.bundle.getBundleId());
+	}
+
+	public void addListener(ResourceLocatorListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(ResourceLocatorListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void fireResourcesChanged(Bundle bundle) {
+		for (ResourceLocatorListener listener : listeners) {
+			try {
+				listener.resourcesChanged(bundle);
+			} catch (RuntimeException e) {
+				logger.warn("ResourceLocatorListener failed for bundle '{}'", bundle.getSymbolicName(), e);
+			}
+		}
 	}
 
 	@Override
 	public ResourceInfo locateResource(String resourceName) {
 		final String lookupString = RESOURCE_ROOT + cleanSlashesFromPath(resourceName);
 
+		if (!scanningBundles.isEmpty()) {
+			// bundles being scanned override the indexed ones when added
+			ResourceInfo resourceInfo = locateInScanningBundles(lookupString);
+			if (resourceInfo != null) {
+				return resourceInfo;
+			}
+		}
 		return index.getResourceInfo(lookupString);
 	}
 
@@ -118,7 +269,21 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 		if (queryMatcher == null) {
 			throw new IllegalArgumentException("findResources must be called with non-null queryMatcher!");
 		}
-		return index.findResources(queryMatcher);
+		Collection<R> results = index.findResources(queryMatcher);
+		if (results.isEmpty() && !scanningBundles.isEmpty() && queryMatcher instanceof LibraryResourceQuery) {
+			// without the entries of bundles being scanned, only unversioned resources can be found
+			LibraryResourceQuery query = (LibraryResourceQuery) queryMatcher;
+			for (LibraryResourceIndex.Candidate candidate : LibraryResourceIndex.candidates(query)) {
+				ResourceInfo resourceInfo = locateInScanningBundles(RESOURCE_ROOT + candidate.getPath());
+				if (resourceInfo != null) {
+					R result = query.createResult(candidate.isMatchedLocalePrefix(), candidate.isMatchedLibraryName(),
+							null, null);
+					result.addMatchedResourceInfo(resourceInfo);
+					return Collections.singletonList(result);
+				}
+			}
+		}
+		return results;
 	}
 
 
@@ -147,23 +312,37 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 
 		private Map<String, ResourceBundleIndexEntry> indexMap = new ConcurrentHashMap<>(100);
 
+		private LibraryResourceIndex libraryIndex = new LibraryResourceIndex(RESOURCE_ROOT);
+
+		/**
+		 * Overridden entries per path, the one overridden last at the end. Only modified while
+		 * holding the lock of this index, like {@link #bundlePaths}.
+		 */
+		private Map<String, List<ResourceBundleIndexEntry>> shadowedMap = new HashMap<>();
+
+		/**
+		 * Paths provided by each bundle, either current or shadowed
+		 */
+		private Map<Long, List<String>> bundlePaths = new HashMap<>();
+
 		private void addResourceToIndex(String lookupPath, ResourceInfo resourceInfo, Bundle bundleWithResource) {
 			if (StringUtils.isBlank(lookupPath) || resourceInfo == null || bundleWithResource == null) {
 				return;
 			}
-			if (indexMap.containsKey(lookupPath)) {
-				ResourceBundleIndexEntry entry = indexMap.get(lookupPath);
-				Bundle currentlyProvidingBundle = context.getBundle(entry.getResourceInfo().getBundleId());
+			ResourceBundleIndexEntry shadowedEntry = indexMap.put(lookupPath,
+					new ResourceBundleIndexEntry(lookupPath, resourceInfo));
+			if (shadowedEntry != null) {
+				Bundle currentlyProvidingBundle = context.getBundle(shadowedEntry.getResourceInfo().getBundleId());
 				logger.warn(
 						"Resource with path '{}' is already provided by bundle '{}'! Will be overridden by bundle '{}'",
 						new Object[]{
 								lookupPath,
 								currentlyProvidingBundle.getSymbolicName(),
 								bundleWithResource.getSymbolicName()});
-				shadowedMap.add(indexMap.get(lookupPath));
+				shadowedMap.computeIfAbsent(lookupPath, path -> new ArrayList<>(1)).add(shadowedEntry);
 			}
-			indexMap.put(lookupPath,
-					new ResourceBundleIndexEntry(lookupPath, resourceInfo));
+			libraryIndex.put(lookupPath, resourceInfo);
+			bundlePaths.computeIfAbsent(resourceInfo.getBundleId(), id -> new ArrayList<>()).add(lookupPath);
 		}
 
 		private ResourceInfo getResourceInfo(String lookupPath) {
@@ -173,6 +352,9 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 
 
 		private <R extends ResourceQueryResult, Q extends ResourceQueryMatcher> Collection<R> findResources(Q query) {
+			if (query instanceof LibraryResourceQuery) {
+				return Collections.unmodifiableCollection(libraryIndex.<R>find((LibraryResourceQuery) query));
+			}
 			List<R> resultList = new ArrayList<>();
 			for (Entry<String, ResourceBundleIndexEntry> entry : indexMap.entrySet()) {
 				Optional<R> isQueryResult = query.matches(entry.getKey());
@@ -188,27 +370,47 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 
 		private void cleanBundleFromIndex(final Bundle bundle) {
 			final long removedBundleId = bundle.getBundleId();
-			// We first have to collect all necessary entries from the
-			// indexMap as well as the shadowedMap into a separated list in
-			// order to avoid concurrent-modifications.
-			// This is especially important when using streams, because the
-			// underlying backing-collection must not be modified while the
-			// stream is open (same applies to iterators)
-			List<ResourceBundleIndexEntry> entriesToBeRemoved = indexMap.values().stream()
-					.filter(indexEntry -> indexEntry.getResourceInfo().getBundleId() == removedBundleId).collect(Collectors.toList());
-			List<ResourceBundleIndexEntry> entriesToBeRevoked = shadowedMap.stream()
-					.filter(shadowedEntry -> indexMap.containsKey(shadowedEntry.getLookupPath()))
-					.collect(Collectors.toList());
-			// remove the entries from the bundle which got stopped
-			entriesToBeRemoved.forEach(entry -> indexMap.remove(entry.getLookupPath()));
+			// only the paths of the stopped bundle are visited, each with the
+			// (usually short) list of entries it overrides or is overridden by
+			List<String> paths = bundlePaths.remove(removedBundleId);
+			if (paths == null) {
+				return;
+			}
+			for (String lookupPath : paths) {
+				List<ResourceBundleIndexEntry> shadowedEntries = shadowedMap.get(lookupPath);
+				if (shadowedEntries != null) {
+					shadowedEntries.removeIf(entry -> entry.getResourceInfo().getBundleId() == removedBundleId);
+				}
+				ResourceBundleIndexEntry entry = indexMap.get(lookupPath);
+				if (entry != null && entry.getResourceInfo().getBundleId() == removedBundleId) {
+					if (shadowedEntries != null && !shadowedEntries.isEmpty()) {
+						// revoke the entry overridden last back to the indexMap
+						ResourceBundleIndexEntry revokedEntry = shadowedEntries.remove(shadowedEntries.size() - 1);
+						indexMap.put(lookupPath, revokedEntry);
+						libraryIndex.put(lookupPath, revokedEntry.getResourceInfo());
+						logger.info("Revoking shadowed resource '{}' from bundle '{}'", lookupPath,
+								context.getBundle(revokedEntry.getResourceInfo().getBundleId()).getSymbolicName());
+					} else {
+						indexMap.remove(lookupPath);
+						libraryIndex.remove(lookupPath);
+					}
+				}
+				if (shadowedEntries != null && shadowedEntries.isEmpty()) {
+					shadowedMap.remove(lookupPath);
+				}
+			}
 			logger.info("Removed all resources from bundle '{}'", bundle.getSymbolicName());
-			// revoke the matching shadowed-entries back to the indexMap
-			entriesToBeRevoked.forEach(entry -> {
-				indexMap.put(entry.getLookupPath(), entry);
-				logger.info("Revoking shadowed resource '{}' from bundle '{}'", entry.getLookupPath(),
-						context.getBundle(entry.getResourceInfo().getBundleId()).getSymbolicName());
-				shadowedMap.remove(entry);
-			});
+		}
+	}
+
+	private static final class Registration {
+
+		private final Bundle bundle;
+		private final long sequence;
+
+		private Registration(final Bundle bundle, final long sequence) {
+			this.bundle = bundle;
+			this.sequence = sequence;
 		}
 	}
 
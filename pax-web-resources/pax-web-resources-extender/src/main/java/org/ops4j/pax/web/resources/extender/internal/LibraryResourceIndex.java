@@ -0,0 +1,332 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.extender.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.ops4j.pax.web.resources.api.ResourceInfo;
+import org.ops4j.pax.web.resources.api.query.LibraryResourceQuery;
+import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
+
+/**
+ * <p>
+ * Index of resources laid out as described by {@link LibraryResourceQuery}.
+ * </p>
+ * <p>
+ * Every resource is filed under its path without library- and resource-version
+ * ({@code [localePrefix/][libraryName/]resourceName}), with all versions of a resource
+ * kept sorted from highest to lowest. A query is resolved by looking up at most four
+ * keys (with and without locale-prefix and library-name) instead of matching every
+ * resource.
+ * </p>
+ */
+class LibraryResourceIndex {
+
+	private static final char PATH_SEPARATOR = '/';
+
+	/**
+	 * Library-version directory, like 1, 1_0, 100_100
+	 */
+	private static final Pattern LIBRARY_VERSION = Pattern.compile("\\p{Digit}+(_\\p{Digit}+)*");
+
+	/**
+	 * Resource-version file, like 1.js, 1_0.js, 100_100.js
+	 */
+	private static final Pattern RESOURCE_VERSION = Pattern.compile("\\p{Digit}+(_\\p{Digit}+)*\\..*");
+
+	/**
+	 * Highest library-version first, then highest resource-version, unversioned last
+	 */
+	private static final Comparator<IndexedResource> BY_VERSION = (r1, r2) -> {
+		int libraryCompare = compareVersions(r2.libraryVersionNumbers, r1.libraryVersionNumbers);
+		if (libraryCompare != 0) {
+			return libraryCompare;
+		}
+		return compareVersions(r2.resourceVersionNumbers, r1.resourceVersionNumbers);
+	};
+
+	private final String resourceRoot;
+
+	private final Map<String, List<IndexedResource>> resources = new ConcurrentHashMap<>(100);
+
+	/**
+	 * @param resourceRoot common prefix of all indexed paths, which is not part of the layout
+	 */
+	LibraryResourceIndex(final String resourceRoot) {
+		this.resourceRoot = resourceRoot;
+	}
+
+	/**
+	 * Adds a resource, replacing the one with the same path, if any.
+	 *
+	 * @param lookupPath   full path of the resource
+	 * @param resourceInfo the resource
+	 */
+	void put(final String lookupPath, final ResourceInfo resourceInfo) {
+		IndexedResource resource = parse(lookupPath, resourceInfo);
+		if (resource == null) {
+			return;
+		}
+		resources.compute(resource.key, (key, versions) -> {
+			List<IndexedResource> updated = new ArrayList<>(versions == null ? 1 : versions.size() + 1);
+			if (versions != null) {
+				versions.stream().filter(r -> !r.lookupPath.equals(lookupPath)).forEach(updated::add);
+			}
+			updated.add(resource);
+			updated.sort(BY_VERSION);
+			return Collections.unmodifiableList(updated);
+		});
+	}
+
+	/**
+	 * @param lookupPath full path of the resource to remove
+	 */
+	void remove(final String lookupPath) {
+		IndexedResource resource = parse(lookupPath, null);
+		if (resource == null) {
+			return;
+		}
+		resources.computeIfPresent(resource.key, (key, versions) -> {
+			List<IndexedResource> updated = new ArrayList<>(versions.size());
+			versions.stream().filter(r -> !r.lookupPath.equals(lookupPath)).forEach(updated::add);
+			return updated.isEmpty() ? null : Collections.unmodifiableList(updated);
+		});
+	}
+
+	/**
+	 * @param query the query
+	 * @return all resources matching the query, from best to worst
+	 */
+	<R extends ResourceQueryResult> List<R> find(final LibraryResourceQuery query) {
+		String localePrefix = query.getLocalePrefix();
+		String libraryName = query.getLibraryName();
+		String resourceName = query.getResourceName();
+		if (resourceName.charAt(0) == PATH_SEPARATOR) {
+			resourceName = resourceName.substring(1);
+		}
+
+		List<R> results = new ArrayList<>();
+		if (localePrefix != null) {
+			collect(query, localePrefix + PATH_SEPARATOR, libraryName, resourceName, results);
+		}
+		collect(query, "", libraryName, resourceName, results);
+		return results;
+	}
+
+	/**
+	 * Paths of the unversioned resources matching a query, from best to worst.
+	 *
+	 * @param query the query
+	 * @return paths without leading '/'
+	 */
+	static List<Candidate> candidates(final LibraryResourceQuery query) {
+		String localePrefix = query.getLocalePrefix();
+		String libraryName = query.getLibraryName();
+		String resourceName = query.getResourceName();
+		if (resourceName.charAt(0) == PATH_SEPARATOR) {
+			resourceName = resourceName.substring(1);
+		}
+
+		List<Candidate> candidates = new ArrayList<>(4);
+		if (localePrefix != null) {
+			if (libraryName != null) {
+				candidates.add(new Candidate(localePrefix + PATH_SEPARATOR + libraryName + PATH_SEPARATOR + resourceName,
+						true, true));
+			}
+			candidates.add(new Candidate(localePrefix + PATH_SEPARATOR + resourceName, true, false));
+		}
+		if (libraryName != null) {
+			candidates.add(new Candidate(libraryName + PATH_SEPARATOR + resourceName, false, true));
+		}
+		candidates.add(new Candidate(resourceName, false, false));
+		return candidates;
+	}
+
+	/**
+	 * Adds the resources with the given locale-prefix, with and without library, merged by version.
+	 */
+	private <R extends ResourceQueryResult> void collect(final LibraryResourceQuery query, final String localePath,
+														 final String libraryName, final String resourceName,
+														 final List<R> results) {
+		List<IndexedResource> inLibrary = Collections.emptyList();
+		String libraryPath = null;
+		if (libraryName != null) {
+			libraryPath = localePath + libraryName;
+			inLibrary = resources.getOrDefault(libraryPath + PATH_SEPARATOR + resourceName, Collections.emptyList());
+		}
+		List<IndexedResource> outsideLibrary = resources.getOrDefault(localePath + resourceName,
+				Collections.emptyList());
+
+		boolean matchedLocalePrefix = !localePath.isEmpty();
+		int i = 0;
+		int o = 0;
+		while (i < inLibrary.size() || o < outsideLibrary.size()) {
+			IndexedResource resource;
+			boolean matchedLibraryName;
+			if (o >= outsideLibrary.size()
+					|| (i < inLibrary.size() && BY_VERSION.compare(inLibrary.get(i), outsideLibrary.get(o)) <= 0)) {
+				resource = inLibrary.get(i++);
+				matchedLibraryName = true;
+				if (resource.libraryPath != null && !resource.libraryPath.equals(libraryPath)) {
+					continue;
+				}
+			} else {
+				resource = outsideLibrary.get(o++);
+				matchedLibraryName = false;
+				if (resource.libraryPath != null) {
+					// versioned library, but not the queried one
+					continue;
+				}
+			}
+			R result = query.createResult(matchedLocalePrefix, matchedLibraryName,
+					resource.libraryVersion, resource.resourceVersion);
+			result.addMatchedResourceInfo(resource.resourceInfo);
+			results.add(result);
+		}
+	}
+
+	private IndexedResource parse(final String lookupPath, final ResourceInfo resourceInfo) {
+		String path = lookupPath.startsWith(resourceRoot) ? lookupPath.substring(resourceRoot.length()) : lookupPath;
+		if (!path.isEmpty() && path.charAt(0) == PATH_SEPARATOR) {
+			path = path.substring(1);
+		}
+		String[] segments = path.split("/");
+		int last = segments.length - 1;
+		if (path.isEmpty() || segments[last].isEmpty()) {
+			return null;
+		}
+
+		// the library-version directory follows the library-name
+		int libraryVersionIndex = -1;
+		for (int i = 1; i < last; i++) {
+			if (LIBRARY_VERSION.matcher(segments[i]).matches() && parseVersion(segments[i]) != null) {
+				libraryVersionIndex = i;
+				break;
+			}
+		}
+		// the resource-version file follows the resource-name
+		boolean resourceVersioned = last >= libraryVersionIndex + 2 && last >= 1
+				&& RESOURCE_VERSION.matcher(segments[last]).matches()
+				&& parseVersion(segments[last].substring(0, segments[last].indexOf('.'))) != null;
+
+		StringBuilder key = new StringBuilder(path.length());
+		for (int i = 0; i <= last; i++) {
+			if (i == libraryVersionIndex || (i == last && resourceVersioned)) {
+				continue;
+			}
+			if (key.length() > 0) {
+				key.append(PATH_SEPARATOR);
+			}
+			key.append(segments[i]);
+		}
+
+		IndexedResource resource = new IndexedResource(lookupPath, key.toString(), resourceInfo);
+		if (libraryVersionIndex != -1) {
+			resource.libraryPath = String.join("/", Arrays.copyOf(segments, libraryVersionIndex));
+			resource.libraryVersion = segments[libraryVersionIndex];
+			resource.libraryVersionNumbers = parseVersion(resource.libraryVersion);
+		}
+		if (resourceVersioned) {
+			resource.resourceVersion = segments[last];
+			resource.resourceVersionNumbers = parseVersion(segments[last].substring(0, segments[last].indexOf('.')));
+		}
+		return resource;
+	}
+
+	private static int[] parseVersion(final String version) {
+		String[] parts = version.split("_");
+		int[] numbers = new int[parts.length];
+		try {
+			for (int i = 0; i < parts.length; i++) {
+				numbers[i] = Integer.parseInt(parts[i]);
+			}
+		} catch (NumberFormatException e) {
+			// too large to be a version
+			return null;
+		}
+		return numbers;
+	}
+
+	/**
+	 * Compares versions like the JSF resource-handler does: numerically by component,
+	 * then the one with more components is higher, no version is lowest.
+	 */
+	private static int compareVersions(final int[] v1, final int[] v2) {
+		if (v1 == null || v2 == null) {
+			return v1 == v2 ? 0 : (v1 == null ? -1 : 1);
+		}
+		for (int i = 0; i < Math.max(v1.length, v2.length); i++) {
+			int n1 = i < v1.length ? v1[i] : 0;
+			int n2 = i < v2.length ? v2[i] : 0;
+			if (n1 != n2) {
+				return Integer.compare(n1, n2);
+			}
+		}
+		return Integer.compare(v1.length, v2.length);
+	}
+
+	static final class Candidate {
+
+		private final String path;
+		private final boolean matchedLocalePrefix;
+		private final boolean matchedLibraryName;
+
+		private Candidate(final String path, final boolean matchedLocalePrefix, final boolean matchedLibraryName) {
+			this.path = path;
+			this.matchedLocalePrefix = matchedLocalePrefix;
+			this.matchedLibraryName = matchedLibraryName;
+		}
+
+		String getPath() {
+			return path;
+		}
+
+		boolean isMatchedLocalePrefix() {
+			return matchedLocalePrefix;
+		}
+
+		boolean isMatchedLibraryName() {
+			return matchedLibraryName;
+		}
+	}
+
+	private static final class IndexedResource {
+
+		private final String lookupPath;
+		private final String key;
+		private final ResourceInfo resourceInfo;
+		private String libraryPath;
+		private String libraryVersion;
+		private int[] libraryVersionNumbers;
+		private String resourceVersion;
+		private int[] resourceVersionNumbers;
+
+		private IndexedResource(final String lookupPath, final String key, final ResourceInfo resourceInfo) {
+			this.lookupPath = lookupPath;
+			this.key = key;
+			this.resourceInfo = resourceInfo;
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.extender.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.namespace.HostNamespace;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Stores the resource-entries found in a bundle, so that the bundle does not have to be
+ * scanned again after a restart of the framework.
+ * </p>
+ * <p>
+ * Entries are stored per bundle-id, together with symbolic-name, version and
+ * last-modified time of the bundle and of its attached fragments. They are only used as
+ * long as these still match, i.e. an updated or reinstalled bundle, or a bundle with
+ * other fragments attached, is scanned again. Entries are stored as full urls, since
+ * entries of fragments are not located relative to the root-entry of the bundle.
+ * </p>
+ */
+public class ResourceIndexStore {
+
+	/**
+	 * Format of the stored files, to be changed with it
+	 */
+	private static final int FORMAT = 2;
+
+	private static final String SUFFIX = ".idx";
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final File directory;
+
+	/**
+	 * @param directory directory of the stored entries, created if needed
+	 */
+	public ResourceIndexStore(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Loads the entries stored for a bundle.
+	 *
+	 * @param bundle the bundle
+	 * @return the entries, or {@code null} if none are stored for the current revision of the bundle
+	 */
+	public Collection<URL> load(Bundle bundle) {
+		File file = file(bundle.getBundleId());
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (in.readInt() != FORMAT
+					|| in.readLong() != bundle.getBundleId()
+					|| !Objects.equals(in.readUTF(), String.valueOf(bundle.getSymbolicName()))
+					|| !Objects.equals(in.readUTF(), String.valueOf(bundle.getVersion()))
+					|| in.readLong() != bundle.getLastModified()) {
+				return null;
+			}
+			List<Bundle> fragments = fragments(bundle);
+			if (in.readInt() != fragments.size()) {
+				return null;
+			}
+			for (Bundle fragment : fragments) {
+				if (in.readLong() != fragment.getBundleId() || in.readLong() != fragment.getLastModified()) {
+					return null;
+				}
+			}
+			int count = in.readInt();
+			List<URL> urls = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				// no lookup in the bundle needed
+				urls.add(new URL(in.readUTF()));
+			}
+			return urls;
+		} catch (IOException | RuntimeException e) {
+			logger.debug("Stored resources of bundle '{}' can not be read, scanning it again",
+					bundle.getSymbolicName(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the entries found in a bundle.
+	 *
+	 * @param bundle the bundle
+	 * @param urls   the entries of the bundle
+	 */
+	public void save(Bundle bundle, Collection<URL> urls) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			logger.debug("Directory '{}' for stored resources can not be created", directory);
+			return;
+		}
+		File file = file(bundle.getBundleId());
+		File temp = new File(directory, bundle.getBundleId() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+				out.writeInt(FORMAT);
+				out.writeLong(bundle.getBundleId());
+				out.writeUTF(String.valueOf(bundle.getSymbolicName()));
+				out.writeUTF(String.valueOf(bundle.getVersion()));
+				out.writeLong(bundle.getLastModified());
+				List<Bundle> fragments = fragments(bundle);
+				out.writeInt(fragments.size());
+				for (Bundle fragment : fragments) {
+					out.writeLong(fragment.getBundleId());
+					out.writeLong(fragment.getLastModified());
+				}
+				out.writeInt(urls.size());
+				for (URL url : urls) {
+					out.writeUTF(url.toExternalForm());
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			logger.debug("Resources of bundle '{}' can not be stored", bundle.getSymbolicName(), e);
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Deletes the entries stored for bundles which are no longer installed.
+	 *
+	 * @param context a bundle-context to look up installed bundles
+	 */
+	public void prune(BundleContext context) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (!name.endsWith(SUFFIX)) {
+				// leftover of an interrupted save
+				file.delete();
+				continue;
+			}
+			try {
+				long bundleId = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+				if (context.getBundle(bundleId) == null) {
+					file.delete();
+				}
+			} catch (NumberFormatException e) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * @return the fragments attached to the bundle, in order of attachment
+	 */
+	private static List<Bundle> fragments(Bundle bundle) {
+		BundleWiring wiring = bundle.adapt(BundleWiring.class);
+		if (wiring == null) {
+			return Collections.emptyList();
+		}
+		List<BundleWire> wires = wiring.getProvidedWires(HostNamespace.HOST_NAMESPACE);
+		if (wires == null) {
+			return Collections.emptyList();
+		}
+		List<Bundle> fragments = new ArrayList<>(wires.size());
+		for (BundleWire wire : wires) {
+			fragments.add(wire.getRequirer().getBundle());
+		}
+		return fragments;
+	}
+
+	private File file(long bundleId) {
+		return new File(directory, bundleId + SUFFIX);
+	}
+
+}
@@ -16,14 +16,21 @@
  */
 package org.ops4j.pax.web.resources.extender.internal;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
+import org.ops4j.pax.web.resources.api.ResourceLocatorListener;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -48,11 +55,18 @@ public class WebresourcesExtender implements BundleActivator, BundleListener {
 	 */
 	private static final String CAPABILITY_EXTENDER = "osgi.extender";
 
+	/**
+	 * Maximum number of bundles scanned for resources in parallel
+	 */
+	private static final int SCAN_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
 	private transient Logger logger;
 	private BundleContext bundleContext;
 	private List<OsgiResourceLocator> osgiResourceLocatorServices = new CopyOnWriteArrayList<>();
 
 	private ServiceTracker<OsgiResourceLocator, OsgiResourceLocator> trackerResourceLocator;
+	private ServiceTracker<ResourceLocatorListener, ResourceLocatorListener> trackerLocatorListener;
+	private ThreadPoolExecutor scanExecutor;
 
 	public WebresourcesExtender() {
 		this.logger = LoggerFactory.getLogger(getClass());
@@ -62,7 +76,25 @@ public class WebresourcesExtender implements BundleActivator, BundleListener {
 	public void start(BundleContext context) throws Exception {
 		this.bundleContext = context;
 
-		IndexedOsgiResourceLocator indexedRegistryService = new IndexedOsgiResourceLocator(context);
+		// bundles are scanned off the thread delivering bundle-events, their resources are
+		// looked up directly until the scan is done
+		AtomicInteger scanThreads = new AtomicInteger();
+		scanExecutor = new ThreadPoolExecutor(SCAN_THREADS, SCAN_THREADS, 20, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread t = Executors.defaultThreadFactory().newThread(r);
+					t.setName("paxweb-resources-scanner-" + scanThreads.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		scanExecutor.allowCoreThreadTimeOut(true);
+		// entries of unchanged bundles are reused from the last start
+		ResourceIndexStore store = null;
+		File storeDirectory = context.getDataFile("resource-index");
+		if (storeDirectory != null) {
+			store = new ResourceIndexStore(storeDirectory);
+			store.prune(context);
+		}
+		IndexedOsgiResourceLocator indexedRegistryService = new IndexedOsgiResourceLocator(context, scanExecutor, store);
 
 		trackerResourceLocator = new ServiceTracker<>(context, OsgiResourceLocator.class.getName(), new ServiceTrackerCustomizer<OsgiResourceLocator, OsgiResourceLocator>() {
 			@Override
@@ -92,6 +124,28 @@ public class WebresourcesExtender implements BundleActivator, BundleListener {
 			}
 		});
 		trackerResourceLocator.open();
+		trackerLocatorListener = new ServiceTracker<>(context, ResourceLocatorListener.class, new ServiceTrackerCustomizer<ResourceLocatorListener, ResourceLocatorListener>() {
+			@Override
+			public ResourceLocatorListener addingService(ServiceReference<ResourceLocatorListener> reference) {
+				ResourceLocatorListener listener = context.getService(reference);
+				if (listener != null) {
+					indexedRegistryService.addListener(listener);
+				}
+				return listener;
+			}
+
+			@Override
+			public void modifiedService(ServiceReference<ResourceLocatorListener> reference, ResourceLocatorListener listener) {
+				// not interesting
+			}
+
+			@Override
+			public void removedService(ServiceReference<ResourceLocatorListener> reference, ResourceLocatorListener listener) {
+				indexedRegistryService.removeListener(listener);
+				context.ungetService(reference);
+			}
+		});
+		trackerLocatorListener.open();
 		// register service
 		Dictionary<String, Object> props = new Hashtable<>(1);
 		props.put(Constants.SERVICE_RANKING, -1);
@@ -101,8 +155,10 @@ public class WebresourcesExtender implements BundleActivator, BundleListener {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		trackerLocatorListener.close();
 		trackerResourceLocator.close();
 		context.removeBundleListener(this);
+		scanExecutor.shutdownNow();
 	}
 
 	@Override
@@ -17,7 +17,12 @@
 package org.ops4j.pax.web.jsf.resourcehandler.internal;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.ops4j.pax.web.jsf.resourcehandler.internal.OsgiResourceMatcher.isBundleResource;
 
@@ -26,17 +31,32 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ops4j.pax.web.resources.api.ResourceInfo;
+import org.ops4j.pax.web.resources.api.query.LibraryResourceQuery;
+import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
 import org.ops4j.pax.web.resources.extender.internal.IndexedOsgiResourceLocator;
+import org.ops4j.pax.web.resources.extender.internal.ResourceIndexStore;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.namespace.HostNamespace;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
 
 public class IndexedOsgiResourceLocaterTests {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private IndexedOsgiResourceLocator sut;
 	private BundleContext context;
 	private Bundle resourceBundleOne;
@@ -99,6 +119,194 @@ public class IndexedOsgiResourceLocaterTests {
 		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(resourceBundleOne, "template.html"));
 	}
 
+	@Test
+	public void resourceOverriddenTwice() throws Exception {
+		Bundle firstOverride = new BundleBuilder().withSymbolicName("resourcebundle-override-one")
+				.buildWithResources("template.html");
+		Bundle secondOverride = new BundleBuilder().withSymbolicName("resourcebundle-override-two")
+				.buildWithResources("template.html", "base.css");
+		when(context.getBundle(resourceBundleOne.getBundleId())).thenReturn(resourceBundleOne);
+		when(context.getBundle(firstOverride.getBundleId())).thenReturn(firstOverride);
+		when(context.getBundle(secondOverride.getBundleId())).thenReturn(secondOverride);
+
+		sut.register(firstOverride);
+		sut.register(secondOverride);
+
+		// the overridden override must not be revoked
+		sut.unregister(firstOverride);
+		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(secondOverride, "template.html"));
+
+		sut.unregister(secondOverride);
+		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(resourceBundleOne, "template.html"));
+		assertThat("Resource doesn't match!", sut.locateResource("base.css"), isBundleResource(resourceBundleOne, "base.css"));
+	}
+
+	@Test
+	public void resourcesOfBundlesBeingScanned() throws Exception {
+		List<Runnable> scans = new ArrayList<>();
+		IndexedOsgiResourceLocator locator = new IndexedOsgiResourceLocator(context, scans::add, null);
+		Bundle scannedBundle = new BundleBuilder().withSymbolicName("resourcebundle-scanned")
+				.buildWithResources("template.html", "base.css");
+		URL templateUrl = new URL("file://" + scannedBundle.getBundleId() + ".0:0/META-INF/resources/template.html");
+		when(scannedBundle.getEntry("/META-INF/resources/template.html")).thenReturn(templateUrl);
+		Bundle stoppedBundle = new BundleBuilder().withSymbolicName("resourcebundle-stopped")
+				.buildWithResources("footer.html");
+
+		locator.register(scannedBundle);
+		locator.register(stoppedBundle);
+		locator.unregister(stoppedBundle);
+
+		// looked up directly in the bundle until scanned
+		assertThat("Resource doesn't match!", locator.locateResource("template.html"), isBundleResource(scannedBundle, "template.html"));
+		assertNull(locator.locateResource("base.css"));
+
+		scans.forEach(Runnable::run);
+
+		assertThat("Resource doesn't match!", locator.locateResource("template.html"), isBundleResource(scannedBundle, "template.html"));
+		assertThat("Resource doesn't match!", locator.locateResource("base.css"), isBundleResource(scannedBundle, "base.css"));
+		assertNull(locator.locateResource("footer.html"));
+	}
+
+	@Test
+	public void storedResourcesOfUnchangedBundles() throws Exception {
+		ResourceIndexStore store = new ResourceIndexStore(folder.newFolder("resource-index"));
+		Bundle storedBundle = new BundleBuilder().withSymbolicName("resourcebundle-stored")
+				.buildWithResources("template.html", "js/some.js");
+
+		new IndexedOsgiResourceLocator(context, Runnable::run, store).register(storedBundle);
+
+		// after a restart, the unchanged bundle is not scanned again
+		IndexedOsgiResourceLocator restarted = new IndexedOsgiResourceLocator(context, Runnable::run, store);
+		restarted.register(storedBundle);
+		verify(storedBundle, times(1)).findEntries("/META-INF/resources/", "*.*", true);
+		assertThat("Resource doesn't match!", restarted.locateResource("template.html"), isBundleResource(storedBundle, "template.html"));
+		assertThat("Resource doesn't match!", restarted.locateResource("js/some.js"), isBundleResource(storedBundle, "js/some.js"));
+
+		// an updated bundle is
+		when(storedBundle.getLastModified()).thenReturn(1L);
+		new IndexedOsgiResourceLocator(context, Runnable::run, store).register(storedBundle);
+		verify(storedBundle, times(2)).findEntries("/META-INF/resources/", "*.*", true);
+
+		// as is a bundle with another fragment attached
+		Bundle fragment = new BundleBuilder().withSymbolicName("resourcebundle-fragment").buildWithResources();
+		BundleRevision fragmentRevision = mock(BundleRevision.class);
+		when(fragmentRevision.getBundle()).thenReturn(fragment);
+		BundleWire hostWire = mock(BundleWire.class);
+		when(hostWire.getRequirer()).thenReturn(fragmentRevision);
+		BundleWiring wiring = mock(BundleWiring.class);
+		when(wiring.getProvidedWires(HostNamespace.HOST_NAMESPACE)).thenReturn(Collections.singletonList(hostWire));
+		when(storedBundle.adapt(BundleWiring.class)).thenReturn(wiring);
+		new IndexedOsgiResourceLocator(context, Runnable::run, store).register(storedBundle);
+		verify(storedBundle, times(3)).findEntries("/META-INF/resources/", "*.*", true);
+	}
+
+	@Test
+	public void libraryResourcesOrderedByVersion() throws Exception {
+		Bundle libraryBundle = new BundleBuilder().withSymbolicName("resourcebundle-library")
+				.buildWithResources(
+						"lib/1_0/a.js",
+						"lib/1_2/a.js",
+						"lib/1_10/a.js",
+						"lib/1_10/a.js/2_0.js",
+						"lib/1_10/a.js/10.js",
+						"lib/1_2/b.js",
+						"other/1_0/a.js",
+						"de/lib/1_0/a.js");
+		sut.register(libraryBundle);
+
+		List<Result> results = new ArrayList<>(sut.findResources(new Query(null, "lib", "a.js")));
+		assertEquals(5, results.size());
+		assertResult(results.get(0), libraryBundle, "lib/1_10/a.js/10.js", false, "1_10", "10.js");
+		assertResult(results.get(1), libraryBundle, "lib/1_10/a.js/2_0.js", false, "1_10", "2_0.js");
+		assertResult(results.get(2), libraryBundle, "lib/1_10/a.js", false, "1_10", null);
+		assertResult(results.get(3), libraryBundle, "lib/1_2/a.js", false, "1_2", null);
+		assertResult(results.get(4), libraryBundle, "lib/1_0/a.js", false, "1_0", null);
+
+		// resources with locale-prefix rank first
+		results = new ArrayList<>(sut.findResources(new Query("de", "lib", "a.js")));
+		assertEquals(6, results.size());
+		assertResult(results.get(0), libraryBundle, "de/lib/1_0/a.js", true, "1_0", null);
+		assertResult(results.get(1), libraryBundle, "lib/1_10/a.js/10.js", false, "1_10", "10.js");
+
+		// resources outside of any library
+		results = new ArrayList<>(sut.findResources(new Query("en", "libraryname", "test.css")));
+		assertEquals(1, results.size());
+		assertResult(results.get(0), resourceBundleTwo, "en/libraryname/test.css/2_4.css", true, null, "2_4.css");
+		results = new ArrayList<>(sut.findResources(new Query(null, null, "js/some.js")));
+		assertEquals(1, results.size());
+		assertResult(results.get(0), resourceBundleTwo, "js/some.js", false, null, null);
+
+		sut.unregister(libraryBundle);
+		assertTrue(sut.findResources(new Query(null, "lib", "a.js")).isEmpty());
+	}
+
+	private static void assertResult(Result result, Bundle bundle, String path, boolean matchedLocalePrefix,
+									 String libraryVersion, String resourceVersion) {
+		assertThat("Resource doesn't match!", result.resourceInfo, isBundleResource(bundle, path));
+		assertEquals(matchedLocalePrefix, result.matchedLocalePrefix);
+		assertEquals(libraryVersion, result.libraryVersion);
+		assertEquals(resourceVersion, result.resourceVersion);
+	}
+
+	private static class Query implements LibraryResourceQuery {
+
+		private final String localePrefix;
+		private final String libraryName;
+		private final String resourceName;
+
+		private Query(String localePrefix, String libraryName, String resourceName) {
+			this.localePrefix = localePrefix;
+			this.libraryName = libraryName;
+			this.resourceName = resourceName;
+		}
+
+		@Override
+		public String getLocalePrefix() {
+			return localePrefix;
+		}
+
+		@Override
+		public String getLibraryName() {
+			return libraryName;
+		}
+
+		@Override
+		public String getResourceName() {
+			return resourceName;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <R extends ResourceQueryResult> R createResult(boolean matchedLocalePrefix, boolean matchedLibraryName,
+															  String libraryVersion, String resourceVersion) {
+			return (R) new Result(matchedLocalePrefix, libraryVersion, resourceVersion);
+		}
+
+		@Override
+		public <R extends ResourceQueryResult> Optional<R> matches(String resourcePath) {
+			throw new AssertionError("Query must be resolved from the index");
+		}
+	}
+
+	private static class Result implements ResourceQueryResult {
+
+		private final boolean matchedLocalePrefix;
+		private final String libraryVersion;
+		private final String resourceVersion;
+		private ResourceInfo resourceInfo;
+
+		private Result(boolean matchedLocalePrefix, String libraryVersion, String resourceVersion) {
+			this.matchedLocalePrefix = matchedLocalePrefix;
+			this.libraryVersion = libraryVersion;
+			this.resourceVersion = resourceVersion;
+		}
+
+		@Override
+		public void addMatchedResourceInfo(ResourceInfo resourceInfo) {
+			this.resourceInfo = resourceInfo;
+		}
+	}
+
 	private static class BundleBuilder {
 
 		private Long bundleId = generateBundleId();
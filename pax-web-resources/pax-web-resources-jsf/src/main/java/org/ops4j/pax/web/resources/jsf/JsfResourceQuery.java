@@ -21,6 +21,7 @@ import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.ops4j.pax.web.resources.api.query.LibraryResourceQuery;
 import org.ops4j.pax.web.resources.api.query.ResourceQueryMatcher;
 import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
 
@@ -29,7 +30,7 @@ import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
  * JSF resources. Those resources may use locale-prefix, library-name, library-version,
  * resource-version in addition to the resource-name.
  */
-public class JsfResourceQuery implements ResourceQueryMatcher {
+public class JsfResourceQuery implements LibraryResourceQuery {
 
 	/**
 	 * Following Servlet 3.0 Specification for JAR-Resources
@@ -68,6 +69,32 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 		this.contentType = contentType;
 	}
 
+	@Override
+	public String getLocalePrefix() {
+		return localePrefix;
+	}
+
+	@Override
+	public String getLibraryName() {
+		return libraryName;
+	}
+
+	@Override
+	public String getResourceName() {
+		return resourceName;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <R extends ResourceQueryResult> R createResult(boolean matchedLocalePrefix, boolean matchedLibraryName,
+														  String libraryVersion, String resourceVersion) {
+		return (R) new JsfResourceQueryResult(matchedLocalePrefix, matchedLibraryName, libraryVersion, resourceVersion);
+	}
+
 	/**
 	 * <p>Reduces duplication for the actual parsing-functions, by checking for null and wrapping the result
 	 * in an Optional.</p>
@@ -39,9 +39,9 @@ import org.ops4j.pax.web.resources.jsf.internal.ResourceHandlerUtils;
 import org.ops4j.pax.web.resources.jsf.internal.ResourceValidationUtils;
 import org.ops4j.pax.web.resources.jsf.internal.VersionComparator;
 import org.ops4j.pax.web.resources.jsf.internal.WebConfigParamUtils;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
-import org.osgi.framework.ServiceReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,13 +90,29 @@ public class OsgiResourceHandler extends ResourceHandlerWrapper {
 	private static final String INIT_PARAM_RESOURCE_BUFFER_SIZE = "org.ops4j.pax.web.resources.jsf.RESOURCE_BUFFER_SIZE";
 	private static final char PATH_SEPARATOR = '/';
 
+	/**
+	 * Maximum number of resolved resources remembered by the {@link ResourceLocatorTracker}
+	 */
+	private static final int RESOLVED_RESOURCES_SIZE = 1024;
+
+	/**
+	 * Shared by all handlers of the bundle, created on first use
+	 */
+	private static volatile ResourceLocatorTracker locatorTracker;
+
 	private transient Logger logger = LoggerFactory.getLogger(getClass());
 	private final ResourceHandler wrapped;
 	private final String[] excludedResourceExtensions;
 	private final int resourceBufferSize;
+	/**
+	 * Bundle containing this class, resolved once instead of for every resource
+	 */
+	private final Bundle bundle;
 
 	public OsgiResourceHandler(ResourceHandler wrapped) {
 		this.wrapped = wrapped;
+		// hook into OSGi-Framework
+		this.bundle = FrameworkUtil.getBundle(OsgiResourceHandler.class);
 
 		String value = WebConfigParamUtils.getStringInitParameter(
 				FacesContext.getCurrentInstance().getExternalContext(),
@@ -229,7 +245,10 @@ public class OsgiResourceHandler extends ResourceHandlerWrapper {
 		// Contract currently not supported: final List<String> contracts = facesContext.getResourceLibraryContracts();
 
 		final JsfResourceQuery query = new JsfResourceQuery(localePrefix.orElse(null), libraryName, workResourceName, contentType);
-		final Optional<JsfResourceQueryResult> matchedQueryResult = getServiceAndExecute(service -> matchResources(service, query));
+		final ResourceLocatorTracker tracker = getLocatorTracker();
+		final Optional<JsfResourceQueryResult> matchedQueryResult = tracker != null
+				? tracker.resolve(query, service -> matchResources(service, query))
+				: Optional.empty();
 		if (matchedQueryResult.isPresent()) {
 			JsfResourceQueryResult queryResult = matchedQueryResult.get();
 			return new OsgiResource(
@@ -264,6 +283,7 @@ public class OsgiResourceHandler extends ResourceHandlerWrapper {
 
 		VersionComparator versionComparator = new VersionComparator();
 
+		// not every locator orders the matches, ties keep the order of the locator
 		return matchedResults.stream().max((o1, o2) -> {
 			int localeCompare = Boolean.compare(o1.isMatchedLocalePrefix(), o2.isMatchedLocalePrefix());
 			int libraryCompare = versionComparator.compare(o1.getLibraryVersion(), o2.getLibraryVersion());
@@ -439,26 +459,40 @@ public class OsgiResourceHandler extends ResourceHandlerWrapper {
 
 
 	/**
-	 * Gets a {@link OsgiResourceLocator}-service, applies the given function,
-	 * and ungets the service.
+	 * Gets the tracked {@link OsgiResourceLocator}-service and applies the given function.
 	 *
 	 * @param function the function to apply against the {@link OsgiResourceLocator}
 	 * @return a {@link Resource}, {@link ViewResource} depending on the
 	 * functions or {@code null}.
 	 */
 	private <T> T getServiceAndExecute(Function<OsgiResourceLocator, T> function) {
-		// hook into OSGi-Framework
-		final BundleContext context = FrameworkUtil.getBundle(this.getClass()).getBundleContext();
-		// get-service, execute function, and unget-service
-		ServiceReference<OsgiResourceLocator> serviceRef = context.getServiceReference(OsgiResourceLocator.class);
-		T resourceQueryResult = null;
-		if (serviceRef != null) {
-			final OsgiResourceLocator resourceLocatorService = context.getService(serviceRef);
-			if (resourceLocatorService != null) {
-				resourceQueryResult = function.apply(resourceLocatorService);
+		final ResourceLocatorTracker tracker = getLocatorTracker();
+		return tracker != null ? tracker.execute(function) : null;
+	}
+
+	/**
+	 * Returns the {@link ResourceLocatorTracker} of the bundle containing this class, which
+	 * is opened on first use. Its service-listener and listener-registration are released by
+	 * the framework when that bundle stops, a restarted bundle gets a new tracker.
+	 *
+	 * @return the tracker, or {@code null} if the bundle is not active
+	 */
+	private ResourceLocatorTracker getLocatorTracker() {
+		final BundleContext context = bundle != null ? bundle.getBundleContext() : null;
+		if (context == null) {
+			return null;
+		}
+		ResourceLocatorTracker tracker = locatorTracker;
+		if (tracker == null || tracker.getBundleContext() != context) {
+			synchronized (OsgiResourceHandler.class) {
+				tracker = locatorTracker;
+				if (tracker == null || tracker.getBundleContext() != context) {
+					tracker = new ResourceLocatorTracker(context, RESOLVED_RESOURCES_SIZE);
+					tracker.open();
+					locatorTracker = tracker;
+				}
 			}
-			context.ungetService(serviceRef);
 		}
-		return resourceQueryResult;
+		return tracker;
 	}
 }
@@ -0,0 +1,168 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.jsf;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
+import org.ops4j.pax.web.resources.api.ResourceLocatorListener;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * <p>
+ * Tracks the {@link OsgiResourceLocator}-service for the {@link OsgiResourceHandler} and
+ * remembers the resources resolved by JSF-queries, so that resource-references do not
+ * look up the service and query all resources again.
+ * </p>
+ * <p>
+ * Resolved resources (and resources not found) are discarded whenever the tracked
+ * service changes or, as {@link ResourceLocatorListener}, whenever resources of a bundle
+ * are added or removed.
+ * </p>
+ */
+class ResourceLocatorTracker extends ServiceTracker<OsgiResourceLocator, OsgiResourceLocator>
+		implements ResourceLocatorListener {
+
+	private final int maxSize;
+
+	private final Map<String, Optional<JsfResourceQueryResult>> resolved = new ConcurrentHashMap<>();
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private ServiceRegistration<ResourceLocatorListener> listenerRegistration;
+
+	/**
+	 * @param context bundle-context used to track the locator and register the listener
+	 * @param maxSize maximum number of remembered queries
+	 */
+	ResourceLocatorTracker(BundleContext context, int maxSize) {
+		super(context, OsgiResourceLocator.class, null);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public synchronized void open() {
+		super.open();
+		if (listenerRegistration == null) {
+			listenerRegistration = context.registerService(ResourceLocatorListener.class, this, null);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (listenerRegistration != null) {
+			listenerRegistration.unregister();
+			listenerRegistration = null;
+		}
+		super.close();
+		invalidate();
+	}
+
+	BundleContext getBundleContext() {
+		return context;
+	}
+
+	/**
+	 * Applies the given function to the current {@link OsgiResourceLocator}-service.
+	 *
+	 * @param function the function to apply
+	 * @return the result of the function, or {@code null} if there is no service
+	 */
+	<T> T execute(Function<OsgiResourceLocator, T> function) {
+		OsgiResourceLocator locator = getService();
+		return locator != null ? function.apply(locator) : null;
+	}
+
+	/**
+	 * Returns the remembered result of a query, or resolves it with the current
+	 * {@link OsgiResourceLocator}-service.
+	 *
+	 * @param query    the query
+	 * @param function resolves the query
+	 * @return the best match of the query
+	 */
+	Optional<JsfResourceQueryResult> resolve(JsfResourceQuery query,
+											 Function<OsgiResourceLocator, Optional<JsfResourceQueryResult>> function) {
+		String key = key(query);
+		Optional<JsfResourceQueryResult> result = resolved.get(key);
+		if (result != null) {
+			return result;
+		}
+		long lookupGeneration = generation.get();
+		OsgiResourceLocator locator = getService();
+		if (locator == null) {
+			return Optional.empty();
+		}
+		result = function.apply(locator);
+		if (lookupGeneration == generation.get()) {
+			// a result resolved before the last change would be outdated
+			if (resolved.size() >= maxSize && !resolved.containsKey(key)) {
+				// evict an arbitrary entry, its query is resolved again when needed
+				Iterator<String> iterator = resolved.keySet().iterator();
+				if (iterator.hasNext()) {
+					iterator.next();
+					iterator.remove();
+				}
+			}
+			resolved.put(key, result);
+		}
+		return result;
+	}
+
+	@Override
+	public void resourcesChanged(Bundle bundle) {
+		invalidate();
+	}
+
+	@Override
+	public OsgiResourceLocator addingService(ServiceReference<OsgiResourceLocator> reference) {
+		invalidate();
+		return super.addingService(reference);
+	}
+
+	@Override
+	public void modifiedService(ServiceReference<OsgiResourceLocator> reference, OsgiResourceLocator service) {
+		invalidate();
+	}
+
+	@Override
+	public void removedService(ServiceReference<OsgiResourceLocator> reference, OsgiResourceLocator service) {
+		invalidate();
+		super.removedService(reference, service);
+	}
+
+	private void invalidate() {
+		generation.incrementAndGet();
+		resolved.clear();
+	}
+
+	private static String key(JsfResourceQuery query) {
+		// '\0' is not part of valid names
+		return query.getLocalePrefix() + '\0' + query.getLibraryName() + '\0'
+				+ query.getResourceName() + '\0' + query.getContentType();
+	}
+
+}
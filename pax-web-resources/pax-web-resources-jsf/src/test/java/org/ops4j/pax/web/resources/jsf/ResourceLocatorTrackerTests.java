@@ -0,0 +1,152 @@
+/* Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.resources.jsf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+public class ResourceLocatorTrackerTests {
+
+	private BundleContext context;
+	private ServiceReference<OsgiResourceLocator> reference;
+	private OsgiResourceLocator locator;
+	private ResourceLocatorTracker sut;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		context = mock(BundleContext.class);
+		reference = mock(ServiceReference.class);
+		locator = mock(OsgiResourceLocator.class);
+		when(context.getServiceReferences(OsgiResourceLocator.class.getName(), null))
+				.thenReturn(new ServiceReference<?>[] { reference });
+		when(context.getService(reference)).thenReturn(locator);
+
+		sut = new ResourceLocatorTracker(context, 2);
+		sut.open();
+	}
+
+	@After
+	public void tearDown() {
+		sut.close();
+	}
+
+	@Test
+	public void resultsAreRemembered() throws Exception {
+		CountingFunction function = new CountingFunction();
+
+		Optional<JsfResourceQueryResult> first = sut.resolve(query("a.css"), function);
+		Optional<JsfResourceQueryResult> second = sut.resolve(query("a.css"), function);
+
+		assertSame(first, second);
+		assertEquals(1, function.calls.get());
+	}
+
+	@Test
+	public void rememberedResultsStayWithinMaxSize() throws Exception {
+		CountingFunction function = new CountingFunction();
+		sut.resolve(query("a.css"), function);
+		sut.resolve(query("b.css"), function);
+		sut.resolve(query("c.css"), function);
+		assertEquals(3, function.calls.get());
+
+		// only two of the three queries can still be remembered
+		sut.resolve(query("a.css"), function);
+		sut.resolve(query("b.css"), function);
+		sut.resolve(query("c.css"), function);
+		assertTrue("at least one query must be resolved again", function.calls.get() > 3);
+	}
+
+	@Test
+	public void resultsResolvedDuringAnInvalidationAreNotRemembered() throws Exception {
+		CountingFunction function = new CountingFunction();
+		Function<OsgiResourceLocator, Optional<JsfResourceQueryResult>> racing = locator -> {
+			// resources change while the query is resolved
+			sut.resourcesChanged(mock(Bundle.class));
+			return function.apply(locator);
+		};
+
+		sut.resolve(query("a.css"), racing);
+		sut.resolve(query("a.css"), function);
+
+		assertEquals(2, function.calls.get());
+	}
+
+	@Test
+	public void resultsAreDiscardedWhenResourcesChange() throws Exception {
+		CountingFunction function = new CountingFunction();
+		sut.resolve(query("a.css"), function);
+
+		sut.resourcesChanged(mock(Bundle.class));
+		sut.resolve(query("a.css"), function);
+
+		assertEquals(2, function.calls.get());
+	}
+
+	@Test
+	public void resultsAreDiscardedWhenALocatorIsAdded() throws Exception {
+		CountingFunction function = new CountingFunction();
+		sut.resolve(query("a.css"), function);
+
+		sut.addingService(reference);
+		sut.resolve(query("a.css"), function);
+
+		assertEquals(2, function.calls.get());
+	}
+
+	@Test
+	public void resultsAreDiscardedWhenALocatorIsRemoved() throws Exception {
+		CountingFunction function = new CountingFunction();
+		sut.resolve(query("a.css"), function);
+
+		sut.removedService(reference, locator);
+		sut.resolve(query("a.css"), function);
+
+		assertEquals(2, function.calls.get());
+	}
+
+	private static JsfResourceQuery query(String resourceName) {
+		return new JsfResourceQuery(null, "library", resourceName, null);
+	}
+
+	private static class CountingFunction implements Function<OsgiResourceLocator, Optional<JsfResourceQueryResult>> {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public Optional<JsfResourceQueryResult> apply(OsgiResourceLocator locator) {
+			calls.incrementAndGet();
+			return Optional.of(new JsfResourceQueryResult(false, true, null, null));
+		}
+	}
+
+}
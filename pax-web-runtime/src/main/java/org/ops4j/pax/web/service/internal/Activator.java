@@ -50,12 +50,18 @@ import org.ops4j.pax.web.service.spi.ServerController;
 import org.ops4j.pax.web.service.spi.ServerControllerFactory;
 import org.ops4j.pax.web.service.spi.ServletListener;
 import org.ops4j.pax.web.service.spi.model.ServerModel;
+import org.ops4j.pax.web.service.spi.util.AsyncResourceWriter;
+import org.ops4j.pax.web.service.spi.util.BundleEntryIndex;
+import org.ops4j.pax.web.service.spi.util.FileResources;
 import org.ops4j.pax.web.service.spi.util.NamedThreadFactory;
+import org.ops4j.pax.web.service.spi.util.ResourceCache;
 import org.ops4j.util.property.DictionaryPropertyResolver;
 import org.ops4j.util.property.PropertyResolver;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Filter;
 import org.osgi.framework.ServiceReference;
@@ -120,6 +126,12 @@ public class Activator implements BundleActivator {
 
 	private HttpContextProcessing httpContextProcessing;
 
+	/**
+	 * Drops the cached static resources and entry indexes of updated and uninstalled bundles,
+	 * and the missing resources of shared contexts when the wiring of a bundle changes
+	 */
+	private BundleListener resourceCacheInvalidator;
+
 	public Activator() {
 	}
 
@@ -128,6 +140,28 @@ public class Activator implements BundleActivator {
 		LOG.debug("Starting Pax Web");
 		this.bundleContext = context;
 		servletEventDispatcher = new ServletEventDispatcher(context);
+		resourceCacheInvalidator = event -> {
+			switch (event.getType()) {
+				case BundleEvent.RESOLVED:
+					DefaultSharedWebContainerContext.wiringChanged();
+					break;
+				case BundleEvent.UNRESOLVED:
+					DefaultSharedWebContainerContext.wiringChanged();
+					ResourceCache.shared().invalidate(event.getBundle().getBundleId());
+					BundleEntryIndex.shared().invalidate(event.getBundle().getBundleId());
+					FileResources.shared().invalidate(event.getBundle().getBundleId());
+					break;
+				case BundleEvent.UPDATED:
+				case BundleEvent.UNINSTALLED:
+					ResourceCache.shared().invalidate(event.getBundle().getBundleId());
+					BundleEntryIndex.shared().invalidate(event.getBundle().getBundleId());
+					FileResources.shared().invalidate(event.getBundle().getBundleId());
+					break;
+				default:
+					break;
+			}
+		};
+		context.addBundleListener(resourceCacheInvalidator);
 		if (SupportUtils.isEventAdminAvailable()) {
 			// Do use the filters this way the eventadmin packages can be
 			// resolved optional!
@@ -196,6 +230,13 @@ public class Activator implements BundleActivator {
 		if (httpContextProcessing != null) {
 			httpContextProcessing.destroy();
 		}
+		if (resourceCacheInvalidator != null) {
+			context.removeBundleListener(resourceCacheInvalidator);
+		}
+		LOG.debug("Static resources: {}", ResourceCache.shared());
+		ResourceCache.shared().clear();
+		BundleEntryIndex.shared().clear();
+		FileResources.shared().clear();
 		// Wait up to 20 seconds, otherwhise
 		try {
 			configExecutor.shutdown();
@@ -367,7 +408,16 @@ public class Activator implements BundleActivator {
 					// which are not found in PropertyResolver passed to the configurationImpl object)
 					configuration.setDictionary(dictionary);
 				}
-				final ServerModel serverModel = new ServerModel();
+				final Integer routeCacheSize = configuration.getServerRouteCacheSize();
+				final ServerModel serverModel = new ServerModel(routeCacheSize == null ? 0 : routeCacheSize);
+				final Integer resourceCacheSize = configuration.getServerResourceCacheSize();
+				final Integer resourceCacheMaxEntrySize = configuration.getServerResourceCacheMaxEntrySize();
+				ResourceCache.shared().configure(resourceCacheSize == null ? 0 : resourceCacheSize,
+						resourceCacheMaxEntrySize == null ? 1024 * 1024 : resourceCacheMaxEntrySize);
+				ResourceCache.shared().configureEncodings(Boolean.TRUE.equals(configuration.isServerResourcePrecompressed()),
+						configuration.getServerResourceCompressionMimeTypes());
+				final Integer resourceAsyncThreshold = configuration.getServerResourceAsyncThreshold();
+				AsyncResourceWriter.shared().configure(resourceAsyncThreshold == null ? 0 : resourceAsyncThreshold);
 
 				serverController = controllerFactory.createServerController(serverModel);
 				serverController.configure(configuration);
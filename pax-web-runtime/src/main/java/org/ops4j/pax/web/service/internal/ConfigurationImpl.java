@@ -77,6 +77,12 @@ import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_WORKER_NA
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_MAX_THREADS;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_MIN_THREADS;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_IDLE_TIMEOUT;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_RESOURCE_ASYNC_THRESHOLD;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_RESOURCE_CACHE_MAX_ENTRY_SIZE;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_RESOURCE_CACHE_SIZE;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_RESOURCE_COMPRESSION_MIME_TYPES;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_RESOURCE_PRECOMPRESSED;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_ROUTE_CACHE_SIZE;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_RENEGOTIATION_ALLOWED;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_CRL_PATH;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_ENABLE_CRLDP;
@@ -877,6 +883,42 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return getResolvedIntegerProperty(PROPERTY_IDLE_TIMEOUT);
 	}
 
+	@Override
+	public Integer getServerRouteCacheSize() {
+		return getResolvedIntegerProperty(PROPERTY_ROUTE_CACHE_SIZE);
+	}
+
+	@Override
+	public Integer getServerResourceCacheSize() {
+		return getResolvedIntegerProperty(PROPERTY_RESOURCE_CACHE_SIZE);
+	}
+
+	@Override
+	public Integer getServerResourceCacheMaxEntrySize() {
+		return getResolvedIntegerProperty(PROPERTY_RESOURCE_CACHE_MAX_ENTRY_SIZE);
+	}
+
+	@Override
+	public Boolean isServerResourcePrecompressed() {
+		return getResolvedBooleanProperty(PROPERTY_RESOURCE_PRECOMPRESSED);
+	}
+
+	@Override
+	public List<String> getServerResourceCompressionMimeTypes() {
+		String mimeTypes = getResolvedStringProperty(PROPERTY_RESOURCE_COMPRESSION_MIME_TYPES);
+		if (mimeTypes == null || mimeTypes.trim().isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		String[] split = mimeTypes.split(",");
+		return Arrays.asList(split);
+	}
+
+	@Override
+	public Integer getServerResourceAsyncThreshold() {
+		return getResolvedIntegerProperty(PROPERTY_RESOURCE_ASYNC_THRESHOLD);
+	}
+
     @Override
     public String getCrlPath() {
         return getResolvedStringProperty(PROPERTY_CRL_PATH);
@@ -82,8 +82,7 @@ class DefaultHttpContext implements WebContainerContext {
 	@Override
 	public URL getResource(final String name) {
 		final String normalizedname = Path.normalizeResourcePath(name);
-		LOG.debug("Searching bundle [" + bundle + "] for resource ["
-				+ normalizedname + "]");
+		LOG.debug("Searching bundle [{}] for resource [{}]", bundle, normalizedname);
 		return bundle.getResource(normalizedname);
 	}
 
@@ -102,8 +101,7 @@ class DefaultHttpContext implements WebContainerContext {
 	@Override
 	public Set<String> getResourcePaths(final String name) {
 		final String normalizedname = Path.normalizeResourcePath(name);
-		LOG.debug("Searching bundle [" + bundle + "] for resource paths of ["
-				+ normalizedname + "]");
+		LOG.debug("Searching bundle [{}] for resource paths of [{}]", bundle, normalizedname);
 		final Enumeration<String> entryPaths = bundle
 				.getEntryPaths(normalizedname);
 		if (entryPaths == null || !entryPaths.hasMoreElements()) {
@@ -23,11 +23,13 @@ import java.util.HashSet;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.spi.util.MissingResourceCache;
 import org.ops4j.pax.web.service.spi.util.Path;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
@@ -38,13 +40,34 @@ public class DefaultSharedWebContainerContext implements
 	private static final Logger LOG = LoggerFactory
 			.getLogger(DefaultSharedWebContainerContext.class);
 
+	/**
+	 * Maximum number of remembered paths of missing resources
+	 */
+	private static final int MISSING_RESOURCE_CACHE_SIZE = 4096;
+
+	/**
+	 * Changed whenever a bundle is resolved or unresolved, as the resources visible to a
+	 * bundle depend on its wiring (e.g. attached fragments) and not only on its modification time
+	 */
+	private static final AtomicLong WIRING_REVISION = new AtomicLong();
+
 	private Queue<Bundle> bundles = new ConcurrentLinkedQueue<>();
 	private String contextId = DefaultContextIds.SHARED.getValue();
+	private final MissingResourceCache missingResources = new MissingResourceCache(MISSING_RESOURCE_CACHE_SIZE);
+	private volatile long wiringRevision = WIRING_REVISION.get();
+
+	/**
+	 * Forgets the missing resources of all shared contexts, called when the wiring of a bundle changed.
+	 */
+	static void wiringChanged() {
+		WIRING_REVISION.incrementAndGet();
+	}
 
 	@Override
 	public boolean registerBundle(Bundle bundle) {
 		if (!bundles.contains(bundle)) {
 			bundles.add(bundle);
+			missingResources.invalidate();
 			return true;
 		}
 		return false;
@@ -52,7 +75,11 @@ public class DefaultSharedWebContainerContext implements
 
 	@Override
 	public boolean deregisterBundle(Bundle bundle) {
-		return bundles.remove(bundle);
+		if (bundles.remove(bundle)) {
+			missingResources.invalidate();
+			return true;
+		}
+		return false;
 	}
 
 	@Override
@@ -78,26 +105,46 @@ public class DefaultSharedWebContainerContext implements
 
 	@Override
 	public URL getResource(String path) {
+		// misses are remembered, as requests for nonexistent resources would search all bundles
+		final String normalizedname = Path.normalizeResourcePath(path);
+		if (normalizedname == null) {
+			return null;
+		}
+		final long revision = WIRING_REVISION.get();
+		if (revision != wiringRevision) {
+			wiringRevision = revision;
+			missingResources.invalidate();
+		}
+		final long generation = missingResources.getGeneration();
+		final long stamp = getLastModified();
+		if (missingResources.isMissing(normalizedname, stamp)) {
+			return null;
+		}
 		for (Bundle bundle : bundles) {
-			URL pathUrl = getResource(bundle, path);
+			LOG.debug("Searching bundle [{}] for resource [{}]", bundle, normalizedname);
+			URL pathUrl = bundle.getResource(normalizedname);
 			if (pathUrl != null) {
 				return pathUrl;
 			}
 		}
+		missingResources.put(normalizedname, generation, stamp);
 		return null;
 	}
 
-	private URL getResource(Bundle bundle, final String name) {
-		final String normalizedname = Path.normalizeResourcePath(name);
-		LOG.debug("Searching bundle [" + bundle + "] for resource ["
-				+ normalizedname + "]");
-		return bundle.getResource(normalizedname);
+	/**
+	 * @return latest modification time of the registered bundles, changed when one of them is updated
+	 */
+	private long getLastModified() {
+		long lastModified = 0L;
+		for (Bundle bundle : bundles) {
+			lastModified = Math.max(lastModified, bundle.getLastModified());
+		}
+		return lastModified;
 	}
 
 	private Set<String> getResourcePaths(Bundle bundle, final String name) {
 		final String normalizedname = Path.normalizeResourcePath(name);
-		LOG.debug("Searching bundle [" + bundle + "] for resource paths of ["
-				+ normalizedname + "]");
+		LOG.debug("Searching bundle [{}] for resource paths of [{}]", bundle, normalizedname);
 		final Enumeration<String> entryPaths = bundle
 				.getEntryPaths(normalizedname);
 		if (entryPaths == null || !entryPaths.hasMoreElements()) {
@@ -76,6 +76,18 @@ public class HttpServiceProxy implements StoppableHttpService {
 		delegate.registerResources(alias, name, httpContext);
 	}
 
+	@Override
+	public void registerResources(final String alias, final String name, final boolean fingerprinted,
+								  final HttpContext httpContext) throws NamespaceException {
+		LOG.debug("Registering resource: [" + alias + "] -> " + name);
+		delegate.registerResources(alias, name, fingerprinted, httpContext);
+	}
+
+	@Override
+	public String getFingerprintedPath(final String path, final HttpContext httpContext) {
+		return delegate.getFingerprintedPath(path, httpContext);
+	}
+
 	@Override
 	public void unregister(final String alias) {
 		LOG.debug("Unregistering [" + alias + "]");
@@ -19,6 +19,7 @@
 package org.ops4j.pax.web.service.internal;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -79,6 +80,7 @@ import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WebSocketModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
 import org.ops4j.pax.web.service.spi.util.ResourceDelegatingBundleClassLoader;
+import org.ops4j.pax.web.service.spi.util.ResourceFingerprints;
 import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
 import org.ops4j.pax.web.utils.ClassPathUtil;
 import org.ops4j.util.property.DictionaryPropertyResolver;
@@ -286,6 +288,12 @@ class HttpServiceStarted implements StoppableHttpService {
 	@Override
 	public void registerResources(final String alias, final String name,
 								  final HttpContext httpContext) throws NamespaceException {
+		registerResources(alias, name, false, httpContext);
+	}
+
+	@Override
+	public void registerResources(final String alias, final String name, final boolean fingerprinted,
+								  final HttpContext httpContext) throws NamespaceException {
 		synchronized (lock) {
 			final ContextModel contextModel = getOrCreateContext(httpContext);
 			LOG.debug("Register resources (alias={}). Using context [" + contextModel + "]");
@@ -303,8 +311,10 @@ class HttpServiceStarted implements StoppableHttpService {
 				// but under different alias
 				resourceModelName = String.format("%s:%s", alias, "/".equals(name) ? "" : name);
 			}
+			// path within the http context the alias is mapped to, as in the resource servlets
+			final String basePath = "default".equals(name) || "/".equals(name) ? "" : name;
 			final ResourceModel model = new ResourceModel(contextModel, servlet,
-					alias, resourceModelName);
+					alias, resourceModelName, basePath, fingerprinted);
 			try {
 				registerServlet(model);
 			} catch (ServletException e) {
@@ -314,6 +324,46 @@ class HttpServiceStarted implements StoppableHttpService {
 		}
 	}
 
+	@Override
+	public String getFingerprintedPath(final String path, final HttpContext httpContext) {
+		NullArgumentException.validateNotNull(path, "Path");
+		final ContextModel contextModel = serviceModel.getContextModel(asWebContainerContext(httpContext));
+		if (contextModel == null) {
+			return null;
+		}
+		// resources registered with the longest alias matching the path
+		ResourceModel resources = null;
+		String resourcesAlias = null;
+		for (ServletModel model : serviceModel.getServletModels()) {
+			if (!(model instanceof ResourceModel) || !((ResourceModel) model).isFingerprinted()
+					|| model.getContextModel() != contextModel) {
+				continue;
+			}
+			String alias = model.getAlias();
+			if (alias.endsWith("/*")) {
+				alias = alias.substring(0, alias.length() - 2);
+			}
+			boolean matches = "/".equals(alias) || alias.isEmpty() || path.startsWith(alias + "/");
+			if (matches && (resourcesAlias == null || alias.length() > resourcesAlias.length())) {
+				resources = (ResourceModel) model;
+				resourcesAlias = alias;
+			}
+		}
+		if (resources == null || path.endsWith("/")) {
+			return null;
+		}
+		String mapping = resources.getBasePath()
+				+ ("/".equals(resourcesAlias) ? path : path.substring(resourcesAlias.length()));
+		URL url = contextModel.getHttpContext().getResource(mapping);
+		try {
+			String fingerprint = ResourceFingerprints.shared().fingerprint(contextModel.getBundle(), url);
+			return fingerprint == null ? null : ResourceFingerprints.fingerprinted(path, fingerprint);
+		} catch (IOException e) {
+			LOG.warn("Unable to fingerprint resource [" + mapping + "]", e);
+			return null;
+		}
+	}
+
 	@Override
 	public void unregister(final String alias) {
 		synchronized (lock) {
@@ -1205,15 +1255,7 @@ class HttpServiceStarted implements StoppableHttpService {
 	 * @return
 	 */
 	private ContextModel getOrCreateContext(final HttpContext httpContext) {
-		// org.osgi.service.http.HttpContext -> org.ops4j.pax.web.service.WebContainerContext
-		final WebContainerContext context;
-		if (httpContext == null) {
-			context = createDefaultHttpContext();
-		} else if (!(httpContext instanceof WebContainerContext)) {
-			context = new WebContainerContextWrapper(serviceBundle, httpContext);
-		} else {
-			context = (WebContainerContext) httpContext;
-		}
+		final WebContainerContext context = asWebContainerContext(httpContext);
 
 		// sanity check - non shared context should be associated to single bundle
 		serverModel.associateHttpContext(context, serviceBundle, httpContext instanceof SharedWebContainerContext);
@@ -1228,6 +1270,17 @@ class HttpServiceStarted implements StoppableHttpService {
 		return contextModel;
 	}
 
+	private WebContainerContext asWebContainerContext(final HttpContext httpContext) {
+		// org.osgi.service.http.HttpContext -> org.ops4j.pax.web.service.WebContainerContext
+		if (httpContext == null) {
+			return createDefaultHttpContext();
+		} else if (!(httpContext instanceof WebContainerContext)) {
+			return new WebContainerContextWrapper(serviceBundle, httpContext);
+		} else {
+			return (WebContainerContext) httpContext;
+		}
+	}
+
 	@Override
 	public SharedWebContainerContext getDefaultSharedHttpContext() {
 		return sharedWebContainerContext;
@@ -86,6 +86,18 @@ class HttpServiceStopped implements StoppableHttpService {
 		LOG.warn("Http service has already been stopped");
 	}
 
+	@Override
+	public void registerResources(final String alias, final String name, final boolean fingerprinted,
+								  final HttpContext httpContext) throws NamespaceException {
+		LOG.warn("Http service has already been stopped");
+	}
+
+	@Override
+	public String getFingerprintedPath(final String path, final HttpContext httpContext) {
+		LOG.warn("Http service has already been stopped");
+		return null;
+	}
+
 	@Override
 	public void unregister(final String alias) {
 		LOG.warn("Http service has already been stopped");
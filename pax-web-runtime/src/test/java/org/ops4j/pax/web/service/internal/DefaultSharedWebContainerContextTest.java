@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.URL;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class DefaultSharedWebContainerContextTest {
+
+	private Bundle bundle;
+	private DefaultSharedWebContainerContext contextUnderTest;
+
+	@Before
+	public void setUp() {
+		bundle = createMock(Bundle.class);
+		contextUnderTest = new DefaultSharedWebContainerContext();
+	}
+
+	@Test
+	public void missingResourcesAreRemembered() {
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		expect(bundle.getResource("missing.css")).andReturn(null).once();
+		replay(bundle);
+		contextUnderTest.registerBundle(bundle);
+
+		assertNull(contextUnderTest.getResource("missing.css"));
+		assertNull(contextUnderTest.getResource("missing.css"));
+		verify(bundle);
+	}
+
+	@Test
+	public void missingResourcesAreForgottenWhenTheWiringChanges() throws Exception {
+		URL url = new URL("file://fragment.css");
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		expect(bundle.getResource("fragment.css")).andReturn(null).once();
+		// a fragment providing the resource was attached
+		expect(bundle.getResource("fragment.css")).andReturn(url).once();
+		replay(bundle);
+		contextUnderTest.registerBundle(bundle);
+
+		assertNull(contextUnderTest.getResource("fragment.css"));
+		DefaultSharedWebContainerContext.wiringChanged();
+		assertEquals(url, contextUnderTest.getResource("fragment.css"));
+		verify(bundle);
+	}
+
+}
@@ -224,6 +224,42 @@ public interface Configuration {
 
 	Integer getServerIdleTimeout();
 
+	/**
+	 * Returns the maximum number of resolved request paths cached per virtual host.
+	 * @return the route cache size, 0 or null if route caching is disabled
+	 */
+	Integer getServerRouteCacheSize();
+
+	/**
+	 * Returns the maximum number of bytes of static resource content cached by the resource servlets.
+	 * @return the resource cache size, 0 or null if resource caching is disabled
+	 */
+	Integer getServerResourceCacheSize();
+
+	/**
+	 * Returns the maximum size of a single static resource kept in the resource cache.
+	 * @return the maximum entry size in bytes
+	 */
+	Integer getServerResourceCacheMaxEntrySize();
+
+	/**
+	 * Returns whether precompressed siblings of cached static resources are served.
+	 * @return true to serve "br" and "gz" siblings to clients accepting these codings
+	 */
+	Boolean isServerResourcePrecompressed();
+
+	/**
+	 * Returns the mime types of cached static resources compressed on first request.
+	 * @return mime types or "type/*" patterns, empty if no resource is compressed
+	 */
+	List<String> getServerResourceCompressionMimeTypes();
+
+	/**
+	 * Returns the minimum size of static resources written with non-blocking asynchronous output.
+	 * @return size in bytes, 0 if resources are always written blocking
+	 */
+	Integer getServerResourceAsyncThreshold();
+
 	String getTrustStore();
 
 	String getTrustStorePassword();
@@ -160,6 +160,14 @@ public class ContextModel extends Identity {
 	private Boolean jspScriptingInvalid;
 	private Boolean jspIsXml;
 
+	/**
+	 * Server specific context (e.g. the handler) bound to this model by the
+	 * server controller, so that request dispatch after
+	 * {@link ServerModel#matchPathToContext(String, String)} doesn't have to
+	 * look it up again.
+	 */
+	private volatile Object serverContext;
+
 	/**
 	 * @param httpContext
 	 * @param bundle
@@ -609,4 +617,17 @@ public class ContextModel extends Identity {
 	public Boolean getJspIsXml() {
 		return jspIsXml;
 	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return server specific context bound to this model, may be null or stale
+	 */
+	public Object getServerContext() {
+		return serverContext;
+	}
+
+	public void setServerContext(Object serverContext) {
+		this.serverContext = serverContext;
+	}
 }
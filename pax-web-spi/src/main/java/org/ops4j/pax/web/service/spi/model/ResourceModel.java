@@ -16,22 +16,50 @@
  */
 package org.ops4j.pax.web.service.spi.model;
 
+import java.util.Dictionary;
+import java.util.Hashtable;
+
 import javax.servlet.Servlet;
 
 import org.ops4j.lang.NullArgumentException;
+import org.ops4j.pax.web.service.spi.util.ResourceFingerprints;
 
 public class ResourceModel extends ServletModel {
 
 	private String name;
 
+	private final String basePath;
+
+	private final boolean fingerprinted;
+
 	public ResourceModel(final ContextModel contextModel,
 						 final Servlet servlet, final String alias, final String name) {
-		super(contextModel, servlet, alias, null, null, null);
+		this(contextModel, servlet, alias, name, "", false);
+	}
+
+	/**
+	 * @param basePath      path within the http context the alias is mapped to, "" for its root
+	 * @param fingerprinted whether resources are also served under content fingerprinted paths,
+	 *                      see {@link ResourceFingerprints}
+	 */
+	public ResourceModel(final ContextModel contextModel,
+						 final Servlet servlet, final String alias, final String name,
+						 final String basePath, final boolean fingerprinted) {
+		// resource servlets may write large resources asynchronously
+		super(contextModel, servlet, alias, fingerprinted ? fingerprintedInitParams() : null, null, Boolean.TRUE);
 		NullArgumentException.validateNotNull(name, "Name");
 		if (!"/".equals(name) && name.endsWith("/")) {
 			throw new IllegalArgumentException("name ends with slash (/)");
 		}
 		this.name = name;
+		this.basePath = basePath;
+		this.fingerprinted = fingerprinted;
+	}
+
+	private static Dictionary<String, String> fingerprintedInitParams() {
+		Dictionary<String, String> initParams = new Hashtable<>();
+		initParams.put(ResourceFingerprints.INIT_PARAM, Boolean.TRUE.toString());
+		return initParams;
 	}
 
 	@Override
@@ -39,4 +67,12 @@ public class ResourceModel extends ServletModel {
 		return name;
 	}
 
+	public String getBasePath() {
+		return basePath;
+	}
+
+	public boolean isFingerprinted() {
+		return fingerprinted;
+	}
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.model;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of request path to {@link ContextModel} resolutions, kept per
+ * virtual host. Every entry remembers the registration generation of the
+ * {@link ServerModel} it was resolved against; entries of an older generation
+ * are treated as misses, so a servlet or filter (un)registration invalidates
+ * the whole cache without touching it.
+ * <p>
+ * Paths that do not match any context are cached as well.
+ */
+public class RouteCache {
+
+	private final int maxEntries;
+
+	private final ConcurrentMap<String, VirtualHostRoutes> routesByVirtualHost = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxEntries maximum number of cached paths per virtual host
+	 */
+	public RouteCache(final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Route cache size must be positive: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the cached resolution of a path.
+	 *
+	 * @param virtualHost resolved virtual host
+	 * @param path        request path
+	 * @param generation  current registration generation
+	 * @return cached route (whose context model may be null) or null on a miss
+	 */
+	Route get(final String virtualHost, final String path, final long generation) {
+		VirtualHostRoutes routes = routesByVirtualHost.get(virtualHost);
+		Route route = routes == null || routes.generation != generation ? null : routes.routes.get(path);
+		if (route == null || route.generation != generation) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return route;
+	}
+
+	/**
+	 * Remembers the resolution of a path.
+	 *
+	 * @param virtualHost  resolved virtual host
+	 * @param path         request path
+	 * @param generation   registration generation the path was resolved against
+	 * @param contextModel matched context or null if none matched
+	 */
+	void put(final String virtualHost, final String path, final long generation, final ContextModel contextModel) {
+		VirtualHostRoutes routes = routesByVirtualHost.computeIfAbsent(virtualHost, vh -> new VirtualHostRoutes());
+		if (routes.generation != generation) {
+			if (routes.generation > generation) {
+				// resolved against an already replaced snapshot
+				return;
+			}
+			routes.routes.clear();
+			routes.generation = generation;
+		}
+		if (routes.routes.size() >= maxEntries) {
+			// evict an arbitrary entry, hot paths are put back on their next miss
+			Iterator<String> iterator = routes.routes.keySet().iterator();
+			if (iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		routes.routes.put(path, new Route(generation, contextModel));
+	}
+
+	/**
+	 * Removes all cached routes.
+	 */
+	public void clear() {
+		routesByVirtualHost.clear();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @return number of currently cached paths over all virtual hosts
+	 */
+	public int size() {
+		int size = 0;
+		for (VirtualHostRoutes routes : routesByVirtualHost.values()) {
+			size += routes.routes.size();
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "RouteCache{maxEntries=" + maxEntries + ",size=" + size() + ",hits=" + getHitCount()
+				+ ",misses=" + getMissCount() + "}";
+	}
+
+	/**
+	 * Cached resolution of a single path.
+	 */
+	static final class Route {
+
+		private final long generation;
+		private final ContextModel contextModel;
+
+		Route(final long generation, final ContextModel contextModel) {
+			this.generation = generation;
+			this.contextModel = contextModel;
+		}
+
+		ContextModel getContextModel() {
+			return contextModel;
+		}
+	}
+
+	private static final class VirtualHostRoutes {
+
+		private volatile long generation;
+		private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+	}
+
+}
@@ -17,23 +17,24 @@
 package org.ops4j.pax.web.service.spi.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Pattern;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.servlet.Servlet;
 import javax.servlet.ServletContainerInitializer;
 import javax.servlet.ServletException;
 
 import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.util.UrlPatternTrie;
 import org.osgi.framework.Bundle;
 import org.osgi.service.http.HttpContext;
 import org.osgi.service.http.NamespaceException;
@@ -96,32 +97,70 @@ public class ServerModel {
 
 	private final ConcurrentMap<String,ConcurrentMap<WebContainerContext, Bundle>> httpContexts;
 	/**
-	 * Servlet lock. Used to sychonchornize on servlet
-	 * registration/unregistrationhat that works agains 3 maps (m_servlets,
-	 * m_aliasMaping, m_servletToUrlPattern).
+	 * Registration lock. Used to synchronize servlet and filter
+	 * registration/unregistration that works against the servlet, alias, url
+	 * pattern and virtual host maps and publishes a new {@link #routing}
+	 * snapshot. Never taken while matching requests.
 	 */
-
-	private final ReentrantReadWriteLock servletLock;
-
-	private final ReentrantReadWriteLock filterLock;
+	private final ReentrantLock registrationLock;
 
 	private final ConcurrentMap<ServletContainerInitializer, ContainerInitializerModel> containerInitializers;
 
     private final Map<String,List<Bundle>> bundlesByVirtualHost;
 
+	/**
+	 * Immutable view of the url patterns and virtual hosts used to match
+	 * requests. Replaced as a whole (copy-on-write) under
+	 * {@link #registrationLock} and read without locking.
+	 */
+	private volatile RoutingSnapshot routing;
+
+	/**
+	 * Optional cache of resolved request paths, null if disabled.
+	 */
+	private final RouteCache routeCache;
+
 	/**
 	 * Constructor.
 	 */
 	public ServerModel() {
+		this(0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param routeCacheSize maximum number of resolved paths cached per virtual
+	 *                       host, 0 or less disables the cache
+	 */
+	public ServerModel(final int routeCacheSize) {
 		aliasMapping = new HashMap<>();
 		servlets = new HashMap<>();
 		servletUrlPatterns = new HashMap<>();
 		filterUrlPatterns = new ConcurrentHashMap<>();
 		httpContexts = new ConcurrentHashMap<>();
 		containerInitializers = new ConcurrentHashMap<>();
-		servletLock = new ReentrantReadWriteLock(true);
-		filterLock = new ReentrantReadWriteLock(true);
+		registrationLock = new ReentrantLock();
         bundlesByVirtualHost = new HashMap<>();
+		routing = RoutingSnapshot.EMPTY;
+		routeCache = routeCacheSize > 0 ? new RouteCache(routeCacheSize) : null;
+	}
+
+	/**
+	 * Returns the registration generation, incremented on every servlet or
+	 * filter (un)registration.
+	 *
+	 * @return current registration generation
+	 */
+	public long getGeneration() {
+		return routing.version;
+	}
+
+	/**
+	 * @return the route cache or null if route caching is disabled
+	 */
+	public RouteCache getRouteCache() {
+		return routeCache;
 	}
 
     private List<String> resolveVirtualHosts(Model model) {
@@ -133,8 +172,8 @@ public class ServerModel {
         return virtualHosts;
     }
 
-    private String resolveVirtualHost(String hostName) {
-        if (bundlesByVirtualHost.containsKey(hostName)) {
+    private static String resolveVirtualHost(RoutingSnapshot snapshot, String hostName) {
+        if (snapshot.bundlesByVirtualHost.containsKey(hostName)) {
             return hostName;
         } else {
             return DEFAULT_VIRTUAL_HOST;
@@ -143,7 +182,7 @@ public class ServerModel {
 
     private List<String> resolveVirtualHosts(Bundle bundle) {
         List<String> virtualHosts = new ArrayList<>();
-        for (Map.Entry<String, List<Bundle>> entry : bundlesByVirtualHost.entrySet()) {
+        for (Map.Entry<String, List<Bundle>> entry : routing.bundlesByVirtualHost.entrySet()) {
             if (entry.getValue().contains(bundle)) {
                 virtualHosts.add(entry.getKey());
             }
@@ -183,7 +222,7 @@ public class ServerModel {
 	 * @throws NamespaceException - If servlet alias is already registered
 	 */
 	public void addServletModel(final ServletModel model) throws NamespaceException, ServletException {
-		servletLock.writeLock().lock();
+		registrationLock.lock();
 		try {
             associateBundle(model.getContextModel().getVirtualHosts(), model.getContextModel().getBundle());
             for (String virtualHost:resolveVirtualHosts(model)) {
@@ -215,7 +254,8 @@ public class ServerModel {
                 }
             }
 		} finally {
-			servletLock.writeLock().unlock();
+			publishRouting(resolveVirtualHosts(model));
+			registrationLock.unlock();
 		}
 	}
 
@@ -225,7 +265,7 @@ public class ServerModel {
 	 * @param model servlet model to unregister
 	 */
 	public void removeServletModel(final ServletModel model) {
-		servletLock.writeLock().lock();
+		registrationLock.lock();
 		try {
             deassociateBundle(model.getContextModel().getVirtualHosts(), model.getContextModel().getBundle());
             for (String virtualHost:resolveVirtualHosts(model)) {
@@ -242,10 +282,54 @@ public class ServerModel {
                 }
             }
 		} finally {
-			servletLock.writeLock().unlock();
+			publishRouting(resolveVirtualHosts(model));
+			registrationLock.unlock();
 		}
 	}
 
+	/**
+	 * Publishes a new routing snapshot, rebuilding the url pattern lookups of
+	 * the changed virtual hosts and reusing the ones of all other virtual
+	 * hosts. Must be called while holding the registration lock.
+	 *
+	 * @param changedVirtualHosts virtual hosts whose url patterns changed
+	 */
+	private void publishRouting(final Collection<String> changedVirtualHosts) {
+		final RoutingSnapshot current = routing;
+		final Map<String, UrlPatternTrie<UrlPattern>> servletTries = new HashMap<>(current.servletUrlPatterns);
+		final Map<String, UrlPatternTrie<UrlPattern>> filterTries = new HashMap<>(current.filterUrlPatterns);
+		for (String virtualHost : changedVirtualHosts) {
+			Map<String, UrlPattern> urlPatterns = servletUrlPatterns.get(virtualHost);
+			if (urlPatterns == null || urlPatterns.isEmpty()) {
+				servletTries.remove(virtualHost);
+			} else {
+				servletTries.put(virtualHost, new UrlPatternTrie<>(urlPatterns));
+			}
+			// filters registered for the same full url pattern all belong to
+			// contexts with the same path, so any of them identifies the context
+			Map<String, UrlPattern> filterPatterns = new HashMap<>();
+			Map<String, Set<UrlPattern>> filterPatternSets = filterUrlPatterns.get(virtualHost);
+			if (filterPatternSets != null) {
+				for (Map.Entry<String, Set<UrlPattern>> entry : filterPatternSets.entrySet()) {
+					if (!entry.getValue().isEmpty()) {
+						filterPatterns.put(entry.getKey(), entry.getValue().iterator().next());
+					}
+				}
+			}
+			if (filterPatterns.isEmpty()) {
+				filterTries.remove(virtualHost);
+			} else {
+				filterTries.put(virtualHost, new UrlPatternTrie<>(filterPatterns));
+			}
+		}
+		final Map<String, List<Bundle>> bundles = new HashMap<>();
+		for (Map.Entry<String, List<Bundle>> entry : bundlesByVirtualHost.entrySet()) {
+			bundles.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+		}
+		routing = new RoutingSnapshot(current.version + 1, Collections.unmodifiableMap(servletTries),
+				Collections.unmodifiableMap(filterTries), Collections.unmodifiableMap(bundles));
+	}
+
 	/**
 	 * Registers a filter model.
 	 *
@@ -253,8 +337,8 @@ public class ServerModel {
 	 */
 	public void addFilterModel(final FilterModel model) {
 		if (model.getUrlPatterns() != null) {
+			registrationLock.lock();
 			try {
-				filterLock.writeLock().lock();
 				associateBundle(model.getContextModel().getVirtualHosts(), model.getContextModel().getBundle());
 				for (String virtualHost : resolveVirtualHosts(model)) {
 					for (String urlPattern : model.getUrlPatterns()) {
@@ -282,7 +366,8 @@ public class ServerModel {
                                     }
                                 }
 			} finally {
-				filterLock.writeLock().unlock();
+				publishRouting(resolveVirtualHosts(model));
+				registrationLock.unlock();
 			}
 		}
 	}
@@ -294,9 +379,9 @@ public class ServerModel {
 	 */
 	public void removeFilterModel(final FilterModel model) {
 		if (model.getUrlPatterns() != null) {
+			registrationLock.lock();
 			try {
 				deassociateBundle(model.getContextModel().getVirtualHosts(), model.getContextModel().getBundle());
-				filterLock.writeLock().lock();
 				for (String virtualHost:resolveVirtualHosts(model)) {
 					for (String urlPattern : model.getUrlPatterns()) {
 							String fullPath = getFullPath(model.getContextModel(), urlPattern);
@@ -320,7 +405,8 @@ public class ServerModel {
 					}
 				}
 			} finally {
-				filterLock.writeLock().unlock();
+				publishRouting(resolveVirtualHosts(model));
+				registrationLock.unlock();
 			}
 		}
 	}
@@ -416,29 +502,38 @@ public class ServerModel {
 		if (debug) {
 			LOG.debug("Matching [" + path + "]...");
 		}
-        String virtualHost = resolveVirtualHost(hostName);
+		// a single volatile read gives a consistent view for the whole lookup
+		final RoutingSnapshot snapshot = routing;
+        String virtualHost = resolveVirtualHost(snapshot, hostName);
+		if (routeCache != null) {
+			RouteCache.Route route = routeCache.get(virtualHost, path, snapshot.version);
+			if (route != null) {
+				if (debug) {
+					LOG.debug("Path [" + path + "] resolved from route cache to " + route.getContextModel());
+				}
+				return route.getContextModel();
+			}
+		}
 		UrlPattern urlPattern = null;
 		// first match servlets
-		servletLock.readLock().lock();
-		try {
-		    Optional<Map<String, UrlPattern>> optionalServletUrlPatterns = Optional.ofNullable(servletUrlPatterns.get(virtualHost));
-		    if (optionalServletUrlPatterns.isPresent()) {
-			    urlPattern = matchPathToContext(optionalServletUrlPatterns.get(), path);
-		    }
-		} finally {
-			servletLock.readLock().unlock();
+		UrlPatternTrie<UrlPattern> trie = snapshot.servletUrlPatterns.get(virtualHost);
+		if (trie != null) {
+			urlPattern = trie.match(path);
 		}
 		// then if there is no matched servlet look for filters
 		if (urlPattern == null) {
-		    Optional<ConcurrentMap<String, Set<UrlPattern>>> optionalFilterUrlPattern = Optional.ofNullable(filterUrlPatterns.get(virtualHost));
-		    if (optionalFilterUrlPattern.isPresent()) {
-			    urlPattern = matchFilterPathToContext(filterUrlPatterns.get(virtualHost), path);
-		    }
+			trie = snapshot.filterUrlPatterns.get(virtualHost);
+			if (trie != null) {
+				urlPattern = trie.match(path);
+			}
 		}
 		ContextModel matched = null;
 		if (urlPattern != null) {
 			matched = urlPattern.getModel().getContextModel();
 		}
+		if (routeCache != null) {
+			routeCache.put(virtualHost, path, snapshot.version, matched);
+		}
 		if (debug) {
 			if (matched != null) {
 				LOG.debug("Path [" + path + "] matched to " + urlPattern);
@@ -449,98 +544,6 @@ public class ServerModel {
 		return matched;
 	}
 
-	private static UrlPattern matchFilterPathToContext(final Map<String, Set<UrlPattern>> urlPatternsMap, final String path) {
-		Set<String> keySet = urlPatternsMap.keySet();
-		for (String key : keySet) {
-			Set<UrlPattern> patternsMap = urlPatternsMap.get(key);
-
-			for (UrlPattern urlPattern : patternsMap) {
-				Map<String, UrlPattern> tempMap = new HashMap<>();
-				tempMap.put(key, urlPattern);
-				UrlPattern pattern = matchPathToContext(tempMap, path);
-				if (pattern != null) {
-					return pattern;
-				}
-			}
-		}
-		return null;
-	}
-
-	private static UrlPattern matchPathToContext(final Map<String, UrlPattern> urlPatternsMap, final String path) {
-		UrlPattern matched = null;
-		String servletPath = path;
-
-		while ((matched == null) && (!"".equals(servletPath))) {
-			// Match the asterisks first that comes just after the current
-			// servlet path, so that it satisfies the longest path req
-			if (servletPath.endsWith("/")) {
-				matched = urlPatternsMap.get(servletPath + "*");
-			} else {
-				matched = urlPatternsMap.get(servletPath + "/*");
-			}
-
-			// try to match the exact resource if the above fails
-			if (matched == null) {
-				matched = urlPatternsMap.get(servletPath);
-			}
-
-			// now try to match the url backwards one directory at a time
-			if (matched == null) {
-				String lastPathSegment = servletPath.substring(servletPath.lastIndexOf("/") + 1);
-				servletPath = servletPath.substring(0, servletPath.lastIndexOf("/"));
-				// case 1: the servlet path is /
-				if (("".equals(servletPath)) && ("".equals(lastPathSegment))) {
-					break;
-				} else if ("".equals(lastPathSegment)) {
-					// case 2 the servlet path ends with /
-					matched = urlPatternsMap.get(servletPath + "/*");
-					continue;
-				} else if (lastPathSegment.contains(".")) {
-					// case 3 the last path segment has a extension that needs
-					// to be
-					// matched
-					String extension = lastPathSegment.substring(lastPathSegment.lastIndexOf("."));
-					if (extension.length() > 1) {
-						// case 3.5 refer to second bulleted point of heading
-						// Specification of Mappings
-						// in servlet specification
-						// PATCH - do not go global too early. Next 3 lines
-						// modified.
-						// matched = urlPatternsMap.get("*" + extension);
-						if (matched == null) {
-							matched = urlPatternsMap.get(("".equals(servletPath) ? "*" : servletPath + "/*")
-									+ extension);
-						}
-					}
-				} else {
-					// case 4 search for the wild cards at the end of servlet
-					// path
-					// of the next iteration
-					if (servletPath.endsWith("/")) {
-						matched = urlPatternsMap.get(servletPath + "*");
-					} else {
-						matched = urlPatternsMap.get(servletPath + "/*");
-					}
-				}
-
-				// case 5 if all the above fails look for the actual mapping
-				if (matched == null) {
-					matched = urlPatternsMap.get(servletPath);
-				}
-
-				// case 6 the servlet path has / followed by context name, this
-				// case is
-				// selected at the end of the directory, when none of the them
-				// matches.
-				// So we try to match to root.
-				if ((matched == null) && ("".equals(servletPath)) && (!"".equals(lastPathSegment))) {
-					matched = urlPatternsMap.get("/");
-				}
-			}
-		}
-		return matched;
-	}
-
 	/**
 	 * Returns the full path (including the context name if set)
 	 *
@@ -562,24 +565,47 @@ public class ServerModel {
 		return fullPath;
 	}
 
+	/**
+	 * Immutable, versioned routing table. Each registration change publishes
+	 * a new instance so request matching never needs a lock.
+	 */
+	private static final class RoutingSnapshot {
+
+		static final RoutingSnapshot EMPTY = new RoutingSnapshot(0L, Collections.emptyMap(),
+				Collections.emptyMap(), Collections.emptyMap());
+
+		private final long version;
+		private final Map<String, UrlPatternTrie<UrlPattern>> servletUrlPatterns;
+		private final Map<String, UrlPatternTrie<UrlPattern>> filterUrlPatterns;
+		private final Map<String, List<Bundle>> bundlesByVirtualHost;
+
+		RoutingSnapshot(final long version, final Map<String, UrlPatternTrie<UrlPattern>> servletUrlPatterns,
+						final Map<String, UrlPatternTrie<UrlPattern>> filterUrlPatterns,
+						final Map<String, List<Bundle>> bundlesByVirtualHost) {
+			this.version = version;
+			this.servletUrlPatterns = servletUrlPatterns;
+			this.filterUrlPatterns = filterUrlPatterns;
+			this.bundlesByVirtualHost = bundlesByVirtualHost;
+		}
+
+		@Override
+		public String toString() {
+			return "RoutingSnapshot{version=" + version + ",virtualHosts=" + bundlesByVirtualHost.keySet() + "}";
+		}
+	}
+
 	/**
 	 * Touple of full url pattern and registered model (servlet/filter) for the
 	 * model.
 	 */
 	private static class UrlPattern {
 
-		private final Pattern pattern;
+		private final String pattern;
 		private final Model model;
 
 		UrlPattern(final String pattern, final Model model) {
 			this.model = model;
-			String patternToUse = pattern;
-			if (!patternToUse.contains("*")) {
-				patternToUse = patternToUse + (pattern.endsWith("/") ? "*" : "/*");
-			}
-			patternToUse = patternToUse.replace(".", "\\.");
-			patternToUse = patternToUse.replace("*", ".*");
-			this.pattern = Pattern.compile(patternToUse);
+			this.pattern = pattern;
 		}
 
 		Model getModel() {
@@ -588,7 +614,7 @@ public class ServerModel {
 
 		@Override
 		public String toString() {
-			return new StringBuilder().append("{").append("pattern=").append(pattern.pattern()).append(",model=")
+			return new StringBuilder().append("{").append("pattern=").append(pattern).append(",model=")
 					.append(model).append("}").toString();
 		}
 	}
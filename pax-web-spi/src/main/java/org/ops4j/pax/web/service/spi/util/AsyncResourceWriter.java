@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes large static resources with non-blocking Servlet 3.1 output: the
+ * request is put into asynchronous mode and the content is written from a
+ * {@link WriteListener} whenever the connection can take more, so slow
+ * clients do not hold a container thread for the whole transfer.
+ */
+public final class AsyncResourceWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncResourceWriter.class);
+
+	private static final AsyncResourceWriter SHARED = new AsyncResourceWriter();
+
+	private static final int BUFFER_SIZE = 16384;
+
+	private volatile long threshold;
+
+	/**
+	 * @return the writer shared by the resource servlets of all server controllers
+	 */
+	public static AsyncResourceWriter shared() {
+		return SHARED;
+	}
+
+	/**
+	 * @param threshold minimum size in bytes of resources written asynchronously, 0 or less disables
+	 *                  asynchronous writes
+	 */
+	public void configure(final long threshold) {
+		this.threshold = Math.max(0L, threshold);
+	}
+
+	public boolean isEnabled() {
+		return threshold > 0;
+	}
+
+	/**
+	 * Whether a resource is to be written asynchronously: it must be at least as large as the
+	 * threshold and the request must be a plain (not forwarded, included or already asynchronous)
+	 * request whose filter chain and servlet support asynchronous processing.
+	 *
+	 * @param request current request
+	 * @param length  length of the resource, negative if unknown
+	 * @return true if {@link #write(HttpServletRequest, HttpServletResponse, long, Content)} takes over
+	 */
+	public boolean accepts(final HttpServletRequest request, final long length) {
+		long threshold = this.threshold;
+		return threshold > 0 && length >= threshold
+				&& request.getDispatcherType() == DispatcherType.REQUEST
+				&& !"HEAD".equals(request.getMethod())
+				&& request.isAsyncSupported() && !request.isAsyncStarted();
+	}
+
+	/**
+	 * Writes the whole content of a resource asynchronously, if {@link #accepts(HttpServletRequest, long)}.
+	 * Headers and status are to be set before, the response is completed when the content is written or
+	 * the client is gone.
+	 *
+	 * @param request  current request
+	 * @param response response of the request
+	 * @param length   length of the resource
+	 * @param content  content of the resource
+	 * @return true if the content is written asynchronously, false if the caller is to write it
+	 * @throws IOException if the content can not be opened
+	 */
+	public boolean write(final HttpServletRequest request, final HttpServletResponse response, final long length,
+						 final Content content) throws IOException {
+		if (!accepts(request, length)) {
+			return false;
+		}
+		ServletOutputStream out = response.getOutputStream();
+		if (out == null) { // null should be just in unit testing
+			return false;
+		}
+		InputStream in = content.open();
+		response.setContentLengthLong(length);
+		AsyncContext asyncContext;
+		try {
+			asyncContext = request.startAsync(request, response);
+		} catch (IllegalStateException e) {
+			in.close();
+			return false;
+		}
+		// a stalled client is dropped by the idle timeout of the connector, not by a fixed time
+		asyncContext.setTimeout(0);
+		out.setWriteListener(new ContentWriter(asyncContext, out, in));
+		return true;
+	}
+
+	/**
+	 * Content of a resource.
+	 */
+	public interface Content {
+
+		/**
+		 * @return a new stream of the content, closed by the writer
+		 */
+		InputStream open() throws IOException;
+	}
+
+	/**
+	 * Copies content to the response while the output is ready.
+	 */
+	private static final class ContentWriter implements WriteListener {
+
+		private final AsyncContext asyncContext;
+		private final ServletOutputStream out;
+		private final InputStream in;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private boolean done;
+
+		ContentWriter(final AsyncContext asyncContext, final ServletOutputStream out, final InputStream in) {
+			this.asyncContext = asyncContext;
+			this.out = out;
+			this.in = in;
+		}
+
+		@Override
+		public void onWritePossible() throws IOException {
+			while (!done && out.isReady()) {
+				int count = in.read(buffer);
+				if (count < 0) {
+					complete();
+					return;
+				}
+				out.write(buffer, 0, count);
+			}
+		}
+
+		@Override
+		public void onError(final Throwable t) {
+			LOG.debug("Asynchronous write of resource failed", t);
+			complete();
+		}
+
+		private void complete() {
+			if (done) {
+				return;
+			}
+			done = true;
+			try {
+				in.close();
+			} catch (IOException e) {
+				LOG.debug("Failed to close resource", e);
+			}
+			asyncContext.complete();
+		}
+	}
+
+}
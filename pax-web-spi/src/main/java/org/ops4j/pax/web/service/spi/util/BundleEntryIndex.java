@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the entries of bundles serving static resources. It
+ * tells files from directories, which {@link Bundle#getResource(String)} urls
+ * don't, and remembers length and last modification time of files, so the
+ * resource servlets don't have to open a stream or connection to find out.
+ * <p>
+ * The index of a bundle is built from {@link Bundle#findEntries(String, String, boolean)}
+ * on first use and rebuilt when the bundle is updated, once for concurrent requests. Only urls of entries
+ * of the bundle itself (see {@link ResourceCache}) relative to the bundle root
+ * are answered, not those of other class path entries or fragments; for other
+ * urls, and paths missing from the index, the caller has to ask the url.
+ */
+public final class BundleEntryIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BundleEntryIndex.class);
+
+	private static final BundleEntryIndex SHARED = new BundleEntryIndex();
+
+	/**
+	 * Class path index of urls of entries, relative to the bundle root
+	 */
+	static final int ROOT = -1;
+
+	/**
+	 * Class path index of urls which are not relative to any class path entry of the bundle
+	 */
+	static final int NONE = Integer.MAX_VALUE;
+
+	private final ConcurrentMap<Long, Index> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the index shared by the resource servlets of all server controllers
+	 */
+	public static BundleEntryIndex shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Looks up the entry a url of a bundle points to.
+	 *
+	 * @param bundle bundle of the http context serving the resource, may be null
+	 * @param url    url the resource was resolved to, may be null
+	 * @return the indexed entry or null if the url is not known to the index
+	 */
+	public Entry get(final Bundle bundle, final URL url) {
+		if (!ResourceCache.isBundleEntry(bundle, url)) {
+			return null;
+		}
+		final long bundleLastModified = bundle.getLastModified();
+		Index index = indexes.get(bundle.getBundleId());
+		if (index == null || index.bundleLastModified != bundleLastModified) {
+			// concurrent requests wait for the index instead of building it again
+			index = indexes.compute(bundle.getBundleId(), (id, current) ->
+					current != null && current.bundleLastModified == bundleLastModified
+							? current : build(bundle, bundleLastModified));
+		}
+		int classPathIndex = classPathIndex(url);
+		if (classPathIndex != ROOT && !".".equals(index.getClassPathEntry(bundle, classPathIndex))) {
+			// relative to another class path entry (e.g. WEB-INF/classes) or a fragment
+			return null;
+		}
+		String path = url.getPath();
+		if (path == null) {
+			return null;
+		}
+		if (path.endsWith("/")) {
+			Entry entry = index.entries.get(path.substring(0, path.length() - 1));
+			return entry != null && entry.directory ? entry : null;
+		}
+		return index.entries.get(path);
+	}
+
+	private static Index build(final Bundle bundle, final long bundleLastModified) {
+		Map<String, Entry> entries = new HashMap<>();
+		entries.put("", new Entry(null, true));
+		Enumeration<URL> urls = null;
+		try {
+			urls = bundle.findEntries("/", "*", true);
+		} catch (IllegalStateException e) {
+			// uninstalled meanwhile, an empty index answers nothing
+			LOG.debug("Can't index entries of {}: {}", bundle, e.getMessage());
+		}
+		while (urls != null && urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			if (!ResourceCache.isBundleEntry(bundle, url) || classPathIndex(url) != ROOT) {
+				// entry of an attached fragment
+				continue;
+			}
+			String path = url.getPath();
+			if (path == null || path.isEmpty() || "/".equals(path)) {
+				continue;
+			}
+			if (!path.startsWith("/")) {
+				path = "/" + path;
+			}
+			boolean directory = path.endsWith("/");
+			if (directory) {
+				path = path.substring(0, path.length() - 1);
+			}
+			if (!entries.containsKey(path) || directory) {
+				entries.put(path, new Entry(directory ? null : url, directory));
+			}
+			// archives don't have to contain entries for directories
+			for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+				String parent = path.substring(0, slash);
+				Entry existing = entries.get(parent);
+				if (existing != null && existing.directory) {
+					break;
+				}
+				entries.put(parent, new Entry(null, true));
+			}
+		}
+		LOG.debug("Indexed {} entries of {}", entries.size(), bundle);
+		return new Index(bundleLastModified, entries);
+	}
+
+	/**
+	 * Tells which class path entry of a bundle the path of one of its urls is relative to.
+	 * Felix keeps the content index in the port: 0 for entries, the class path index + 1
+	 * for resources, and higher indexes for the content of fragments. Equinox keeps the
+	 * class path index of resources in the port.
+	 *
+	 * @param url url of the bundle, see {@link ResourceCache#isBundleEntry(Bundle, URL)}
+	 * @return {@link #ROOT} for entries, the index in the Bundle-ClassPath for resources,
+	 * {@link #NONE} for other urls
+	 */
+	static int classPathIndex(final URL url) {
+		int port = url.getPort();
+		switch (url.getProtocol()) {
+			case "bundle":
+				return port <= 0 ? ROOT : port - 1;
+			case "bundleresource":
+				return Math.max(port, 0);
+			default:
+				return port <= 0 ? ROOT : NONE;
+		}
+	}
+
+	/**
+	 * @return the entries of the Bundle-ClassPath header, "." for the bundle root
+	 */
+	private static List<String> classPath(final Bundle bundle) {
+		String header;
+		try {
+			header = bundle.getHeaders("").get(Constants.BUNDLE_CLASSPATH);
+		} catch (IllegalStateException | SecurityException e) {
+			return Collections.emptyList();
+		}
+		if (header == null || header.trim().isEmpty()) {
+			return Collections.singletonList(".");
+		}
+		List<String> entries = new ArrayList<>();
+		for (String clause : header.split(",")) {
+			String entry = clause.split(";")[0].trim();
+			entries.add("/".equals(entry) ? "." : entry);
+		}
+		return entries;
+	}
+
+	/**
+	 * Drops the index of a bundle.
+	 *
+	 * @param bundleId id of an updated or uninstalled bundle
+	 */
+	public void invalidate(final long bundleId) {
+		indexes.remove(bundleId);
+	}
+
+	/**
+	 * Drops all indexes.
+	 */
+	public void clear() {
+		indexes.clear();
+	}
+
+	/**
+	 * @return number of indexed bundles
+	 */
+	public int size() {
+		return indexes.size();
+	}
+
+	/**
+	 * Indexed entries of a bundle revision, keyed by path without trailing slash.
+	 */
+	private static final class Index {
+		private final long bundleLastModified;
+		private final Map<String, Entry> entries;
+		private volatile List<String> classPath;
+
+		Index(final long bundleLastModified, final Map<String, Entry> entries) {
+			this.bundleLastModified = bundleLastModified;
+			this.entries = entries;
+		}
+
+		/**
+		 * @return the class path entry, read from the bundle on first use, or null
+		 */
+		String getClassPathEntry(final Bundle bundle, final int classPathIndex) {
+			List<String> entries = classPath;
+			if (entries == null) {
+				entries = classPath(bundle);
+				classPath = entries;
+			}
+			return classPathIndex >= 0 && classPathIndex < entries.size() ? entries.get(classPathIndex) : null;
+		}
+	}
+
+	/**
+	 * Existing entry of a bundle. Length and last modification time of a file
+	 * are read from its url on first request.
+	 */
+	public static final class Entry {
+
+		private final URL url;
+		private final boolean directory;
+		private volatile boolean resolved;
+		private long length = -1L;
+		private long lastModified;
+
+		Entry(final URL url, final boolean directory) {
+			this.url = url;
+			this.directory = directory;
+		}
+
+		public boolean isDirectory() {
+			return directory;
+		}
+
+		/**
+		 * @return content length, -1 for directories or if unknown
+		 */
+		public long getLength() {
+			resolve();
+			return length;
+		}
+
+		/**
+		 * @return last modification time, 0 for directories or if unknown
+		 */
+		public long getLastModified() {
+			resolve();
+			return lastModified;
+		}
+
+		private void resolve() {
+			if (resolved || url == null) {
+				return;
+			}
+			synchronized (this) {
+				if (!resolved) {
+					try {
+						URLConnection connection = url.openConnection();
+						length = connection.getContentLengthLong();
+						lastModified = connection.getLastModified();
+						// bundle url connections open the entry when connecting
+						connection.getInputStream().close();
+					} catch (IOException e) {
+						LOG.debug("Can't read attributes of {}: {}", url, e.getMessage());
+					}
+					resolved = true;
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return directory ? "directory" : String.valueOf(url);
+		}
+	}
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Byte range requests (RFC 7233) for the resource servlets: Range and
+ * If-Range evaluation, single and multipart 206 responses and 416 responses.
+ */
+public final class ByteRanges {
+
+	private static final String RANGE = "Range";
+	private static final String IF_RANGE = "If-Range";
+	private static final String ACCEPT_RANGES = "Accept-Ranges";
+	private static final String CONTENT_RANGE = "Content-Range";
+
+	/**
+	 * Requests asking for more ranges are served as a whole
+	 */
+	private static final int MAX_RANGES = 32;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private ByteRanges() {
+	}
+
+	/**
+	 * Serves the ranges of a resource requested by the Range header, if any.
+	 * Sets Accept-Ranges for resources of known length.
+	 *
+	 * @param request      current request
+	 * @param response     response, whose ETag and content type are already set
+	 * @param eTag         entity tag of the resource
+	 * @param lastModified last modification time of the resource
+	 * @param length       length of the resource, negative if unknown
+	 * @param mimeType     mime type of the resource, may be null
+	 * @param source       content of the resource
+	 * @return true if a 206 or 416 response was sent, false if the whole resource is to be sent
+	 * @throws IOException if writing the response fails
+	 */
+	public static boolean serve(final HttpServletRequest request, final HttpServletResponse response,
+								final String eTag, final long lastModified, final long length, final String mimeType,
+								final Source source) throws IOException {
+		if (length < 0) {
+			return false;
+		}
+		response.setHeader(ACCEPT_RANGES, "bytes");
+		String range = request.getHeader(RANGE);
+		if (range == null || !ifRange(request, eTag, lastModified)) {
+			return false;
+		}
+		List<Range> ranges = parse(range, length);
+		if (ranges == null) {
+			return false;
+		}
+		if (ranges.isEmpty()) {
+			response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.setHeader(CONTENT_RANGE, "bytes */" + length);
+			response.setContentLength(0);
+			return true;
+		}
+		long total = 0L;
+		for (Range r : ranges) {
+			total += r.length();
+		}
+		if (total >= length) {
+			// the ranges cover the whole resource, a 206 response would only be larger
+			return false;
+		}
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		if (ranges.size() == 1) {
+			Range r = ranges.get(0);
+			response.setHeader(CONTENT_RANGE, r.contentRange(length));
+			response.setContentLengthLong(r.length());
+			OutputStream out = response.getOutputStream();
+			if (out != null) { // null should be just in unit testing
+				source.write(out, r.first, r.length());
+			}
+			return true;
+		}
+
+		String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong())
+				+ Long.toHexString(System.nanoTime());
+		List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+		long contentLength = 0L;
+		for (Range r : ranges) {
+			StringBuilder header = new StringBuilder("\r\n--").append(boundary).append("\r\n");
+			if (mimeType != null) {
+				header.append("Content-Type: ").append(mimeType).append("\r\n");
+			}
+			header.append("Content-Range: ").append(r.contentRange(length)).append("\r\n\r\n");
+			byte[] bytes = header.toString().getBytes(StandardCharsets.ISO_8859_1);
+			partHeaders.add(bytes);
+			contentLength += bytes.length + r.length();
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+		contentLength += end.length;
+
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		response.setContentLengthLong(contentLength);
+		OutputStream out = response.getOutputStream();
+		if (out != null) { // null should be just in unit testing
+			for (int i = 0; i < ranges.size(); i++) {
+				Range r = ranges.get(i);
+				out.write(partHeaders.get(i));
+				source.write(out, r.first, r.length());
+			}
+			out.write(end);
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates the If-Range header of a request. Entity tags are compared
+	 * strongly, dates must equal the last modification time.
+	 *
+	 * @return true if the Range header is to be honored
+	 */
+	static boolean ifRange(final HttpServletRequest request, final String eTag, final long lastModified) {
+		String ifRange = request.getHeader(IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return eTag != null && !ETags.isWeak(eTag) && !ETags.isWeak(ifRange) && eTag.equals(ifRange);
+		}
+		long date;
+		try {
+			date = request.getDateHeader(IF_RANGE);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return date != -1 && lastModified > 0 && lastModified / 1000 == date / 1000;
+	}
+
+	/**
+	 * Parses the value of a Range header.
+	 *
+	 * @param header value of the header
+	 * @param length length of the resource
+	 * @return the satisfiable ranges in ascending order, overlapping and adjacent ones
+	 *         merged (so repeated ranges can't multiply the response), an empty list if
+	 *         none is satisfiable or null if the header is invalid and to be ignored
+	 */
+	public static List<Range> parse(final String header, final long length) {
+		if (header.length() < 6 || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+			return null;
+		}
+		String[] specs = header.substring(6).split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+		List<Range> ranges = new ArrayList<>(specs.length);
+		for (String spec : specs) {
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			try {
+				if (dash == 0) {
+					// suffix range: last n bytes
+					long suffix = Long.parseLong(spec.substring(1));
+					if (suffix < 0) {
+						return null;
+					}
+					if (suffix > 0 && length > 0) {
+						ranges.add(new Range(Math.max(0L, length - suffix), length - 1));
+					}
+					continue;
+				}
+				long first = Long.parseLong(spec.substring(0, dash));
+				long last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+				if (first < 0 || (dash < spec.length() - 1 && last < first)) {
+					return null;
+				}
+				if (first < length) {
+					ranges.add(new Range(first, Math.min(last, length - 1)));
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return merge(ranges);
+	}
+
+	private static List<Range> merge(final List<Range> ranges) {
+		if (ranges.size() < 2) {
+			return ranges;
+		}
+		ranges.sort(Comparator.comparingLong(Range::getFirst));
+		List<Range> merged = new ArrayList<>(ranges.size());
+		Range current = ranges.get(0);
+		for (int i = 1; i < ranges.size(); i++) {
+			Range next = ranges.get(i);
+			if (next.first <= current.last + 1) {
+				current = new Range(current.first, Math.max(current.last, next.last));
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		return merged;
+	}
+
+	/**
+	 * @return content held in memory
+	 */
+	public static Source source(final byte[] content) {
+		return (out, first, length) -> out.write(content, (int) first, (int) length);
+	}
+
+	/**
+	 * @return content read from a url, opened once per range
+	 */
+	public static Source source(final URL url) {
+		return (out, first, length) -> {
+			try (InputStream in = url.openStream()) {
+				long skip = first;
+				while (skip > 0) {
+					long skipped = in.skip(skip);
+					if (skipped <= 0) {
+						if (in.read() < 0) {
+							throw new IOException("Unexpected end of " + url);
+						}
+						skipped = 1;
+					}
+					skip -= skipped;
+				}
+				byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, length)];
+				long remaining = length;
+				while (remaining > 0) {
+					int count = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+					if (count < 0) {
+						throw new IOException("Unexpected end of " + url);
+					}
+					out.write(buffer, 0, count);
+					remaining -= count;
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return content of a file, transferred from a file channel once per range
+	 */
+	public static Source source(final Path file) {
+		return (out, first, length) -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				WritableByteChannel target = Channels.newChannel(out);
+				long position = first;
+				long remaining = length;
+				while (remaining > 0) {
+					long count = channel.transferTo(position, remaining, target);
+					if (count <= 0) {
+						throw new IOException("Unexpected end of " + file);
+					}
+					position += count;
+					remaining -= count;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Content of a resource.
+	 */
+	public interface Source {
+
+		/**
+		 * Writes a region of the content.
+		 */
+		void write(OutputStream out, long first, long length) throws IOException;
+	}
+
+	/**
+	 * Satisfiable byte range, bounds are inclusive.
+	 */
+	public static final class Range {
+
+		private final long first;
+		private final long last;
+
+		Range(final long first, final long last) {
+			this.first = first;
+			this.last = last;
+		}
+
+		public long getFirst() {
+			return first;
+		}
+
+		public long getLast() {
+			return last;
+		}
+
+		public long length() {
+			return last - first + 1;
+		}
+
+		String contentRange(final long length) {
+			return "bytes " + first + "-" + last + "/" + length;
+		}
+
+		@Override
+		public String toString() {
+			return first + "-" + last;
+		}
+	}
+
+}
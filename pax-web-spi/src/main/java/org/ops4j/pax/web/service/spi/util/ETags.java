@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Creation and comparison of HTTP entity tags (RFC 7232). Entity tags are
+ * handled in their header form, i.e. quoted and prefixed with {@code W/} if
+ * weak.
+ */
+public final class ETags {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private ETags() {
+	}
+
+	/**
+	 * Computes a strong entity tag from the SHA-256 digest of some content.
+	 *
+	 * @param content content, read to its end but not closed
+	 * @return strong entity tag
+	 * @throws IOException if the content can not be read
+	 */
+	public static String digest(final InputStream content) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int count;
+		while ((count = content.read(buffer)) >= 0) {
+			digest.update(buffer, 0, count);
+		}
+		return strong(digest.digest());
+	}
+
+	/**
+	 * Computes a strong entity tag from the SHA-256 digest of some content.
+	 *
+	 * @param content content
+	 * @return strong entity tag
+	 */
+	public static String digest(final byte[] content) {
+		return strong(sha256().digest(content));
+	}
+
+	/**
+	 * Creates a weak entity tag from the last modification time of a resource.
+	 *
+	 * @param lastModified last modification time
+	 * @return weak entity tag
+	 */
+	public static String weak(final long lastModified) {
+		return "W/\"" + lastModified + "\"";
+	}
+
+	/**
+	 * Evaluates an If-None-Match header with the weak comparison required for
+	 * GET and HEAD requests.
+	 *
+	 * @param ifNoneMatch value of the header, "*" or a list of entity tags
+	 * @param eTag        current entity tag of the resource
+	 * @return true if one of the listed tags matches
+	 */
+	public static boolean matches(final String ifNoneMatch, final String eTag) {
+		if (ifNoneMatch == null || eTag == null) {
+			return false;
+		}
+		String opaqueTag = opaque(eTag, 0, eTag.length());
+		int length = ifNoneMatch.length();
+		int from = 0;
+		while (from < length) {
+			int to = ifNoneMatch.indexOf(',', from);
+			if (to < 0) {
+				to = length;
+			}
+			int start = from;
+			int end = to;
+			while (start < end && Character.isWhitespace(ifNoneMatch.charAt(start))) {
+				start++;
+			}
+			while (end > start && Character.isWhitespace(ifNoneMatch.charAt(end - 1))) {
+				end--;
+			}
+			if (end - start == 1 && ifNoneMatch.charAt(start) == '*') {
+				return true;
+			}
+			if (end > start && opaqueTag.equals(opaque(ifNoneMatch, start, end))) {
+				return true;
+			}
+			from = to + 1;
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the entity tag is weak
+	 */
+	public static boolean isWeak(final String eTag) {
+		return eTag.startsWith("W/");
+	}
+
+	/**
+	 * @return the entity tag without weakness indicator and quotes
+	 */
+	public static String opaque(final String eTag) {
+		return opaque(eTag, 0, eTag.length());
+	}
+
+	private static String opaque(final String s, final int from, final int to) {
+		int start = s.startsWith("W/", from) ? from + 2 : from;
+		int end = to;
+		if (end - start >= 2 && s.charAt(start) == '"' && s.charAt(end - 1) == '"') {
+			start++;
+			end--;
+		}
+		return s.substring(start, end);
+	}
+
+	private static String strong(final byte[] digest) {
+		return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
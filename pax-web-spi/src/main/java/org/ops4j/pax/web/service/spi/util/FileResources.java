@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+
+/**
+ * Finds the files behind resource urls, so the resource servlets can hand
+ * the container a file channel instead of copying the content through an
+ * input stream. Supported are file urls and entries of bundles installed
+ * from a directory ("reference:file:" locations) with the bundle root as
+ * only class path entry.
+ */
+public final class FileResources {
+
+	private static final FileResources SHARED = new FileResources();
+
+	private static final String REFERENCE = "reference:";
+
+	private final ConcurrentMap<Long, Root> roots = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the instance shared by the resource servlets of all server controllers
+	 */
+	public static FileResources shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Finds the regular file a resource url points to.
+	 *
+	 * @param bundle bundle of the http context serving the resource, may be null
+	 * @param url    url the resource was resolved to, may be null
+	 * @return the file or null if the resource is not backed by a readable regular file
+	 */
+	public Path toFile(final Bundle bundle, final URL url) {
+		if (url == null) {
+			return null;
+		}
+		Path file = null;
+		if ("file".equals(url.getProtocol())) {
+			try {
+				file = Paths.get(url.toURI());
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				return null;
+			}
+		} else if (ResourceCache.isBundleEntry(bundle, url) && BundleEntryIndex.classPathIndex(url) <= 0) {
+			// an entry, or a resource of the bundle root as only class path entry, not of a fragment
+			Path root = getRoot(bundle);
+			String path = url.getPath();
+			if (root == null || path == null) {
+				return null;
+			}
+			while (path.startsWith("/")) {
+				path = path.substring(1);
+			}
+			try {
+				file = root.resolve(path).normalize();
+			} catch (InvalidPathException e) {
+				return null;
+			}
+			if (!file.startsWith(root)) {
+				return null;
+			}
+		}
+		return file != null && Files.isRegularFile(file) && Files.isReadable(file) ? file : null;
+	}
+
+	private Path getRoot(final Bundle bundle) {
+		Root root = roots.get(bundle.getBundleId());
+		if (root == null || root.bundleLastModified != bundle.getLastModified()) {
+			root = new Root(bundle.getLastModified(), findRoot(bundle));
+			roots.put(bundle.getBundleId(), root);
+		}
+		return root.path;
+	}
+
+	private static Path findRoot(final Bundle bundle) {
+		String location;
+		String classPath;
+		try {
+			location = bundle.getLocation();
+			classPath = bundle.getHeaders("").get(Constants.BUNDLE_CLASSPATH);
+		} catch (IllegalStateException | SecurityException e) {
+			return null;
+		}
+		if (location == null || !location.startsWith(REFERENCE + "file:")) {
+			return null;
+		}
+		if (classPath != null && !".".equals(classPath.trim())) {
+			// class path resources don't necessarily map to bundle root relative files
+			return null;
+		}
+		try {
+			Path path = Paths.get(new URI(location.substring(REFERENCE.length()))).toAbsolutePath().normalize();
+			return Files.isDirectory(path) ? path : null;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Forgets the directory of a bundle.
+	 *
+	 * @param bundleId id of an updated or uninstalled bundle
+	 */
+	public void invalidate(final long bundleId) {
+		roots.remove(bundleId);
+	}
+
+	/**
+	 * Forgets the directories of all bundles.
+	 */
+	public void clear() {
+		roots.clear();
+	}
+
+	private static final class Root {
+		private final long bundleLastModified;
+		private final Path path;
+
+		Root(final long bundleLastModified, final Path path) {
+			this.bundleLastModified = bundleLastModified;
+			this.path = path;
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Mime types of one context by file name extension, including extensions
+ * without a known mime type. Used by the resource servlets for the fallbacks
+ * after {@link org.osgi.service.http.HttpContext#getMimeType(String)}, the
+ * last of which connects to the resource url to guess its type; with this
+ * cache that happens once per extension as long as it is remembered.
+ */
+public final class MimeTypeCache {
+
+	private static final String NONE = "";
+
+	private final int maxSize;
+
+	private final ConcurrentMap<String, String> seeded = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, String> resolved = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxSize maximum number of remembered extensions, in addition to the seeded ones
+	 */
+	public MimeTypeCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Adds known mime types, e.g. the default table of the container.
+	 *
+	 * @param mimeTypes mime types by extension
+	 */
+	public void seed(final Map<String, String> mimeTypes) {
+		for (Map.Entry<String, String> mapping : mimeTypes.entrySet()) {
+			if (mapping.getKey() != null && mapping.getValue() != null) {
+				seeded.put(mapping.getKey().toLowerCase(Locale.ENGLISH), mapping.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns the mime type of a resource, resolving it on first request for its extension.
+	 *
+	 * @param name     name or path of the resource
+	 * @param resolver resolves the mime type of a resource, may return null
+	 * @return the mime type or null if unknown
+	 */
+	public String get(final String name, final Function<String, String> resolver) {
+		String extension = extension(name);
+		if (extension == null) {
+			return resolver.apply(name);
+		}
+		String mimeType = seeded.get(extension);
+		if (mimeType == null) {
+			mimeType = resolved.get(extension);
+		}
+		if (mimeType == null) {
+			mimeType = resolver.apply(name);
+			if (mimeType == null) {
+				mimeType = NONE;
+			}
+			if (resolved.size() >= maxSize && !resolved.containsKey(extension)) {
+				// evict an arbitrary extension, its mime type is resolved again when requested
+				Iterator<String> iterator = resolved.keySet().iterator();
+				if (iterator.hasNext()) {
+					iterator.next();
+					iterator.remove();
+				}
+			}
+			resolved.put(extension, mimeType);
+		}
+		return mimeType.isEmpty() ? null : mimeType;
+	}
+
+	/**
+	 * @return number of seeded and remembered extensions
+	 */
+	public int size() {
+		return seeded.size() + resolved.size();
+	}
+
+	/**
+	 * @return lower case extension of the last segment of a path or null if it has none
+	 */
+	static String extension(final String name) {
+		if (name == null) {
+			return null;
+		}
+		int dot = name.lastIndexOf('.');
+		if (dot < 0 || dot == name.length() - 1 || name.indexOf('/', dot) >= 0) {
+			return null;
+		}
+		return name.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+	}
+
+}
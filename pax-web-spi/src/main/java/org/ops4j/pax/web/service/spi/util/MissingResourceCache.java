@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded set of resource paths known to be missing, so that repeated
+ * requests for nonexistent resources are rejected without asking the
+ * framework again. Remembered misses belong to a generation, which is
+ * replaced by {@link #invalidate()} when the set of searched bundles
+ * changes, and carry a stamp (e.g. the latest modification time of these
+ * bundles) that must still be current when they are looked up.
+ */
+public final class MissingResourceCache {
+
+	private final int maxSize;
+
+	private final ConcurrentMap<String, Miss> misses = new ConcurrentHashMap<>();
+
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * @param maxSize maximum number of remembered misses
+	 */
+	public MissingResourceCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return current generation, to be read before a lookup whose miss is remembered
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * @param path  path of a resource
+	 * @param stamp current stamp of the searched bundles
+	 * @return true if the resource is known to be missing
+	 */
+	public boolean isMissing(final String path, final long stamp) {
+		Miss miss = misses.get(path);
+		return miss != null && miss.generation == generation.get() && miss.stamp == stamp;
+	}
+
+	/**
+	 * Remembers a missing resource. A miss of a lookup that started before the last
+	 * invalidation is never reported by {@link #isMissing(String, long)}.
+	 *
+	 * @param path       path of the resource
+	 * @param generation generation read before the lookup
+	 * @param stamp      stamp of the searched bundles read before the lookup
+	 */
+	public void put(final String path, final long generation, final long stamp) {
+		if (generation != this.generation.get()) {
+			return;
+		}
+		if (misses.size() >= maxSize && !misses.containsKey(path)) {
+			// evict an arbitrary entry, its resource is looked up again when requested
+			Iterator<String> iterator = misses.keySet().iterator();
+			if (iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		misses.put(path, new Miss(generation, stamp));
+	}
+
+	/**
+	 * Forgets all misses, e.g. after a bundle was added to or removed from the searched ones.
+	 */
+	public void invalidate() {
+		generation.incrementAndGet();
+		misses.clear();
+	}
+
+	public int size() {
+		return misses.size();
+	}
+
+	private static final class Miss {
+
+		private final long generation;
+		private final long stamp;
+
+		Miss(final long generation, final long stamp) {
+			this.generation = generation;
+			this.stamp = stamp;
+		}
+	}
+
+}
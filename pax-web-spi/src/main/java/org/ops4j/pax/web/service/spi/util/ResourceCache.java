@@ -0,0 +1,834 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * In-memory cache of static resources served by the resource servlets of all
+ * server controllers. Entries are keyed by bundle id, bundle last modification
+ * time, http context and path within the http context, so an updated bundle
+ * never gets the content of its previous revision, and http contexts of the
+ * same bundle mapping a path to different entries never get each other's content. The cache is bounded by the number of
+ * content bytes it holds and evicts the least recently used entries first. Lookups don't lock: an entry only
+ * remembers the last time it was used, counted in puts, so entries used since the last put are equally recent.
+ * <p>
+ * Only content read from entries of the bundle itself (bundle, bundleentry and
+ * bundleresource urls whose host is the bundle id) is cached; content of other
+ * bundles or of the file system may change without the bundle being updated.
+ * <p>
+ * The cache is disabled until {@link #configure(long, long)} is called with a
+ * positive size.
+ * <p>
+ * Independently of the content, the cache remembers the strong entity tags of
+ * bundle entries (see {@link #getETag(Bundle, URL, long, long)}), keyed by the
+ * url of the entry, so a resource is digested once per bundle revision.
+ * <p>
+ * Cached resources may carry content encoded variants (see
+ * {@link #configureEncodings(boolean, Collection)}): precompressed siblings
+ * ("app.js.br", "app.js.gz") found in the bundle and gzip compressed content
+ * of compressible mime types, both prepared when the resource is loaded.
+ * Precompressed siblings of resources which are not cached are streamed from
+ * their urls instead (see {@link #getPrecompressed(String, Function)}), only
+ * compressing content on first request depends on the cache.
+ */
+public final class ResourceCache {
+
+	private static final ResourceCache SHARED = new ResourceCache();
+
+	/**
+	 * Maximum number of remembered entity tags
+	 */
+	private static final int MAX_ETAGS = 16384;
+
+	/**
+	 * Larger entries get entity tags derived from the bundle revision instead of their content
+	 */
+	private static final long MAX_DIGEST_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * Supported content codings in order of preference
+	 */
+	private static final String[] CODINGS = { "br", "gzip" };
+	private static final String[] CODING_EXTENSIONS = { ".br", ".gz" };
+
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Advanced by every put, used entries remember its current value
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	private volatile long maxSize;
+
+	private volatile long maxEntrySize;
+
+	/**
+	 * Guarded by this, like all changes of the entries
+	 */
+	private long size;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final ConcurrentMap<Key, Future<String>> eTags = new ConcurrentHashMap<>();
+
+	private volatile boolean precompressed;
+
+	private volatile Set<String> compressibleMimeTypes = Collections.emptySet();
+
+	/**
+	 * @return the cache shared by the resource servlets of all server controllers
+	 */
+	public static ResourceCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Sets the bounds of this cache, evicting entries that no longer fit.
+	 *
+	 * @param maxSize      maximum number of content bytes held, 0 or less disables the cache
+	 * @param maxEntrySize maximum size of a single cached resource
+	 */
+	public synchronized void configure(final long maxSize, final long maxEntrySize) {
+		this.maxSize = Math.max(0L, maxSize);
+		this.maxEntrySize = Math.max(0L, Math.min(maxSize, maxEntrySize));
+		for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+			if (entry.getValue().content.length > this.maxEntrySize) {
+				remove(entry.getKey(), entry.getValue());
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Configures the content encoded variants prepared for cached resources.
+	 *
+	 * @param precompressed         whether "br" and "gz" siblings of a resource are served
+	 *                              to clients accepting these codings
+	 * @param compressibleMimeTypes mime types (or "type/*" patterns) whose content is gzip
+	 *                              compressed, may be null
+	 */
+	public synchronized void configureEncodings(final boolean precompressed,
+												final Collection<String> compressibleMimeTypes) {
+		this.precompressed = precompressed;
+		Set<String> mimeTypes = new LinkedHashSet<>();
+		if (compressibleMimeTypes != null) {
+			for (String mimeType : compressibleMimeTypes) {
+				if (mimeType != null && !mimeType.trim().isEmpty()) {
+					mimeTypes.add(mimeType.trim().toLowerCase(Locale.ENGLISH));
+				}
+			}
+		}
+		this.compressibleMimeTypes = Collections.unmodifiableSet(mimeTypes);
+		clear();
+	}
+
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * Returns the cached resource of a bundle.
+	 *
+	 * @param bundle  bundle of the http context serving the resource
+	 * @param context the http context resolving the path, compared by identity
+	 * @param path    path of the resource within the http context
+	 * @return cached resource or null
+	 */
+	public Entry get(final Bundle bundle, final Object context, final String path) {
+		if (maxSize == 0 || bundle == null || path == null) {
+			return null;
+		}
+		Entry entry = entries.get(new Key(bundle.getBundleId(), bundle.getLastModified(), context, path));
+		if (entry == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+			entry.use(clock.get());
+		}
+		return entry;
+	}
+
+	/**
+	 * Checks whether a resource may be put into this cache.
+	 *
+	 * @param bundle bundle of the http context serving the resource
+	 * @param url    url the resource was resolved to
+	 * @param length content length of the resource
+	 * @return true if the resource belongs to the bundle and fits the cache
+	 */
+	public boolean isCacheable(final Bundle bundle, final URL url, final long length) {
+		return length > 0 && length <= maxEntrySize && isBundleEntry(bundle, url);
+	}
+
+	static boolean isBundleEntry(final Bundle bundle, final URL url) {
+		if (bundle == null || url == null) {
+			return false;
+		}
+		String protocol = url.getProtocol();
+		if (!"bundle".equals(protocol) && !"bundleentry".equals(protocol) && !"bundleresource".equals(protocol)) {
+			return false;
+		}
+		// Felix and Equinox both use "<bundle id>.<framework/revision id>" as host
+		String host = url.getHost();
+		String id = Long.toString(bundle.getBundleId());
+		return host != null && host.length() > id.length() && host.startsWith(id)
+				&& host.charAt(id.length()) == '.';
+	}
+
+	/**
+	 * Reads a resource and, if it is cacheable, puts it into this cache. The
+	 * returned entry can be served even if the cache did not keep it.
+	 *
+	 * @param bundle       bundle of the http context serving the resource
+	 * @param context      the http context resolving the path, compared by identity
+	 * @param path         path of the resource within the http context
+	 * @param url          url the resource was resolved to
+	 * @param length       content length of the resource
+	 * @param lastModified last modification time of the resource
+	 * @param mimeType     mime type of the resource, may be null
+	 * @param eTag         entity tag of the resource
+	 * @return the loaded resource or null if it is not cacheable
+	 * @throws IOException if the resource can not be read
+	 */
+	public Entry load(final Bundle bundle, final Object context, final String path, final URL url,
+					  final long length, final long lastModified, final String mimeType, final String eTag)
+			throws IOException {
+		return load(bundle, context, path, url, length, lastModified, mimeType, eTag, null);
+	}
+
+	/**
+	 * Reads a resource and, if it is cacheable, puts it into this cache
+	 * together with its content encoded variants.
+	 *
+	 * @param siblings resolves the paths of precompressed siblings to urls, may be null
+	 * @see #load(Bundle, Object, String, URL, long, long, String, String)
+	 */
+	public Entry load(final Bundle bundle, final Object context, final String path, final URL url,
+					  final long length, final long lastModified, final String mimeType, final String eTag,
+					  final Function<String, URL> siblings) throws IOException {
+		if (!isCacheable(bundle, url, length)) {
+			return null;
+		}
+		byte[] content = read(url, length);
+		if (content == null) {
+			return null;
+		}
+		Map<String, Entry> variants = new LinkedHashMap<>();
+		for (int i = 0; i < CODINGS.length; i++) {
+			URL variantUrl = url;
+			byte[] encoded = null;
+			if (precompressed && siblings != null) {
+				URL sibling = siblings.apply(path + CODING_EXTENSIONS[i]);
+				if (sibling != null) {
+					URLConnection connection = sibling.openConnection();
+					long siblingLength = connection.getContentLengthLong();
+					if (isCacheable(bundle, sibling, siblingLength)) {
+						variantUrl = sibling;
+						encoded = read(sibling, siblingLength);
+					}
+				}
+			}
+			if (encoded == null && "gzip".equals(CODINGS[i]) && isCompressible(mimeType)) {
+				encoded = gzip(content);
+			}
+			if (encoded != null && encoded.length < content.length) {
+				variants.put(CODINGS[i], new Entry(variantUrl, encoded, lastModified, mimeType,
+						ETags.digest(encoded), CODINGS[i], Collections.<String, Entry>emptyMap()));
+			}
+		}
+		Entry entry = new Entry(url, content, lastModified, mimeType, eTag, null, variants);
+		put(new Key(bundle.getBundleId(), bundle.getLastModified(), context, path), entry);
+		return entry;
+	}
+
+	private static byte[] read(final URL url, final long length) throws IOException {
+		byte[] content = new byte[(int) length];
+		try (InputStream in = url.openStream()) {
+			int read = 0;
+			while (read < content.length) {
+				int count = in.read(content, read, content.length - read);
+				if (count < 0) {
+					// reported length was wrong, don't cache a truncated resource
+					return null;
+				}
+				read += count;
+			}
+		}
+		return content;
+	}
+
+	private boolean isCompressible(final String mimeType) {
+		Set<String> mimeTypes = compressibleMimeTypes;
+		if (mimeType == null || mimeTypes.isEmpty()) {
+			return false;
+		}
+		String type = mimeType.toLowerCase(Locale.ENGLISH);
+		int semicolon = type.indexOf(';');
+		if (semicolon >= 0) {
+			type = type.substring(0, semicolon).trim();
+		}
+		int slash = type.indexOf('/');
+		return mimeTypes.contains(type) || (slash > 0 && mimeTypes.contains(type.substring(0, slash) + "/*"));
+	}
+
+	private static byte[] gzip(final byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2);
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(content);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Resolves the precompressed siblings of a resource which is not served from
+	 * this cache, because the cache is disabled or the resource is too large.
+	 *
+	 * @param path     path of the resource within the http context
+	 * @param siblings resolves the paths of precompressed siblings to urls
+	 * @return urls of the siblings by content coding in order of preference, empty
+	 *         if there are none or precompressed siblings are not served
+	 */
+	public Map<String, URL> getPrecompressed(final String path, final Function<String, URL> siblings) {
+		if (!precompressed || siblings == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, URL> found = null;
+		for (int i = 0; i < CODINGS.length; i++) {
+			URL sibling = siblings.apply(path + CODING_EXTENSIONS[i]);
+			if (sibling != null) {
+				if (found == null) {
+					found = new LinkedHashMap<>();
+				}
+				found.put(CODINGS[i], sibling);
+			}
+		}
+		return found == null ? Collections.<String, URL>emptyMap() : found;
+	}
+
+	/**
+	 * Selects the precompressed sibling of a resource to send to a client.
+	 *
+	 * @param bundle         bundle of the http context serving the resource
+	 * @param entryIndex     index answering length and last modification time of bundle entries
+	 * @param siblings       siblings returned by {@link #getPrecompressed(String, Function)}
+	 * @param acceptEncoding Accept-Encoding header of the request, may be null
+	 * @return the preferred sibling accepted by the client or null to send the resource itself
+	 * @throws IOException if the sibling can not be read
+	 */
+	public Precompressed selectPrecompressed(final Bundle bundle, final BundleEntryIndex entryIndex,
+											 final Map<String, URL> siblings, final String acceptEncoding)
+			throws IOException {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		for (Map.Entry<String, URL> sibling : siblings.entrySet()) {
+			if (!accepts(acceptEncoding, sibling.getKey())) {
+				continue;
+			}
+			URL url = sibling.getValue();
+			BundleEntryIndex.Entry indexed = entryIndex.get(bundle, url);
+			long length;
+			long lastModified;
+			if (indexed != null) {
+				if (indexed.isDirectory()) {
+					continue;
+				}
+				length = indexed.getLength();
+				lastModified = indexed.getLastModified();
+			} else {
+				URLConnection connection = url.openConnection();
+				length = connection.getContentLengthLong();
+				lastModified = connection.getLastModified();
+				// bundle url connections open the entry when connecting
+				connection.getInputStream().close();
+			}
+			if (length < 0) {
+				// ranges and the content length of the response need the length
+				continue;
+			}
+			String eTag = getETag(bundle, url, lastModified, length);
+			if (ETags.isWeak(eTag)) {
+				// the sibling may be as old as the resource itself
+				eTag = "W/\"" + ETags.opaque(eTag) + "-" + sibling.getKey() + "\"";
+			}
+			return new Precompressed(url, sibling.getKey(), length, lastModified, eTag);
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether an Accept-Encoding header allows a content coding.
+	 *
+	 * @param acceptEncoding value of the header, may be null
+	 * @param coding         content coding
+	 * @return true if the coding is listed, or matched by "*", with a non zero quality
+	 */
+	public static boolean accepts(final String acceptEncoding, final String coding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Boolean wildcard = null;
+		for (String element : acceptEncoding.split(",")) {
+			String[] parameters = element.split(";");
+			String name = parameters[0].trim();
+			boolean acceptable = true;
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						acceptable = Double.parseDouble(parameter.substring(2).trim()) > 0d;
+					} catch (NumberFormatException e) {
+						acceptable = false;
+					}
+				}
+			}
+			if (name.equalsIgnoreCase(coding)) {
+				return acceptable;
+			}
+			if ("*".equals(name)) {
+				wildcard = acceptable;
+			}
+		}
+		return wildcard != null && wildcard;
+	}
+
+	/**
+	 * Returns the entity tag of a resource. Entries of the bundle itself get a
+	 * strong tag once per bundle revision, computed from their content or, for
+	 * entries larger than {@value #MAX_DIGEST_SIZE} bytes, from the bundle revision
+	 * and their url (an entry does not change within a revision). Other resources
+	 * get a weak tag derived from their last modification time.
+	 * <p>
+	 * Concurrent requests for the tag of an entry wait for a single computation.
+	 *
+	 * @param bundle       bundle of the http context serving the resource
+	 * @param url          url the resource was resolved to
+	 * @param lastModified last modification time of the resource
+	 * @param length       content length of the resource, negative if unknown
+	 * @return entity tag in header form
+	 * @throws IOException if the resource can not be read
+	 */
+	public String getETag(final Bundle bundle, final URL url, final long lastModified, final long length)
+			throws IOException {
+		if (!isBundleEntry(bundle, url)) {
+			return ETags.weak(lastModified);
+		}
+		final long bundleLastModified = bundle.getLastModified();
+		// the url, not the requested path, identifies the entry in every http context
+		Key key = new Key(bundle.getBundleId(), bundleLastModified, null, url.toExternalForm());
+		Future<String> eTag = eTags.get(key);
+		if (eTag == null) {
+			FutureTask<String> task = new FutureTask<>(() -> {
+				if (length > MAX_DIGEST_SIZE) {
+					return ETags.digest((bundle.getBundleId() + "/" + bundleLastModified + "/" + url.toExternalForm())
+							.getBytes(StandardCharsets.UTF_8));
+				}
+				try (InputStream in = url.openStream()) {
+					return ETags.digest(in);
+				}
+			});
+			eTag = eTags.putIfAbsent(key, task);
+			if (eTag == null) {
+				if (eTags.size() > MAX_ETAGS) {
+					// evict an arbitrary other entry, it is computed again when requested
+					Iterator<Key> iterator = eTags.keySet().iterator();
+					while (iterator.hasNext()) {
+						if (!iterator.next().equals(key)) {
+							iterator.remove();
+							break;
+						}
+					}
+				}
+				eTag = task;
+				task.run();
+			}
+		}
+		try {
+			return eTag.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while computing the entity tag of " + url, e);
+		} catch (ExecutionException e) {
+			// not remembered, the next request tries again
+			eTags.remove(key, eTag);
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private synchronized void put(final Key key, final Entry entry) {
+		if (maxSize == 0 || entry.content.length > maxEntrySize) {
+			return;
+		}
+		entry.used = clock.incrementAndGet();
+		Entry previous = entries.put(key, entry);
+		if (previous != null) {
+			size -= previous.size;
+		}
+		size += entry.size;
+		evict();
+	}
+
+	/**
+	 * Evicts least recently used entries until at most {@code maxSize} bytes are held.
+	 */
+	private void evict() {
+		if (size <= maxSize) {
+			return;
+		}
+		// entries may be used meanwhile, so they are ordered by a snapshot of their last use
+		List<Candidate> candidates = new ArrayList<>(entries.size());
+		for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+			candidates.add(new Candidate(entry.getKey(), entry.getValue()));
+		}
+		candidates.sort(Comparator.comparingLong(candidate -> candidate.used));
+		for (Candidate candidate : candidates) {
+			if (size <= maxSize) {
+				break;
+			}
+			if (remove(candidate.key, candidate.entry)) {
+				evictions.increment();
+			}
+		}
+	}
+
+	private boolean remove(final Key key, final Entry entry) {
+		if (entries.remove(key, entry)) {
+			size -= entry.size;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all resources of a bundle, to be called when it is updated or uninstalled.
+	 *
+	 * @param bundleId id of the bundle
+	 */
+	public synchronized void invalidate(final long bundleId) {
+		eTags.keySet().removeIf(key -> key.bundleId == bundleId);
+		for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+			if (entry.getKey().bundleId == bundleId) {
+				remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Removes all resources of an http context, to be called when it is no longer used,
+	 * so neither the resources nor the context are kept.
+	 *
+	 * @param context the http context resolving the paths, compared by identity
+	 */
+	public synchronized void invalidateContext(final Object context) {
+		if (context == null) {
+			return;
+		}
+		for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+			if (entry.getKey().context == context) {
+				remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached resources.
+	 */
+	public synchronized void clear() {
+		eTags.clear();
+		entries.clear();
+		size = 0L;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public long getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	/**
+	 * @return number of content bytes, including content encoded variants, currently held
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceCache{maxSize=" + maxSize + ",size=" + getSize() + ",entries=" + getEntryCount()
+				+ ",hits=" + getHitCount() + ",misses=" + getMissCount() + ",evictions=" + getEvictionCount() + "}";
+	}
+
+	/**
+	 * Precompressed sibling of a resource which is not cached, streamed from its url.
+	 */
+	public static final class Precompressed {
+
+		private final URL url;
+		private final String contentEncoding;
+		private final long contentLength;
+		private final long lastModified;
+		private final String eTag;
+
+		Precompressed(final URL url, final String contentEncoding, final long contentLength,
+					  final long lastModified, final String eTag) {
+			this.url = url;
+			this.contentEncoding = contentEncoding;
+			this.contentLength = contentLength;
+			this.lastModified = lastModified;
+			this.eTag = eTag;
+		}
+
+		public URL getUrl() {
+			return url;
+		}
+
+		public String getContentEncoding() {
+			return contentEncoding;
+		}
+
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+	}
+
+	/**
+	 * Cached content and metadata of a single resource.
+	 */
+	public static final class Entry {
+
+		private final URL url;
+		private final byte[] content;
+		private final long lastModified;
+		private final String mimeType;
+		private final String eTag;
+		private final String contentEncoding;
+		private final Map<String, Entry> variants;
+		private final long size;
+		/**
+		 * Value of the clock of the cache when the entry was last used
+		 */
+		private volatile long used;
+
+		Entry(final URL url, final byte[] content, final long lastModified, final String mimeType,
+			  final String eTag) {
+			this(url, content, lastModified, mimeType, eTag, null, Collections.<String, Entry>emptyMap());
+		}
+
+		Entry(final URL url, final byte[] content, final long lastModified, final String mimeType,
+			  final String eTag, final String contentEncoding, final Map<String, Entry> variants) {
+			this.url = url;
+			this.content = content;
+			this.lastModified = lastModified;
+			this.mimeType = mimeType;
+			this.eTag = eTag;
+			this.contentEncoding = contentEncoding;
+			this.variants = variants;
+			long total = content.length;
+			for (Entry variant : variants.values()) {
+				total += variant.content.length;
+			}
+			this.size = total;
+		}
+
+		void use(final long clock) {
+			// popular entries are mostly used at the current value already, which saves the write
+			if (used != clock) {
+				used = clock;
+			}
+		}
+
+		/**
+		 * Selects the representation to send to a client.
+		 *
+		 * @param acceptEncoding Accept-Encoding header of the request, may be null
+		 * @return the preferred content encoded variant accepted by the client or this entry
+		 */
+		public Entry select(final String acceptEncoding) {
+			if (acceptEncoding != null) {
+				for (Map.Entry<String, Entry> variant : variants.entrySet()) {
+					if (accepts(acceptEncoding, variant.getKey())) {
+						return variant.getValue();
+					}
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * @return true if responses depend on the Accept-Encoding header
+		 */
+		public boolean hasVariants() {
+			return !variants.isEmpty();
+		}
+
+		/**
+		 * @return content coding of a variant or null
+		 */
+		public String getContentEncoding() {
+			return contentEncoding;
+		}
+
+		/**
+		 * @return the url the content was read from
+		 */
+		public URL getUrl() {
+			return url;
+		}
+
+		/**
+		 * @return the content, shared by all users of the entry and not to be modified
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+
+		public int getContentLength() {
+			return content.length;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public String getMimeType() {
+			return mimeType;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+	}
+
+	private static final class Candidate {
+
+		private final Key key;
+		private final Entry entry;
+		private final long used;
+
+		Candidate(final Key key, final Entry entry) {
+			this.key = key;
+			this.entry = entry;
+			this.used = entry.used;
+		}
+	}
+
+	private static final class Key {
+
+		private final long bundleId;
+		private final long bundleLastModified;
+		private final Object context;
+		private final String path;
+
+		Key(final long bundleId, final long bundleLastModified, final Object context, final String path) {
+			this.bundleId = bundleId;
+			this.bundleLastModified = bundleLastModified;
+			this.context = context;
+			this.path = path;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return bundleId == key.bundleId && bundleLastModified == key.bundleLastModified
+					&& context == key.context && path.equals(key.path);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = Long.hashCode(bundleId);
+			result = 31 * result + Long.hashCode(bundleLastModified);
+			result = 31 * result + System.identityHashCode(context);
+			return 31 * result + path.hashCode();
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Base64;
+import java.util.function.Function;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Content fingerprinted paths of static resources: "/static/app.js" is also
+ * served as "/static/app.3f2a9c0e1b.js", where "3f2a9c0e1b" is derived from
+ * the SHA-256 digest of its content. As such a path changes whenever the
+ * content does, it is served as immutable and clients never revalidate it.
+ * Only entries of the bundle of the http context are fingerprinted; their
+ * digests are the entity tags remembered by the {@link ResourceCache}.
+ */
+public final class ResourceFingerprints {
+
+	/**
+	 * Init parameter of resource servlets which also serve fingerprinted paths
+	 */
+	public static final String INIT_PARAM = "org.ops4j.pax.web.resources.fingerprinted";
+
+	public static final String CACHE_CONTROL = "Cache-Control";
+
+	/**
+	 * Cache-Control of resources requested by their current fingerprinted path
+	 */
+	public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	/**
+	 * Number of digest bytes in a fingerprint, each written as two hex digits
+	 */
+	private static final int LENGTH = 5;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ResourceFingerprints SHARED = new ResourceFingerprints(ResourceCache.shared());
+
+	private final ResourceCache resourceCache;
+
+	ResourceFingerprints(final ResourceCache resourceCache) {
+		this.resourceCache = resourceCache;
+	}
+
+	/**
+	 * @return the fingerprints based on the entity tags of the shared {@link ResourceCache}
+	 */
+	public static ResourceFingerprints shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the fingerprint of a resource.
+	 *
+	 * @param bundle bundle of the http context serving the resource
+	 * @param url    url the resource was resolved to
+	 * @return the fingerprint or null if the resource is not an entry of the bundle
+	 * @throws IOException if the resource can not be read
+	 */
+	public String fingerprint(final Bundle bundle, final URL url) throws IOException {
+		if (!ResourceCache.isBundleEntry(bundle, url)) {
+			return null;
+		}
+		byte[] digest = Base64.getUrlDecoder().decode(ETags.opaque(resourceCache.getETag(bundle, url, 0L, -1L)));
+		char[] fingerprint = new char[LENGTH * 2];
+		for (int i = 0; i < LENGTH; i++) {
+			fingerprint[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+			fingerprint[2 * i + 1] = HEX[digest[i] & 0xf];
+		}
+		return new String(fingerprint);
+	}
+
+	/**
+	 * Maps a requested path to the path of the resource to serve. If the path is not a
+	 * resource itself, but the fingerprinted path of an existing resource, the path of that resource is returned
+	 * and, if the fingerprint is the current one, the response is marked immutable.
+	 * Outdated fingerprints (of links cached before the bundle was updated) are served
+	 * the current content without that mark.
+	 *
+	 * @param bundle    bundle of the http context
+	 * @param path      requested path within the http context
+	 * @param resources resolves paths within the http context to urls
+	 * @param response  response of the request
+	 * @return path of the resource to serve, the requested path if it is not fingerprinted
+	 */
+	public String resolve(final Bundle bundle, final String path, final Function<String, URL> resources,
+						  final HttpServletResponse response) {
+		if (bundle == null || path == null) {
+			return path;
+		}
+		int end = path.length();
+		int dot = path.lastIndexOf('.');
+		if (dot > path.lastIndexOf('/') && !isFingerprint(path, dot + 1, end)) {
+			// "app.<fingerprint>.js"
+			end = dot;
+			dot = path.lastIndexOf('.', end - 1);
+		}
+		if (dot <= path.lastIndexOf('/') || !isFingerprint(path, dot + 1, end)) {
+			return path;
+		}
+		if (resources.apply(path) != null) {
+			// an existing resource which only looks fingerprinted, e.g. hashed output of a bundler
+			return path;
+		}
+		String resourcePath = path.substring(0, dot) + path.substring(end);
+		URL url = resources.apply(resourcePath);
+		if (!ResourceCache.isBundleEntry(bundle, url)) {
+			return path;
+		}
+		try {
+			if (path.regionMatches(dot + 1, fingerprint(bundle, url), 0, LENGTH * 2)) {
+				response.setHeader(CACHE_CONTROL, IMMUTABLE);
+			}
+		} catch (IOException e) {
+			// the resource itself is served, or fails, as if requested without fingerprint
+		}
+		return resourcePath;
+	}
+
+	/**
+	 * Inserts a fingerprint into the last segment of a path, before its extension if any.
+	 *
+	 * @return fingerprinted path, e.g. "/static/app.3f2a9c0e1b.js" for "/static/app.js"
+	 */
+	public static String fingerprinted(final String path, final String fingerprint) {
+		int dot = path.lastIndexOf('.');
+		if (dot <= path.lastIndexOf('/')) {
+			return path + "." + fingerprint;
+		}
+		return path.substring(0, dot) + "." + fingerprint + path.substring(dot);
+	}
+
+	private static boolean isFingerprint(final String path, final int from, final int to) {
+		if (to - from != LENGTH * 2) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = path.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
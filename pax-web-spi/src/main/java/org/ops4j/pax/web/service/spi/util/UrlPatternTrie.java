@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable segment trie over full url patterns (context name already
+ * prepended). Each node represents one path segment and may carry an exact
+ * mapping, a prefix ("/*") mapping and extension ("*.ext") mappings; the "/"
+ * pattern is the default mapping.
+ * <p>
+ * {@link #match(String)} walks the request path backwards one segment at a
+ * time and probes the nodes in the same order as the former string based
+ * lookup in {@code ServerModel}, so the precedence between prefix, exact,
+ * extension and default mappings is unchanged. Lookups compare path regions
+ * in place and do not allocate.
+ *
+ * @param <T> type of the value mapped to a pattern
+ */
+public final class UrlPatternTrie<T> {
+
+	private static final UrlPatternTrie<?> EMPTY = new UrlPatternTrie<>(new HashMap<String, Object>());
+
+	private final Node<T> root;
+
+	private final T defaultValue;
+
+	private final int size;
+
+	/**
+	 * Builds a trie from a map of full url patterns.
+	 *
+	 * @param patterns url patterns mapped to values
+	 */
+	public UrlPatternTrie(final Map<String, ? extends T> patterns) {
+		Node<T> rootNode = new Node<>(null);
+		int count = 0;
+		for (Map.Entry<String, ? extends T> entry : patterns.entrySet()) {
+			if (entry.getValue() != null && put(rootNode, entry.getKey(), entry.getValue())) {
+				count++;
+			}
+		}
+		rootNode.freeze();
+		this.root = rootNode;
+		Node<T> slash = rootNode.child("", 0, 0);
+		this.defaultValue = slash == null ? null : slash.exact;
+		this.size = count;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> UrlPatternTrie<T> empty() {
+		return (UrlPatternTrie<T>) EMPTY;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Matches a request path (starting with "/") against the registered
+	 * patterns.
+	 *
+	 * @param path request path
+	 * @return the value of the best matching pattern or null if none matches
+	 */
+	public T match(final String path) {
+		if (size == 0 || path == null || path.isEmpty() || path.charAt(0) != '/') {
+			return null;
+		}
+		final int length = path.length();
+
+		// descend as deep as the registered segments allow
+		Node<T> deepest = root;
+		int deepestEnd = 0;
+		int from = 1;
+		while (true) {
+			int to = path.indexOf('/', from);
+			if (to < 0) {
+				to = length;
+			}
+			Node<T> child = deepest.child(path, from, to);
+			if (child == null) {
+				break;
+			}
+			deepest = child;
+			deepestEnd = to;
+			if (to == length) {
+				break;
+			}
+			from = to + 1;
+		}
+
+		// walk back one segment at a time; current is the node of
+		// path[0, end) or null if no pattern was registered that deep
+		int end = length;
+		Node<T> current = end == deepestEnd ? deepest : null;
+		while (end > 0) {
+			final int parentEnd = path.lastIndexOf('/', end - 1);
+			final Node<T> parent = parentEnd == deepestEnd ? deepest : (current == null ? null : current.parent);
+			final boolean lastSegmentEmpty = parentEnd == end - 1;
+
+			T matched = lastSegmentEmpty ? prefixOf(parent) : prefixOf(current);
+			if (matched == null) {
+				matched = exactOf(current);
+			}
+			if (matched != null) {
+				return matched;
+			}
+			if (lastSegmentEmpty) {
+				// "/" has been fully probed, or the "/*" of the parent was
+				// already probed above
+				current = parent;
+				end = parentEnd;
+				continue;
+			}
+
+			final int dot = path.lastIndexOf('.', end - 1);
+			if (dot > parentEnd) {
+				if (end - dot > 1 && parent != null) {
+					matched = parent.extension(path, dot + 1, end);
+				}
+			} else if (parentEnd > 0 && path.charAt(parentEnd - 1) == '/') {
+				// parent path ends with a slash, so its "*" is the wildcard of
+				// the grand parent
+				Node<T> grandParent = parentEnd - 1 == deepestEnd ? deepest : (parent == null ? null : parent.parent);
+				matched = prefixOf(grandParent);
+			} else {
+				matched = prefixOf(parent);
+			}
+			if (matched == null) {
+				matched = exactOf(parent);
+			}
+			if (matched == null && parentEnd == 0) {
+				matched = defaultValue;
+			}
+			if (matched != null) {
+				return matched;
+			}
+			current = parent;
+			end = parentEnd;
+		}
+		return null;
+	}
+
+	private static <T> T prefixOf(final Node<T> node) {
+		return node == null ? null : node.prefix;
+	}
+
+	private static <T> T exactOf(final Node<T> node) {
+		return node == null ? null : node.exact;
+	}
+
+	/**
+	 * Adds a full url pattern to the (still mutable) trie.
+	 *
+	 * @return true if the pattern can be reached by {@link #match(String)}
+	 */
+	private static <T> boolean put(final Node<T> root, final String pattern, final T value) {
+		if (pattern == null) {
+			return false;
+		}
+		if (pattern.startsWith("*.") && pattern.length() > 2 && pattern.indexOf('/') < 0) {
+			root.putExtension(pattern.substring(2), value);
+			return true;
+		}
+		if (!pattern.isEmpty() && pattern.charAt(0) != '/') {
+			// such patterns were never reachable
+			return false;
+		}
+		if (pattern.endsWith("/*")) {
+			node(root, pattern, pattern.length() - 2).prefix = value;
+			return true;
+		}
+		int extensionStart = pattern.lastIndexOf("/*.");
+		if (extensionStart > 0 && pattern.length() > extensionStart + 3
+				&& pattern.indexOf('/', extensionStart + 1) < 0) {
+			node(root, pattern, extensionStart).putExtension(pattern.substring(extensionStart + 3), value);
+			return true;
+		}
+		node(root, pattern, pattern.length()).exact = value;
+		return true;
+	}
+
+	/**
+	 * Returns (creating as needed) the node for {@code pattern[0, end)}.
+	 */
+	private static <T> Node<T> node(final Node<T> root, final String pattern, final int end) {
+		Node<T> node = root;
+		if (end == 0) {
+			return node;
+		}
+		int from = 1;
+		while (true) {
+			int to = pattern.indexOf('/', from);
+			if (to < 0 || to > end) {
+				to = end;
+			}
+			node = node.getOrCreateChild(pattern.substring(from, to));
+			if (to == end) {
+				return node;
+			}
+			from = to + 1;
+		}
+	}
+
+	private static final class Node<T> {
+
+		private final Node<T> parent;
+		private T exact;
+		private T prefix;
+
+		private Map<String, Node<T>> childrenToFreeze = new HashMap<>();
+		private Map<String, T> extensionsToFreeze = new HashMap<>();
+
+		private RegionMap<Node<T>> children;
+		private RegionMap<T> extensions;
+
+		Node(final Node<T> parent) {
+			this.parent = parent;
+		}
+
+		Node<T> getOrCreateChild(final String segment) {
+			return childrenToFreeze.computeIfAbsent(segment, s -> new Node<>(this));
+		}
+
+		void putExtension(final String extension, final T value) {
+			extensionsToFreeze.put(extension, value);
+		}
+
+		void freeze() {
+			for (Node<T> child : childrenToFreeze.values()) {
+				child.freeze();
+			}
+			children = RegionMap.of(childrenToFreeze);
+			extensions = RegionMap.of(extensionsToFreeze);
+			childrenToFreeze = null;
+			extensionsToFreeze = null;
+		}
+
+		Node<T> child(final String path, final int from, final int to) {
+			return children == null ? null : children.get(path, from, to);
+		}
+
+		T extension(final String path, final int from, final int to) {
+			return extensions == null ? null : extensions.get(path, from, to);
+		}
+	}
+
+	/**
+	 * Open addressing hash table with string keys that can be probed with a
+	 * region of another string, without creating a substring.
+	 */
+	private static final class RegionMap<V> {
+
+		private final String[] keys;
+		private final Object[] values;
+		private final int mask;
+
+		private RegionMap(final int capacity) {
+			keys = new String[capacity];
+			values = new Object[capacity];
+			mask = capacity - 1;
+		}
+
+		static <V> RegionMap<V> of(final Map<String, V> map) {
+			if (map.isEmpty()) {
+				return null;
+			}
+			int capacity = 2;
+			while (capacity < map.size() * 2) {
+				capacity <<= 1;
+			}
+			RegionMap<V> regionMap = new RegionMap<>(capacity);
+			for (Map.Entry<String, V> entry : map.entrySet()) {
+				String key = entry.getKey();
+				int index = spread(key.hashCode()) & regionMap.mask;
+				while (regionMap.keys[index] != null) {
+					index = (index + 1) & regionMap.mask;
+				}
+				regionMap.keys[index] = key;
+				regionMap.values[index] = entry.getValue();
+			}
+			return regionMap;
+		}
+
+		@SuppressWarnings("unchecked")
+		V get(final String s, final int from, final int to) {
+			int hash = 0;
+			for (int i = from; i < to; i++) {
+				hash = 31 * hash + s.charAt(i);
+			}
+			final int length = to - from;
+			int index = spread(hash) & mask;
+			String key;
+			while ((key = keys[index]) != null) {
+				if (key.length() == length && s.regionMatches(from, key, 0, length)) {
+					return (V) values[index];
+				}
+				index = (index + 1) & mask;
+			}
+			return null;
+		}
+
+		private static int spread(final int hash) {
+			return hash ^ (hash >>> 16);
+		}
+	}
+
+}
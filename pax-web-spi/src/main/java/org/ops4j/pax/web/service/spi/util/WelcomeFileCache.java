@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Welcome files resolved for the directories of one context, including
+ * directories without a welcome file. The cache is dropped when the welcome
+ * files of the context or the revision of its bundle change.
+ *
+ * @param <T> resolved welcome file, e.g. its name or url
+ */
+public final class WelcomeFileCache<T> {
+
+	private static final Object NONE = new Object();
+
+	private final int maxSize;
+
+	private volatile State state = new State(null, null);
+
+	/**
+	 * @param maxSize maximum number of directories remembered
+	 */
+	public WelcomeFileCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the welcome file of a directory, resolving it on first request.
+	 *
+	 * @param bundle       bundle of the context, nothing is cached if null
+	 * @param welcomeFiles current welcome files of the context, compared by identity
+	 * @param directory    path of the directory within the context
+	 * @param resolver     resolves the welcome file of a directory
+	 * @return the welcome file or null if the directory has none
+	 * @throws IOException if resolving fails
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(final Bundle bundle, final Object welcomeFiles, final String directory,
+				 final Resolver<T> resolver) throws IOException {
+		if (bundle == null) {
+			return resolver.resolve(directory);
+		}
+		State current = state;
+		Long bundleLastModified = bundle.getLastModified();
+		if (current.welcomeFiles != welcomeFiles || !bundleLastModified.equals(current.bundleLastModified)) {
+			current = new State(welcomeFiles, bundleLastModified);
+			state = current;
+		}
+		Object welcome = current.resolved.get(directory);
+		if (welcome == null) {
+			T resolved = resolver.resolve(directory);
+			welcome = resolved == null ? NONE : resolved;
+			if (current.resolved.size() >= maxSize) {
+				// drop an arbitrary directory, it is resolved again when requested
+				Iterator<String> iterator = current.resolved.keySet().iterator();
+				if (iterator.hasNext()) {
+					iterator.next();
+					iterator.remove();
+				}
+			}
+			current.resolved.put(directory, welcome);
+		}
+		return welcome == NONE ? null : (T) welcome;
+	}
+
+	/**
+	 * Drops all resolved welcome files, e.g. after welcome files were registered or unregistered.
+	 */
+	public void clear() {
+		state = new State(null, null);
+	}
+
+	/**
+	 * @return number of remembered directories
+	 */
+	public int size() {
+		return state.resolved.size();
+	}
+
+	/**
+	 * Resolves the welcome file of a directory.
+	 */
+	public interface Resolver<T> {
+
+		/**
+		 * @return the welcome file of the directory or null
+		 */
+		T resolve(String directory) throws IOException;
+	}
+
+	private static final class State {
+		private final Object welcomeFiles;
+		private final Long bundleLastModified;
+		private final ConcurrentMap<String, Object> resolved = new ConcurrentHashMap<>();
+
+		State(final Object welcomeFiles, final Long bundleLastModified) {
+			this.welcomeFiles = welcomeFiles;
+			this.bundleLastModified = bundleLastModified;
+		}
+	}
+
+}
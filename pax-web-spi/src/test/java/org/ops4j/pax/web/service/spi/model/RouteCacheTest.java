@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.model;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.ops4j.pax.web.service.WebContainerContext;
+
+public class RouteCacheTest {
+
+	private final ContextModel contextModel = new ContextModel(createMock(WebContainerContext.class), null,
+			getClass().getClassLoader(), null);
+
+	@Test
+	public void hitWithinGeneration() {
+		RouteCache cache = new RouteCache(10);
+		assertNull(cache.get("default", "/foo", 1L));
+		cache.put("default", "/foo", 1L, contextModel);
+		assertSame(contextModel, cache.get("default", "/foo", 1L).getContextModel());
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+	}
+
+	@Test
+	public void unmatchedPathsAreCached() {
+		RouteCache cache = new RouteCache(10);
+		cache.put("default", "/missing", 1L, null);
+		RouteCache.Route route = cache.get("default", "/missing", 1L);
+		assertNotNull(route);
+		assertNull(route.getContextModel());
+	}
+
+	@Test
+	public void newGenerationInvalidates() {
+		RouteCache cache = new RouteCache(10);
+		cache.put("default", "/foo", 1L, contextModel);
+		assertNull(cache.get("default", "/foo", 2L));
+		cache.put("default", "/bar", 2L, contextModel);
+		assertEquals(1, cache.size());
+		// late put resolved against the replaced generation is ignored
+		cache.put("default", "/foo", 1L, contextModel);
+		assertNull(cache.get("default", "/foo", 2L));
+	}
+
+	@Test
+	public void boundedPerVirtualHost() {
+		RouteCache cache = new RouteCache(2);
+		for (int i = 0; i < 10; i++) {
+			cache.put("default", "/" + i, 1L, contextModel);
+			cache.put("other", "/" + i, 1L, contextModel);
+		}
+		assertEquals(4, cache.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMustBePositive() {
+		new RouteCache(0);
+	}
+
+}
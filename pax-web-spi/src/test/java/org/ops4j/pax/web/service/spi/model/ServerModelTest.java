@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.model;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Hashtable;
+
+import javax.servlet.Filter;
+import javax.servlet.Servlet;
+
+import org.junit.Test;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.WebContainerContext;
+
+public class ServerModelTest {
+
+	private ContextModel context(final String contextName) {
+		ContextModel contextModel = new ContextModel(createMock(WebContainerContext.class), null,
+				getClass().getClassLoader(), null);
+		Hashtable<String, String> contextParams = new Hashtable<>();
+		contextParams.put(WebContainerConstants.CONTEXT_NAME, contextName);
+		contextModel.setContextParams(contextParams);
+		return contextModel;
+	}
+
+	private static ServletModel servlet(final ContextModel contextModel, final String... urlPatterns) {
+		return new ServletModel(contextModel, createMock(Servlet.class), null, urlPatterns, null,
+				new Hashtable<>(), null, null, null);
+	}
+
+	private static FilterModel filter(final ContextModel contextModel, final String... urlPatterns) {
+		return new FilterModel(contextModel, createMock(Filter.class), urlPatterns, null,
+				new Hashtable<>(), false);
+	}
+
+	@Test
+	public void mostSpecificFilterPatternMatches() {
+		ServerModel serverModel = new ServerModel();
+		ContextModel root = context("");
+		ContextModel app = context("app");
+		ContextModel admin = context("app/admin");
+		serverModel.addFilterModel(filter(root, "/*"));
+		serverModel.addFilterModel(filter(app, "/*"));
+		serverModel.addFilterModel(filter(admin, "/*", "*.do"));
+
+		assertSame(root, serverModel.matchPathToContext("/other/page"));
+		assertSame(app, serverModel.matchPathToContext("/app"));
+		assertSame(app, serverModel.matchPathToContext("/app/page"));
+		assertSame(admin, serverModel.matchPathToContext("/app/admin/page"));
+		// a prefix match wins over an extension match
+		assertSame(app, serverModel.matchPathToContext("/app/run.do"));
+		assertSame(root, serverModel.matchPathToContext("/application"));
+	}
+
+	@Test
+	public void servletsMatchBeforeFilters() throws Exception {
+		ServerModel serverModel = new ServerModel();
+		ContextModel root = context("");
+		ContextModel app = context("app");
+		serverModel.addFilterModel(filter(app, "/*"));
+		serverModel.addServletModel(servlet(root, "/app/servlet"));
+
+		assertSame(root, serverModel.matchPathToContext("/app/servlet"));
+		assertSame(app, serverModel.matchPathToContext("/app/page"));
+	}
+
+	@Test
+	public void routingFollowsRegistrations() throws Exception {
+		ServerModel serverModel = new ServerModel(10);
+		ContextModel root = context("");
+		ContextModel app = context("app");
+		ServletModel rootServlet = servlet(root, "/*");
+		serverModel.addServletModel(rootServlet);
+		assertSame(root, serverModel.matchPathToContext("/app/page"));
+
+		long generation = serverModel.getGeneration();
+		ServletModel appServlet = servlet(app, "/*");
+		serverModel.addServletModel(appServlet);
+		assertTrue(serverModel.getGeneration() > generation);
+		// the route remembered before the registration is not used anymore
+		assertSame(app, serverModel.matchPathToContext("/app/page"));
+
+		serverModel.removeServletModel(appServlet);
+		assertSame(root, serverModel.matchPathToContext("/app/page"));
+
+		serverModel.removeServletModel(rootServlet);
+		assertNull(serverModel.matchPathToContext("/app/page"));
+	}
+
+	@Test
+	public void routingFollowsFilterRegistrations() {
+		ServerModel serverModel = new ServerModel(10);
+		ContextModel app = context("app");
+		FilterModel filterModel = filter(app, "/*");
+		assertNull(serverModel.matchPathToContext("/app/page"));
+
+		serverModel.addFilterModel(filterModel);
+		assertSame(app, serverModel.matchPathToContext("/app/page"));
+
+		serverModel.removeFilterModel(filterModel);
+		assertNull(serverModel.matchPathToContext("/app/page"));
+	}
+
+}
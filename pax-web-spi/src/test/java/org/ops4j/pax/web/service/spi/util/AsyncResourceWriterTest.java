@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+public class AsyncResourceWriterTest {
+
+	private static HttpServletRequest request(final DispatcherType type, final String method,
+											  final boolean asyncSupported) {
+		HttpServletRequest request = createMock(HttpServletRequest.class);
+		expect(request.getDispatcherType()).andReturn(type).anyTimes();
+		expect(request.getMethod()).andReturn(method).anyTimes();
+		expect(request.isAsyncSupported()).andReturn(asyncSupported).anyTimes();
+		expect(request.isAsyncStarted()).andReturn(false).anyTimes();
+		return request;
+	}
+
+	@Test
+	public void onlyLargeResourcesOfPlainRequestsAreAccepted() {
+		AsyncResourceWriter writer = new AsyncResourceWriter();
+		HttpServletRequest get = request(DispatcherType.REQUEST, "GET", true);
+		HttpServletRequest head = request(DispatcherType.REQUEST, "HEAD", true);
+		HttpServletRequest include = request(DispatcherType.INCLUDE, "GET", true);
+		HttpServletRequest blocking = request(DispatcherType.REQUEST, "GET", false);
+		replay(get, head, include, blocking);
+
+		// disabled by default
+		assertFalse(writer.accepts(get, 1000L));
+
+		writer.configure(100L);
+		assertTrue(writer.accepts(get, 100L));
+		assertFalse(writer.accepts(get, 99L));
+		assertFalse(writer.accepts(get, -1L));
+		assertFalse(writer.accepts(head, 1000L));
+		assertFalse(writer.accepts(include, 1000L));
+		assertFalse(writer.accepts(blocking, 1000L));
+	}
+
+	@Test
+	public void contentIsWrittenWhileOutputIsReady() throws IOException {
+		AsyncResourceWriter writer = new AsyncResourceWriter();
+		writer.configure(1L);
+		byte[] content = new byte[40000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+
+		Output out = new Output();
+		HttpServletRequest request = request(DispatcherType.REQUEST, "GET", true);
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		AsyncContext asyncContext = createMock(AsyncContext.class);
+		expect(response.getOutputStream()).andReturn(out).anyTimes();
+		response.setContentLengthLong(content.length);
+		expectLastCall();
+		expect(request.startAsync(request, response)).andReturn(asyncContext);
+		asyncContext.setTimeout(0L);
+		expectLastCall();
+		asyncContext.complete();
+		expectLastCall();
+		replay(request, response, asyncContext);
+
+		assertTrue(writer.write(request, response, content.length, () -> new ByteArrayInputStream(content)));
+		assertNotNull(out.listener);
+		// a slow client takes one buffer at a time
+		int rounds = 0;
+		while (out.written.size() < content.length) {
+			out.ready = true;
+			out.listener.onWritePossible();
+			rounds++;
+		}
+		out.ready = true;
+		out.listener.onWritePossible();
+
+		assertTrue(rounds > 1);
+		assertArrayEquals(content, out.written.toByteArray());
+		verify(asyncContext);
+	}
+
+	/**
+	 * Output of a client that is ready for one write at a time.
+	 */
+	private static final class Output extends ServletOutputStream {
+
+		private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		private WriteListener listener;
+		private boolean ready;
+
+		@Override
+		public boolean isReady() {
+			return ready;
+		}
+
+		@Override
+		public void setWriteListener(final WriteListener writeListener) {
+			this.listener = writeListener;
+		}
+
+		@Override
+		public void write(final int b) {
+			written.write(b);
+			ready = false;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			written.write(b, off, len);
+			ready = false;
+		}
+	}
+
+}
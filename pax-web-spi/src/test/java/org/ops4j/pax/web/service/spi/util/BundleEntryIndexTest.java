@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+
+public class BundleEntryIndexTest {
+
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private URL url(final String host, final String path) throws IOException {
+		return url("bundleentry", host, -1, path);
+	}
+
+	private URL url(final String protocol, final String host, final int port, final String path) throws IOException {
+		return new URL(protocol, host, port, path, new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				connections.incrementAndGet();
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+
+					@Override
+					public long getContentLengthLong() {
+						return 42L;
+					}
+
+					@Override
+					public long getLastModified() {
+						return 1000L;
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(new byte[42]);
+					}
+				};
+			}
+		});
+	}
+
+	private Bundle bundle(final long lastModified, final String... paths) throws IOException {
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+		expect(bundle.getLastModified()).andReturn(lastModified).anyTimes();
+		URL[] urls = new URL[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			urls[i] = url("5.fwk1", paths[i]);
+		}
+		expect(bundle.findEntries("/", "*", true)).andReturn(Collections.enumeration(Arrays.asList(urls)));
+		replay(bundle);
+		return bundle;
+	}
+
+	@Test
+	public void filesAndDirectories() throws IOException {
+		BundleEntryIndex index = new BundleEntryIndex();
+		Bundle bundle = bundle(1L, "/static/", "/static/app.js", "/empty.txt", "/www/css/site.css");
+
+		BundleEntryIndex.Entry file = index.get(bundle, url("5.fwk1", "/static/app.js"));
+		assertNotNull(file);
+		assertFalse(file.isDirectory());
+		assertEquals(42L, file.getLength());
+		assertEquals(1000L, file.getLastModified());
+
+		// Bundle.getResource() gives urls of directories with or without a trailing slash
+		assertTrue(index.get(bundle, url("5.fwk1", "/static")).isDirectory());
+		assertTrue(index.get(bundle, url("5.fwk1", "/static/")).isDirectory());
+		// directories without entries of their own
+		assertTrue(index.get(bundle, url("5.fwk1", "/www/css")).isDirectory());
+		assertTrue(index.get(bundle, url("5.fwk1", "/")).isDirectory());
+		assertFalse(index.get(bundle, url("5.fwk1", "/empty.txt")).isDirectory());
+
+		assertNull(index.get(bundle, url("5.fwk1", "/static/app.js/")));
+		assertNull(index.get(bundle, url("5.fwk1", "/missing")));
+		// other bundles
+		assertNull(index.get(bundle, url("6.fwk1", "/static/app.js")));
+		assertNull(index.get(bundle, new URL("file:/static/app.js")));
+		verify(bundle);
+	}
+
+	@Test
+	public void onlyEntriesOfTheBundleRootAreAnswered() throws IOException {
+		BundleEntryIndex index = new BundleEntryIndex();
+		Hashtable<String, String> headers = new Hashtable<>();
+		headers.put(Constants.BUNDLE_CLASSPATH, "WEB-INF/classes, .");
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		expect(bundle.getHeaders("")).andReturn(headers);
+		expect(bundle.findEntries("/", "*", true)).andReturn(Collections.enumeration(Arrays.asList(
+				url("bundle", "5.0", 0, "/a.txt"), url("bundle", "5.0", 3, "/fragment.txt"))));
+		replay(bundle);
+
+		// Felix: content index 0 for entries, class path index + 1 for resources, fragments beyond
+		assertNotNull(index.get(bundle, url("bundle", "5.0", 0, "/a.txt")));
+		assertNull(index.get(bundle, url("bundle", "5.0", 1, "/a.txt")));
+		assertNotNull(index.get(bundle, url("bundle", "5.0", 2, "/a.txt")));
+		assertNull(index.get(bundle, url("bundle", "5.0", 3, "/a.txt")));
+		// Equinox: class path index for resources
+		assertNull(index.get(bundle, url("bundleresource", "5.fwk1", 0, "/a.txt")));
+		assertNotNull(index.get(bundle, url("bundleresource", "5.fwk1", 1, "/a.txt")));
+		// entries of fragments are not indexed
+		assertNull(index.get(bundle, url("bundle", "5.0", 0, "/fragment.txt")));
+		verify(bundle);
+	}
+
+	@Test
+	public void attributesAreReadOnce() throws IOException {
+		BundleEntryIndex index = new BundleEntryIndex();
+		Bundle bundle = bundle(1L, "/a.txt");
+		URL url = url("5.fwk1", "/a.txt");
+		connections.set(0);
+		for (int i = 0; i < 3; i++) {
+			BundleEntryIndex.Entry entry = index.get(bundle, url);
+			entry.getLength();
+			entry.getLastModified();
+		}
+		assertEquals(1, connections.get());
+	}
+
+	@Test
+	public void updatedBundlesAreIndexedAgain() throws IOException {
+		BundleEntryIndex index = new BundleEntryIndex();
+		assertNotNull(index.get(bundle(1L, "/a.txt"), url("5.fwk1", "/a.txt")));
+		Bundle updated = bundle(2L, "/b.txt");
+		assertNull(index.get(updated, url("5.fwk1", "/a.txt")));
+		assertNotNull(index.get(updated, url("5.fwk1", "/b.txt")));
+
+		index.invalidate(5L);
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void concurrentRequestsBuildTheIndexOnce() throws Exception {
+		BundleEntryIndex index = new BundleEntryIndex();
+		// findEntries() may be called only once
+		Bundle bundle = bundle(1L, "/a.txt");
+		URL url = url("5.fwk1", "/a.txt");
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<BundleEntryIndex.Entry> request = () -> {
+			start.await();
+			return index.get(bundle, url);
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<BundleEntryIndex.Entry>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(request));
+			}
+			start.countDown();
+			for (Future<BundleEntryIndex.Entry> result : results) {
+				assertNotNull(result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(bundle);
+	}
+
+}
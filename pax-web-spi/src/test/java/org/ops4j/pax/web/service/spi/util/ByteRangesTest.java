@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+public class ByteRangesTest {
+
+	private static final byte[] CONTENT = "0123456789".getBytes();
+
+	private static String ranges(final String header) {
+		List<ByteRanges.Range> ranges = ByteRanges.parse(header, CONTENT.length);
+		return ranges == null ? null : ranges.toString();
+	}
+
+	@Test
+	public void parse() {
+		assertEquals("[0-4]", ranges("bytes=0-4"));
+		assertEquals("[7-9]", ranges("bytes=-3"));
+		assertEquals("[0-9]", ranges("bytes=-30"));
+		assertEquals("[5-9]", ranges("bytes=5-"));
+		assertEquals("[0-9]", ranges("bytes=0-100"));
+		assertEquals("[0-1, 8-9]", ranges("bytes=0-1, 8-"));
+		assertEquals("[]", ranges("bytes=20-"));
+		assertEquals("[]", ranges("bytes=-0"));
+		assertNull(ranges("bytes=5-2"));
+		assertNull(ranges("bytes=a-2"));
+		assertNull(ranges("items=0-1"));
+	}
+
+	@Test
+	public void overlappingRangesAreMerged() {
+		assertEquals("[0-9]", ranges("bytes=0-,0-,0-,0-"));
+		assertEquals("[0-5]", ranges("bytes=2-5,0-3"));
+		assertEquals("[0-5, 8-9]", ranges("bytes=-2,0-2,3-5"));
+		assertEquals("[1-2, 5-6]", ranges("bytes=5-6,1-1,2-2"));
+	}
+
+	@Test
+	public void rangesCoveringTheWholeResourceAreServedAsAWhole() throws IOException {
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		// no 206 response, only Accept-Ranges is set
+		response.setHeader("Accept-Ranges", "bytes");
+		expectLastCall().times(2);
+		replay(response);
+
+		StringBuilder header = new StringBuilder("bytes=0-");
+		for (int i = 1; i < 32; i++) {
+			header.append(",0-");
+		}
+		assertFalse(ByteRanges.serve(request(header.toString(), null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		assertFalse(ByteRanges.serve(request("bytes=0-4,5-", null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		verify(response);
+	}
+
+	private static HttpServletRequest request(final String range, final String ifRange) {
+		HttpServletRequest request = createMock(HttpServletRequest.class);
+		expect(request.getHeader("Range")).andReturn(range).anyTimes();
+		expect(request.getHeader("If-Range")).andReturn(ifRange).anyTimes();
+		replay(request);
+		return request;
+	}
+
+	private static ServletOutputStream stream(final ByteArrayOutputStream bytes) {
+		return new ServletOutputStream() {
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(final WriteListener writeListener) {
+			}
+
+			@Override
+			public void write(final int b) {
+				bytes.write(b);
+			}
+		};
+	}
+
+	@Test
+	public void singleRange() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setHeader("Content-Range", "bytes 2-4/10");
+		response.setContentLengthLong(3L);
+		expect(response.getOutputStream()).andReturn(stream(bytes));
+		replay(response);
+
+		assertTrue(ByteRanges.serve(request("bytes=2-4", null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		assertEquals("234", bytes.toString());
+		verify(response);
+	}
+
+	@Test
+	public void multipleRanges() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+		expect(response.getOutputStream()).andReturn(stream(bytes));
+		replay(response);
+
+		assertTrue(ByteRanges.serve(request("bytes=0-1,8-", null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		String body = bytes.toString();
+		assertTrue(body.contains("Content-Type: text/plain\r\nContent-Range: bytes 0-1/10\r\n\r\n01\r\n--"));
+		assertTrue(body.contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n--"));
+		assertTrue(body.endsWith("--\r\n"));
+	}
+
+	@Test
+	public void unsatisfiableRange() throws IOException {
+		HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+		response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		response.setHeader("Content-Range", "bytes */10");
+		replay(response);
+
+		assertTrue(ByteRanges.serve(request("bytes=10-", null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		verify(response);
+	}
+
+	@Test
+	public void ifRangeComparesStrongly() {
+		assertTrue(ByteRanges.ifRange(request("bytes=0-1", "\"x\""), "\"x\"", 1000L));
+		assertFalse(ByteRanges.ifRange(request("bytes=0-1", "\"y\""), "\"x\"", 1000L));
+		assertFalse(ByteRanges.ifRange(request("bytes=0-1", "W/\"x\""), "W/\"x\"", 1000L));
+	}
+
+	@Test
+	public void wholeResourceWithoutRange() throws IOException {
+		HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+		replay(response);
+		assertFalse(ByteRanges.serve(request(null, null), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+		assertFalse(ByteRanges.serve(request("bytes=0-1", "\"y\""), response, "\"x\"", 1000L, CONTENT.length,
+				"text/plain", ByteRanges.source(CONTENT)));
+	}
+
+}
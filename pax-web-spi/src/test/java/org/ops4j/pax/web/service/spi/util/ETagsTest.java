@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class ETagsTest {
+
+	@Test
+	public void digestIsStrongAndDependsOnContentOnly() throws IOException {
+		byte[] content = "body { color: red; }".getBytes("UTF-8");
+		String eTag = ETags.digest(content);
+		assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+		assertFalse(ETags.isWeak(eTag));
+		assertEquals(eTag, ETags.digest(new ByteArrayInputStream(content)));
+		assertFalse(eTag.equals(ETags.digest("body { color: blue; }".getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void ifNoneMatchUsesWeakComparison() {
+		assertTrue(ETags.matches("\"abc\"", "\"abc\""));
+		assertTrue(ETags.matches("W/\"abc\"", "\"abc\""));
+		assertTrue(ETags.matches("\"abc\"", "W/\"abc\""));
+		assertFalse(ETags.matches("\"abcd\"", "\"abc\""));
+		assertFalse(ETags.matches(null, "\"abc\""));
+	}
+
+	@Test
+	public void ifNoneMatchLists() {
+		assertTrue(ETags.matches("\"x\", W/\"abc\" ,\"y\"", "\"abc\""));
+		assertTrue(ETags.matches("\"x\",\"abc\"", "\"abc\""));
+		assertFalse(ETags.matches("\"x\", \"y\"", "\"abc\""));
+		assertTrue(ETags.matches(" * ", "\"abc\""));
+	}
+
+	@Test
+	public void weakTagFromLastModified() {
+		assertEquals("W/\"42\"", ETags.weak(42L));
+		assertEquals("42", ETags.opaque(ETags.weak(42L)));
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Hashtable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class FileResourcesTest {
+
+	private Path root;
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("pax-web-files").toRealPath();
+		Files.createDirectories(root.resolve("static"));
+		file = Files.write(root.resolve("static/app.js"), "var a = 42;".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Bundle bundle(final String location, final String classPath) {
+		Hashtable<String, String> headers = new Hashtable<>();
+		if (classPath != null) {
+			headers.put("Bundle-ClassPath", classPath);
+		}
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		expect(bundle.getLocation()).andReturn(location).anyTimes();
+		expect(bundle.getHeaders("")).andReturn(headers).anyTimes();
+		replay(bundle);
+		return bundle;
+	}
+
+	private static URL url(final String host, final String path) throws IOException {
+		return url(host, 1, path);
+	}
+
+	private static URL url(final String host, final int port, final String path) throws IOException {
+		return new URL("bundle", host, port, path, new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				throw new UnsupportedOperationException();
+			}
+		});
+	}
+
+	@Test
+	public void fileUrls() throws IOException {
+		FileResources files = new FileResources();
+		assertEquals(file, files.toFile(null, file.toUri().toURL()));
+		assertNull(files.toFile(null, root.toUri().toURL()));
+		assertNull(files.toFile(null, root.resolve("missing").toUri().toURL()));
+	}
+
+	@Test
+	public void entriesOfBundlesInstalledFromDirectories() throws IOException {
+		FileResources files = new FileResources();
+		Bundle bundle = bundle("reference:" + root.toUri(), null);
+		assertEquals(file, files.toFile(bundle, url("5.0", "/static/app.js")));
+		assertNull(files.toFile(bundle, url("5.0", "/static/../../etc/passwd")));
+		assertNull(files.toFile(bundle, url("5.0", "/static")));
+		// other bundle
+		assertNull(files.toFile(bundle, url("6.0", "/static/app.js")));
+		// content of an attached fragment
+		assertNull(files.toFile(bundle, url("5.0", 2, "/static/app.js")));
+
+		assertNull(new FileResources().toFile(bundle("file:" + root, null), url("5.0", "/static/app.js")));
+		assertNull(new FileResources().toFile(bundle("reference:" + root.toUri(), "WEB-INF/classes"),
+				url("5.0", "/static/app.js")));
+	}
+
+	@Test
+	public void fileSourceTransfersRanges() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteRanges.source(file).write(out, 4, 3);
+		assertEquals("a =", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class MimeTypeCacheTest {
+
+	@Test
+	public void seededTypesAreNotResolved() {
+		MimeTypeCache cache = new MimeTypeCache(10);
+		cache.seed(Collections.singletonMap("CSS", "text/css"));
+		assertEquals("text/css", cache.get("/styles/site.css", name -> {
+			throw new AssertionError(name);
+		}));
+	}
+
+	@Test
+	public void typesAreResolvedOncePerExtension() {
+		MimeTypeCache cache = new MimeTypeCache(10);
+		AtomicInteger calls = new AtomicInteger();
+		Function<String, String> resolver = name -> {
+			calls.incrementAndGet();
+			return name.endsWith(".txt") ? "text/plain" : null;
+		};
+		assertEquals("text/plain", cache.get("/a.txt", resolver));
+		assertEquals("text/plain", cache.get("/b/c.TXT", resolver));
+		assertNull(cache.get("/a.unknown", resolver));
+		assertNull(cache.get("/b.unknown", resolver));
+		assertEquals(2, calls.get());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void boundedNumberOfResolvedExtensions() {
+		MimeTypeCache cache = new MimeTypeCache(2);
+		cache.seed(Collections.singletonMap("css", "text/css"));
+		for (int i = 0; i < 10; i++) {
+			cache.get("/a." + i, name -> null);
+		}
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void extensionsAreStillRememberedWhenTheCacheIsFull() {
+		MimeTypeCache cache = new MimeTypeCache(2);
+		cache.seed(Collections.singletonMap("css", "text/css"));
+		for (int i = 0; i < 10; i++) {
+			cache.get("/a." + i, name -> null);
+		}
+		AtomicInteger calls = new AtomicInteger();
+		Function<String, String> resolver = name -> {
+			calls.incrementAndGet();
+			return "application/x-custom";
+		};
+		assertEquals("application/x-custom", cache.get("/a.custom", resolver));
+		assertEquals("application/x-custom", cache.get("/b.custom", resolver));
+		assertEquals(1, calls.get());
+		assertEquals("text/css", cache.get("/a.css", resolver));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void extensions() {
+		assertEquals("js", MimeTypeCache.extension("/a/b.min.JS"));
+		assertNull(MimeTypeCache.extension("/a.b/c"));
+		assertNull(MimeTypeCache.extension("/a."));
+		assertNull(MimeTypeCache.extension("/a"));
+		assertNull(MimeTypeCache.extension(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMustBePositive() {
+		new MimeTypeCache(0);
+	}
+
+}
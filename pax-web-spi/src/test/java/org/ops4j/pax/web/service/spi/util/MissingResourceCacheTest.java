@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MissingResourceCacheTest {
+
+	@Test
+	public void missesAreRememberedPerStamp() {
+		MissingResourceCache cache = new MissingResourceCache(10);
+		assertFalse(cache.isMissing("robots.txt", 1L));
+		cache.put("robots.txt", cache.getGeneration(), 1L);
+		assertTrue(cache.isMissing("robots.txt", 1L));
+		// one of the bundles was updated
+		assertFalse(cache.isMissing("robots.txt", 2L));
+	}
+
+	@Test
+	public void invalidateForgetsMisses() {
+		MissingResourceCache cache = new MissingResourceCache(10);
+		long generation = cache.getGeneration();
+		cache.put("robots.txt", generation, 1L);
+		cache.invalidate();
+		assertFalse(cache.isMissing("robots.txt", 1L));
+		assertEquals(0, cache.size());
+
+		// late miss of a lookup that started before the invalidation
+		cache.put("favicon.ico", generation, 1L);
+		assertFalse(cache.isMissing("favicon.ico", 1L));
+	}
+
+	@Test
+	public void bounded() {
+		MissingResourceCache cache = new MissingResourceCache(2);
+		for (int i = 0; i < 10; i++) {
+			cache.put("missing" + i, cache.getGeneration(), 1L);
+		}
+		assertEquals(2, cache.size());
+		assertTrue(cache.isMissing("missing9", 1L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMustBePositive() {
+		new MissingResourceCache(0);
+	}
+
+}
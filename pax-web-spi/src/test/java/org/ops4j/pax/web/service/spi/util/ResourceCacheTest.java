@@ -0,0 +1,385 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class ResourceCacheTest {
+
+	private static final Object CONTEXT = new Object();
+
+	private static Bundle bundle(final long id, final long lastModified) {
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(id).anyTimes();
+		expect(bundle.getLastModified()).andReturn(lastModified).anyTimes();
+		replay(bundle);
+		return bundle;
+	}
+
+	private static URL url(final String host, final String path, final byte[] content) throws IOException {
+		return new URL("bundleentry", host, -1, path, new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+
+					@Override
+					public long getContentLengthLong() {
+						return content.length;
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(content);
+					}
+				};
+			}
+		});
+	}
+
+	private static ResourceCache.Entry load(final ResourceCache cache, final Bundle bundle, final String path,
+											final int length) throws IOException {
+		byte[] content = new byte[length];
+		return cache.load(bundle, CONTEXT, path, url(bundle.getBundleId() + ".fwk1", path, content), length, 1L,
+				"text/plain", "1");
+	}
+
+	@Test
+	public void loadedResourcesAreCachedPerBundleRevision() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(100, 100);
+		Bundle bundle = bundle(5L, 1L);
+		assertNull(cache.get(bundle, CONTEXT, "/a.txt"));
+		byte[] content = "hello".getBytes("UTF-8");
+		cache.load(bundle, CONTEXT, "/a.txt", url("5.fwk1", "/a.txt", content), content.length, 42L, "text/plain",
+				"42");
+
+		ResourceCache.Entry entry = cache.get(bundle, CONTEXT, "/a.txt");
+		assertNotNull(entry);
+		assertArrayEquals(content, entry.getContent());
+		assertEquals(42L, entry.getLastModified());
+		assertEquals("text/plain", entry.getMimeType());
+		assertEquals("42", entry.getETag());
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+
+		// updated bundle
+		assertNull(cache.get(bundle(5L, 2L), CONTEXT, "/a.txt"));
+	}
+
+	@Test
+	public void leastRecentlyUsedResourcesAreEvicted() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(30, 10);
+		Bundle bundle = bundle(5L, 1L);
+		load(cache, bundle, "/1", 10);
+		load(cache, bundle, "/2", 10);
+		load(cache, bundle, "/3", 10);
+		assertNotNull(cache.get(bundle, CONTEXT, "/1"));
+		load(cache, bundle, "/4", 10);
+
+		assertEquals(30L, cache.getSize());
+		assertEquals(1L, cache.getEvictionCount());
+		assertNotNull(cache.get(bundle, CONTEXT, "/1"));
+		assertNull(cache.get(bundle, CONTEXT, "/2"));
+
+		// too large to be cached
+		assertNull(load(cache, bundle, "/5", 11));
+		assertEquals(3, cache.getEntryCount());
+	}
+
+	@Test
+	public void httpContextsOfABundleDoNotShareResources() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(100, 100);
+		Bundle bundle = bundle(5L, 1L);
+		Object otherContext = new Object();
+		byte[] content = "hello".getBytes("UTF-8");
+		byte[] otherContent = "other".getBytes("UTF-8");
+		// "/a.txt" of the other context is mapped to another entry of the bundle
+		URL url = url("5.fwk1", "/a.txt", content);
+		URL otherUrl = url("5.fwk1", "/WEB-INF/classes/a.txt", otherContent);
+		cache.load(bundle, CONTEXT, "/a.txt", url, content.length, 1L, "text/plain",
+				cache.getETag(bundle, url, 1L, content.length));
+
+		assertNull(cache.get(bundle, otherContext, "/a.txt"));
+		String otherETag = cache.getETag(bundle, otherUrl, 1L, otherContent.length);
+		assertEquals(ETags.digest(otherContent), otherETag);
+		cache.load(bundle, otherContext, "/a.txt", otherUrl, otherContent.length, 1L, "text/plain", otherETag);
+		assertArrayEquals(content, cache.get(bundle, CONTEXT, "/a.txt").getContent());
+		assertArrayEquals(otherContent, cache.get(bundle, otherContext, "/a.txt").getContent());
+		assertEquals(ETags.digest(content), cache.get(bundle, CONTEXT, "/a.txt").getETag());
+	}
+
+	@Test
+	public void onlyResourcesOfTheBundleAreCacheable() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(100, 100);
+		Bundle bundle = bundle(5L, 1L);
+		assertFalse(cache.isCacheable(bundle, url("51.fwk1", "/a", new byte[1]), 1));
+		assertFalse(cache.isCacheable(bundle, new URL("file:/tmp/a"), 1));
+		assertFalse(cache.isCacheable(bundle, url("5.fwk1", "/a", new byte[0]), 0));
+		assertFalse(cache.isCacheable(null, url("5.fwk1", "/a", new byte[1]), 1));
+	}
+
+	@Test
+	public void invalidateRemovesResourcesOfBundle() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(100, 100);
+		Bundle bundle5 = bundle(5L, 1L);
+		Bundle bundle6 = bundle(6L, 1L);
+		load(cache, bundle5, "/a", 10);
+		load(cache, bundle6, "/a", 10);
+		cache.invalidate(5L);
+		assertNull(cache.get(bundle5, CONTEXT, "/a"));
+		assertNotNull(cache.get(bundle6, CONTEXT, "/a"));
+		assertEquals(10L, cache.getSize());
+	}
+
+	@Test
+	public void invalidateContextRemovesResourcesOfContext() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(100, 100);
+		Bundle bundle = bundle(5L, 1L);
+		Object otherContext = new Object();
+		byte[] content = new byte[10];
+		load(cache, bundle, "/a", 10);
+		cache.load(bundle, otherContext, "/a", url("5.fwk1", "/a", content), 10, 1L, "text/plain", "1");
+		cache.invalidateContext(otherContext);
+		assertNull(cache.get(bundle, otherContext, "/a"));
+		assertNotNull(cache.get(bundle, CONTEXT, "/a"));
+		assertEquals(10L, cache.getSize());
+	}
+
+	@Test
+	public void eTagsAreDigestedOncePerBundleRevision() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		byte[] content = "hello".getBytes("UTF-8");
+		String eTag = cache.getETag(bundle(5L, 1L), url("5.fwk1", "/a", content), 1L, content.length);
+		assertEquals(ETags.digest(content), eTag);
+		// same content after a reinstall gives the same tag
+		assertEquals(eTag, cache.getETag(bundle(5L, 2L), url("5.fwk1", "/a", content), 2L, content.length));
+		// remembered, content is not read again
+		assertSame(eTag, cache.getETag(bundle(5L, 1L), url("5.fwk1", "/a", new byte[0]), 1L, 0L));
+
+		// resources of other bundles get weak tags
+		assertEquals("W/\"1\"", cache.getETag(bundle(5L, 1L), url("6.fwk1", "/b", content), 1L, content.length));
+	}
+
+	@Test
+	public void concurrentRequestsDigestAnEntryOnce() throws Exception {
+		ResourceCache cache = new ResourceCache();
+		Bundle bundle = bundle(5L, 1L);
+		byte[] content = "hello".getBytes("UTF-8");
+		AtomicInteger reads = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		URL url = new URL("bundleentry", "5.fwk1", -1, "/a", new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+
+					@Override
+					public InputStream getInputStream() throws IOException {
+						reads.incrementAndGet();
+						try {
+							start.await();
+						} catch (InterruptedException e) {
+							throw new IOException(e);
+						}
+						return new ByteArrayInputStream(content);
+					}
+				};
+			}
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> eTags = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				eTags.add(executor.submit(() -> cache.getETag(bundle, url, 1L, content.length)));
+			}
+			start.countDown();
+			for (Future<String> eTag : eTags) {
+				assertEquals(ETags.digest(content), eTag.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, reads.get());
+	}
+
+	@Test
+	public void largeEntriesAreNotDigested() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		// the content must not be read
+		URL url = url("5.fwk1", "/large.zip", null);
+		long length = 64L * 1024 * 1024;
+		String eTag = cache.getETag(bundle(5L, 1L), url, 1L, length);
+		assertFalse(ETags.isWeak(eTag));
+		assertSame(eTag, cache.getETag(bundle(5L, 1L), url, 1L, length));
+		// another revision may have different content
+		assertFalse(eTag.equals(cache.getETag(bundle(5L, 2L), url, 2L, length)));
+	}
+
+	@Test
+	public void compressibleResourcesAreGzippedOnce() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(1000, 500);
+		cache.configureEncodings(false, Arrays.asList("text/*", "application/javascript"));
+		Bundle bundle = bundle(5L, 1L);
+		byte[] content = new byte[400];
+		Arrays.fill(content, (byte) 'a');
+		ResourceCache.Entry entry = cache.load(bundle, CONTEXT, "/a.txt", url("5.fwk1", "/a.txt", content),
+				content.length, 1L, "text/plain; charset=UTF-8", "\"a\"");
+
+		assertTrue(entry.hasVariants());
+		assertSame(entry, entry.select(null));
+		assertSame(entry, entry.select("br, gzip;q=0"));
+		ResourceCache.Entry gzip = entry.select("br, gzip;q=0.5");
+		assertEquals("gzip", gzip.getContentEncoding());
+		assertEquals(ETags.digest(gzip.getContent()), gzip.getETag());
+		byte[] decoded = new byte[content.length];
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContent()))) {
+			int read = 0;
+			while (read < decoded.length) {
+				read += in.read(decoded, read, decoded.length - read);
+			}
+		}
+		assertArrayEquals(content, decoded);
+		assertEquals(content.length + gzip.getContentLength(), cache.getSize());
+
+		// other mime types are kept as they are
+		entry = cache.load(bundle, CONTEXT, "/a.png", url("5.fwk1", "/a.png", content), content.length, 1L,
+				"image/png", "1");
+		assertFalse(entry.hasVariants());
+	}
+
+	@Test
+	public void precompressedSiblingsArePreferred() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configure(1000, 100);
+		cache.configureEncodings(true, Collections.<String>emptyList());
+		Bundle bundle = bundle(5L, 1L);
+		byte[] content = new byte[50];
+		byte[] br = new byte[10];
+		byte[] gz = new byte[20];
+		URL brUrl = url("5.fwk1", "/app.js.br", br);
+		URL gzUrl = url("5.fwk1", "/app.js.gz", gz);
+		ResourceCache.Entry entry = cache.load(bundle, CONTEXT, "/app.js", url("5.fwk1", "/app.js", content),
+				content.length, 1L, "application/javascript", "1", path -> "/app.js.br".equals(path) ? brUrl
+						: "/app.js.gz".equals(path) ? gzUrl : null);
+
+		assertEquals("br", entry.select("gzip, deflate, br").getContentEncoding());
+		assertSame(brUrl, entry.select("*").getUrl());
+		assertEquals("gzip", entry.select("gzip").getContentEncoding());
+		assertArrayEquals(gz, entry.select("gzip").getContent());
+		assertSame(entry, entry.select("identity"));
+		assertEquals(80L, cache.getSize());
+	}
+
+	@Test
+	public void precompressedSiblingsAreFoundWithoutTheCache() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		cache.configureEncodings(true, Collections.<String>emptyList());
+		byte[] gz = new byte[20];
+		URL gzUrl = new URL("file:/www/app.js.gz");
+		Map<String, URL> siblings = cache.getPrecompressed("/app.js", path -> "/app.js.gz".equals(path) ? gzUrl : null);
+
+		assertEquals(Collections.singletonMap("gzip", gzUrl), siblings);
+		assertNull(cache.selectPrecompressed(null, new BundleEntryIndex(), siblings, "br"));
+		assertNull(cache.selectPrecompressed(null, new BundleEntryIndex(), siblings, null));
+
+		URL bundleGzUrl = url("5.fwk1", "/app.js.gz", gz);
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		expect(bundle.findEntries("/", "*", true)).andReturn(Collections.enumeration(
+				Collections.singletonList(bundleGzUrl)));
+		replay(bundle);
+		ResourceCache.Precompressed selected = cache.selectPrecompressed(bundle, new BundleEntryIndex(),
+				Collections.singletonMap("gzip", bundleGzUrl), "gzip, br");
+		assertSame(bundleGzUrl, selected.getUrl());
+		assertEquals("gzip", selected.getContentEncoding());
+		assertEquals(20L, selected.getContentLength());
+		assertEquals(ETags.digest(gz), selected.getETag());
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void precompressedSiblingsAreNotFoundIfNotServed() {
+		ResourceCache cache = new ResourceCache();
+		assertTrue(cache.getPrecompressed("/app.js", path -> {
+			throw new AssertionError("siblings of " + path + " resolved");
+		}).isEmpty());
+	}
+
+	@Test
+	public void acceptEncodingHeaders() {
+		assertTrue(ResourceCache.accepts("gzip", "gzip"));
+		assertTrue(ResourceCache.accepts("deflate, GZIP;q=1.0", "gzip"));
+		assertTrue(ResourceCache.accepts("*", "br"));
+		assertFalse(ResourceCache.accepts("*, br;q=0", "br"));
+		assertFalse(ResourceCache.accepts("gzip;q=0.000", "gzip"));
+		assertFalse(ResourceCache.accepts("deflate", "gzip"));
+		assertFalse(ResourceCache.accepts(null, "gzip"));
+	}
+
+	@Test
+	public void disabledByDefault() throws IOException {
+		ResourceCache cache = new ResourceCache();
+		Bundle bundle = bundle(5L, 1L);
+		assertNull(load(cache, bundle, "/a", 10));
+		assertNull(cache.get(bundle, CONTEXT, "/a"));
+		assertEquals(0, cache.getEntryCount());
+	}
+
+}
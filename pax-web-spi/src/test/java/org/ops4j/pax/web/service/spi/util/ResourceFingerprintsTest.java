@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class ResourceFingerprintsTest {
+
+	private final byte[] content = "console.log('hello');".getBytes(StandardCharsets.UTF_8);
+
+	private final Map<String, URL> resources = new HashMap<>();
+
+	private Bundle bundle;
+
+	private ResourceFingerprints fingerprints;
+
+	@Before
+	public void setUp() throws IOException {
+		bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+		expect(bundle.getLastModified()).andReturn(1L).anyTimes();
+		replay(bundle);
+		resources.put("/static/app.js", url("5.fwk1", "/static/app.js"));
+		resources.put("/other.js", new URL("file:/tmp/other.js"));
+		fingerprints = new ResourceFingerprints(new ResourceCache());
+	}
+
+	private URL url(final String host, final String path) throws IOException {
+		return new URL("bundleentry", host, -1, path, new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(final URL u) {
+				return new URLConnection(u) {
+					@Override
+					public void connect() {
+					}
+
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(content);
+					}
+				};
+			}
+		});
+	}
+
+	private String expectedFingerprint() throws NoSuchAlgorithmException {
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+		StringBuilder fingerprint = new StringBuilder();
+		for (int i = 0; i < 5; i++) {
+			fingerprint.append(String.format("%02x", digest[i]));
+		}
+		return fingerprint.toString();
+	}
+
+	@Test
+	public void fingerprintsAreDerivedFromContent() throws Exception {
+		String fingerprint = fingerprints.fingerprint(bundle, resources.get("/static/app.js"));
+		assertEquals(expectedFingerprint(), fingerprint);
+		assertEquals("/static/app." + fingerprint + ".js",
+				ResourceFingerprints.fingerprinted("/static/app.js", fingerprint));
+		assertEquals("/static/LICENSE." + fingerprint,
+				ResourceFingerprints.fingerprinted("/static/LICENSE", fingerprint));
+
+		// resources outside of the bundle are not fingerprinted
+		assertNull(fingerprints.fingerprint(bundle, resources.get("/other.js")));
+		assertNull(fingerprints.fingerprint(bundle, url("6.fwk1", "/static/app.js")));
+	}
+
+	@Test
+	public void currentFingerprintsAreImmutable() throws Exception {
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		response.setHeader(ResourceFingerprints.CACHE_CONTROL, ResourceFingerprints.IMMUTABLE);
+		expectLastCall();
+		replay(response);
+
+		assertEquals("/static/app.js", fingerprints.resolve(bundle, "/static/app." + expectedFingerprint() + ".js",
+				resources::get, response));
+		verify(response);
+	}
+
+	@Test
+	public void outdatedFingerprintsServeCurrentContent() {
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		replay(response);
+
+		assertEquals("/static/app.js", fingerprints.resolve(bundle, "/static/app.0123456789.js",
+				resources::get, response));
+		verify(response);
+	}
+
+	@Test
+	public void otherPathsAreServedAsRequested() {
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		replay(response);
+
+		assertEquals("/static/app.js", fingerprints.resolve(bundle, "/static/app.js", resources::get, response));
+		assertEquals("/static/app.min.js", fingerprints.resolve(bundle, "/static/app.min.js", resources::get, response));
+		assertEquals("/static.0123456789/app.js",
+				fingerprints.resolve(bundle, "/static.0123456789/app.js", resources::get, response));
+		assertEquals("/missing.0123456789.js",
+				fingerprints.resolve(bundle, "/missing.0123456789.js", resources::get, response));
+		assertEquals("/other.0123456789.js",
+				fingerprints.resolve(bundle, "/other.0123456789.js", resources::get, response));
+		verify(response);
+	}
+
+	@Test
+	public void existingResourcesAreNotStripped() throws Exception {
+		HttpServletResponse response = createMock(HttpServletResponse.class);
+		replay(response);
+
+		// hashed output of a bundler, next to an unhashed resource of the same name
+		resources.put("/static/app.0123456789.js", url("5.fwk1", "/static/app.0123456789.js"));
+		assertEquals("/static/app.0123456789.js",
+				fingerprints.resolve(bundle, "/static/app.0123456789.js", resources::get, response));
+		verify(response);
+	}
+
+}
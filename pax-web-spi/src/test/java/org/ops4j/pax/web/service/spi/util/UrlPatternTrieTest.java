@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class UrlPatternTrieTest {
+
+	private static UrlPatternTrie<String> trie(final String... patterns) {
+		Map<String, String> map = new HashMap<>();
+		for (String pattern : patterns) {
+			map.put(pattern, pattern);
+		}
+		return new UrlPatternTrie<>(map);
+	}
+
+	@Test
+	public void emptyTrieMatchesNothing() {
+		assertTrue(UrlPatternTrie.<String>empty().isEmpty());
+		assertNull(UrlPatternTrie.<String>empty().match("/foo"));
+		assertNull(trie("/foo/*").match(null));
+		assertNull(trie("/foo/*").match(""));
+	}
+
+	@Test
+	public void longestPrefixWins() {
+		UrlPatternTrie<String> trie = trie("/*", "/foo/*", "/foo/bar/*");
+		assertEquals("/foo/bar/*", trie.match("/foo/bar/baz"));
+		assertEquals("/foo/bar/*", trie.match("/foo/bar"));
+		assertEquals("/foo/*", trie.match("/foo/baz/bar"));
+		assertEquals("/foo/*", trie.match("/foo/"));
+		assertEquals("/*", trie.match("/other"));
+		assertEquals("/*", trie.match("/"));
+	}
+
+	@Test
+	public void exactMatchesItselfAndSubPaths() {
+		UrlPatternTrie<String> trie = trie("/foo", "/foo/bar");
+		assertEquals("/foo/bar", trie.match("/foo/bar"));
+		assertEquals("/foo/bar", trie.match("/foo/bar/baz"));
+		assertEquals("/foo", trie.match("/foo/baz"));
+		assertNull(trie.match("/foobar"));
+	}
+
+	@Test
+	public void extensionIsScopedToParentDirectory() {
+		UrlPatternTrie<String> trie = trie("*.jsp", "/ctx/*.jsp", "/");
+		assertEquals("*.jsp", trie.match("/index.jsp"));
+		assertEquals("/ctx/*.jsp", trie.match("/ctx/index.jsp"));
+		assertEquals("/", trie.match("/ctx/sub/index.jsp"));
+		assertEquals("/", trie.match("/index."));
+	}
+
+	@Test
+	public void prefixTakesPrecedenceOverExtension() {
+		UrlPatternTrie<String> trie = trie("*.jsp", "/foo/*");
+		assertEquals("/foo/*", trie.match("/foo/index.jsp"));
+		assertEquals("*.jsp", trie.match("/index.jsp"));
+	}
+
+	@Test
+	public void defaultServlet() {
+		UrlPatternTrie<String> trie = trie("/", "/foo/*");
+		assertEquals("/", trie.match("/"));
+		assertEquals("/", trie.match("/bar/baz"));
+		assertEquals("/foo/*", trie.match("/foo"));
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class WelcomeFileCacheTest {
+
+	private final List<String> resolved = new ArrayList<>();
+
+	private static Bundle bundle(final long lastModified) {
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getLastModified()).andReturn(lastModified).anyTimes();
+		replay(bundle);
+		return bundle;
+	}
+
+	private String resolve(final String directory) {
+		resolved.add(directory);
+		return "/".equals(directory) ? "index.html" : null;
+	}
+
+	@Test
+	public void welcomeFilesAndTheirAbsenceAreRemembered() throws IOException {
+		WelcomeFileCache<String> cache = new WelcomeFileCache<>(10);
+		Bundle bundle = bundle(1L);
+		String[] welcomeFiles = { "index.html" };
+		for (int i = 0; i < 3; i++) {
+			assertEquals("index.html", cache.get(bundle, welcomeFiles, "/", this::resolve));
+			assertNull(cache.get(bundle, welcomeFiles, "/app/route", this::resolve));
+		}
+		assertEquals(2, resolved.size());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void newWelcomeFilesOrBundleRevisionInvalidate() throws IOException {
+		WelcomeFileCache<String> cache = new WelcomeFileCache<>(10);
+		String[] welcomeFiles = { "index.html" };
+		cache.get(bundle(1L), welcomeFiles, "/", this::resolve);
+		cache.get(bundle(1L), new String[] { "index.html" }, "/", this::resolve);
+		assertEquals(2, resolved.size());
+		cache.get(bundle(2L), welcomeFiles, "/", this::resolve);
+		assertEquals(3, resolved.size());
+		cache.clear();
+		cache.get(bundle(2L), welcomeFiles, "/", this::resolve);
+		assertEquals(4, resolved.size());
+	}
+
+	@Test
+	public void bounded() throws IOException {
+		WelcomeFileCache<String> cache = new WelcomeFileCache<>(2);
+		Bundle bundle = bundle(1L);
+		for (int i = 0; i < 10; i++) {
+			cache.get(bundle, this, "/" + i, this::resolve);
+		}
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void nothingIsCachedWithoutBundle() throws IOException {
+		WelcomeFileCache<String> cache = new WelcomeFileCache<>(10);
+		cache.get(null, this, "/", this::resolve);
+		cache.get(null, this, "/", this::resolve);
+		assertEquals(2, resolved.size());
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.catalina.Context;
+
+/**
+ * Immutable index of the servlet mappings of contexts sharing one context path
+ * (one Tomcat {@code MappedContext} with several versions, see
+ * {@link ContextSelectionHostValve}). For a path relative to the context it
+ * tells the first context (in mapper order) having an exact, prefix,
+ * extension or default servlet mapping for it, which is the context the
+ * mapper would find a wrapper in first.
+ * <p>
+ * Welcome files depend on resources and are not indexed, the valve doesn't
+ * use the index for directory requests.
+ */
+final class ContextIndex {
+
+	private static final int NONE = Integer.MAX_VALUE;
+
+	private final Context[] contexts;
+
+	private final long revision;
+
+	private final Map<String, Integer> exact = new HashMap<>();
+
+	/**
+	 * Prefix mappings without the trailing "/*", "" for "/*"
+	 */
+	private final Map<String, Integer> prefix = new HashMap<>();
+
+	private final Map<String, Integer> extension = new HashMap<>();
+
+	private int defaultServlet = NONE;
+
+	/**
+	 * @param contexts contexts in mapper order
+	 * @param revision {@link HttpServiceContext#getMappingRevision()} read before the mappings
+	 */
+	ContextIndex(final Context[] contexts, final long revision) {
+		this.contexts = contexts;
+		this.revision = revision;
+		for (int i = contexts.length - 1; i >= 0; i--) {
+			// backwards, so the first context wins for a pattern used in several
+			for (String pattern : contexts[i].findServletMappings()) {
+				if ("/".equals(pattern)) {
+					defaultServlet = i;
+				} else if (pattern.endsWith("/*")) {
+					prefix.put(pattern.substring(0, pattern.length() - 2), i);
+				} else if (pattern.startsWith("*.")) {
+					extension.put(pattern.substring(2), i);
+				} else if (!pattern.isEmpty()) {
+					exact.put(pattern, i);
+				}
+			}
+		}
+	}
+
+	boolean isCurrent(final Context[] mappedContexts) {
+		return contexts == mappedContexts && revision == HttpServiceContext.getMappingRevision();
+	}
+
+	/**
+	 * @param path path relative to the context path, starting with "/"
+	 * @return the first context with a servlet mapping for the path or null
+	 */
+	Context select(final String path) {
+		int selected = defaultServlet;
+		selected = min(selected, exact.get(path));
+		selected = min(selected, prefix.get(""));
+		for (int slash = path.indexOf('/', 1); slash > 0 && selected > 0; slash = path.indexOf('/', slash + 1)) {
+			selected = min(selected, prefix.get(path.substring(0, slash)));
+		}
+		if (selected > 0) {
+			selected = min(selected, prefix.get(path));
+		}
+		final int lastSlash = path.lastIndexOf('/');
+		final int dot = path.lastIndexOf('.');
+		if (selected > 0 && dot > lastSlash && dot < path.length() - 1) {
+			selected = min(selected, extension.get(path.substring(dot + 1)));
+		}
+		return selected == NONE ? null : contexts[selected];
+	}
+
+	private static int min(final int current, final Integer candidate) {
+		return candidate != null && candidate < current ? candidate : current;
+	}
+
+}
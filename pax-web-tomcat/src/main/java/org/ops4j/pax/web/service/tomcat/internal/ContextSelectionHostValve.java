@@ -16,11 +16,14 @@
 package org.ops4j.pax.web.service.tomcat.internal;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.ServletException;
 
 import org.apache.catalina.Contained;
 import org.apache.catalina.Container;
+import org.apache.catalina.Context;
 import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Valve;
@@ -32,9 +35,20 @@ import org.apache.catalina.valves.ValveBase;
 
 public class ContextSelectionHostValve extends ValveBase {
 
+	/**
+	 * Bound for {@link #indexes}, the arrays of contexts sharing a path are
+	 * replaced whenever one of them is added or removed
+	 */
+	private static final int MAX_INDEXES = 64;
+
 	Valve standardHostValve;
 	Mapper mapper;
 
+	/**
+	 * Context indexes by (identity of) the array of contexts sharing a path
+	 */
+	private final Map<Context[], ContextIndex> indexes = new ConcurrentHashMap<>();
+
 	public ContextSelectionHostValve(Valve standardHostValve, Mapper mapper) {
 		super(true);
 		this.standardHostValve = standardHostValve;
@@ -57,9 +71,19 @@ public class ContextSelectionHostValve extends ValveBase {
 		 * for the request URI and set the context and wrapper elements in the
 		 * mapping data accordingly. Afterwards the standard host valve is
 		 * executed with the modified request.
+		 *
+		 * The context is looked up in a ContextIndex of the servlet mappings
+		 * first, so usually the request is mapped only once. Directory
+		 * requests (welcome files) and paths the index doesn't know are
+		 * mapped against every context in turn.
 		 */
 		MappingData md = request.getMappingData();
 		if (md.contexts != null && md.contexts.length > 1 && md.wrapper == null) {
+			Context selected = selectContext(md, request.getDecodedRequestURI());
+			if (selected != null) {
+				md.context = selected;
+				mapper.map(md.context, request.getDecodedRequestURIMB(), md);
+			}
 			for (int i = 0; md.wrapper == null && i < md.contexts.length; i++) {
 				md.context = md.contexts[i];
 				mapper.map(md.context, request.getDecodedRequestURIMB(), md);
@@ -68,6 +92,32 @@ public class ContextSelectionHostValve extends ValveBase {
 		standardHostValve.invoke(request, response);
 	}
 
+	private Context selectContext(MappingData md, String uri) {
+		String contextPath = md.contextPath.toString();
+		if (uri == null || contextPath == null || !uri.startsWith(contextPath)) {
+			return null;
+		}
+		String path = uri.substring(contextPath.length());
+		if (path.isEmpty() || path.endsWith("/")) {
+			return null;
+		}
+		ContextIndex index = indexes.get(md.contexts);
+		if (index == null || !index.isCurrent(md.contexts)) {
+			for (Context context : md.contexts) {
+				if (!(context instanceof HttpServiceContext)) {
+					// only changes of our contexts invalidate the index
+					return null;
+				}
+			}
+			if (index != null || indexes.size() >= MAX_INDEXES) {
+				indexes.clear();
+			}
+			index = new ContextIndex(md.contexts, HttpServiceContext.getMappingRevision());
+			indexes.put(md.contexts, index);
+		}
+		return index.select(path);
+	}
+
 	@Override
 	public void setContainer(Container container) {
 		super.setContainer(container);
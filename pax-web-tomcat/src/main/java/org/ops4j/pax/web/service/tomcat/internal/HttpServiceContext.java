@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterRegistration;
@@ -55,6 +56,13 @@ public class HttpServiceContext extends StandardContext {
 	private static final Logger LOG = LoggerFactory
 			.getLogger(HttpServiceContext.class);
 
+	/**
+	 * Incremented by every container event of any context (servlets and their
+	 * mappings added or removed, ...), so {@link ContextSelectionHostValve}
+	 * knows when its {@link ContextIndex} is stale.
+	 */
+	private static final AtomicLong MAPPING_REVISION = new AtomicLong();
+
 	public class HttpServiceSessionCookieConfig implements SessionCookieConfig {
 		private boolean httpOnly;
 		private boolean secure;
@@ -385,4 +393,14 @@ public class HttpServiceContext extends StandardContext {
 		return super.getServletContext();
 	}
 
+	@Override
+	public void fireContainerEvent(String type, Object data) {
+		MAPPING_REVISION.incrementAndGet();
+		super.fireContainerEvent(type, data);
+	}
+
+	static long getMappingRevision() {
+		return MAPPING_REVISION.get();
+	}
+
 }
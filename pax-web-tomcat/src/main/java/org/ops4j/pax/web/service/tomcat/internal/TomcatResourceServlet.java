@@ -15,11 +15,16 @@
  */
 package org.ops4j.pax.web.service.tomcat.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
@@ -32,7 +37,19 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.Globals;
+import org.apache.catalina.connector.RequestFacade;
 import org.apache.catalina.connector.ResponseFacade;
+import org.ops4j.pax.web.service.spi.util.AsyncResourceWriter;
+import org.ops4j.pax.web.service.spi.util.BundleEntryIndex;
+import org.ops4j.pax.web.service.spi.util.ByteRanges;
+import org.ops4j.pax.web.service.spi.util.ETags;
+import org.ops4j.pax.web.service.spi.util.FileResources;
+import org.ops4j.pax.web.service.spi.util.MimeTypeCache;
+import org.ops4j.pax.web.service.spi.util.ResourceCache;
+import org.ops4j.pax.web.service.spi.util.ResourceFingerprints;
+import org.ops4j.pax.web.service.spi.util.WelcomeFileCache;
+import org.osgi.framework.Bundle;
 import org.osgi.service.http.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +67,21 @@ public class TomcatResourceServlet extends HttpServlet {
 
 	private static final int SECOND = 1000;
 
+	/**
+	 * Maximum number of directories whose welcome file is remembered
+	 */
+	private static final int WELCOME_FILE_CACHE_SIZE = 1024;
+
+	/**
+	 * Maximum number of extensions whose mime type is remembered
+	 */
+	private static final int MIME_TYPE_CACHE_SIZE = 1024;
+
+	/**
+	 * Files of at least this size are sent with sendfile, if the connector supports it
+	 */
+	private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
 	private static final Logger LOG = LoggerFactory
 			.getLogger(TomcatResourceServlet.class);
 
@@ -62,6 +94,9 @@ public class TomcatResourceServlet extends HttpServlet {
 	private static final String KEEP_ALIVE = "Keep-Alive";
 
 	private static final String ETAG = "ETag";
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String VARY = "Vary";
 
 	/**
 	 * The input buffer size to use when serving resources.
@@ -69,16 +104,35 @@ public class TomcatResourceServlet extends HttpServlet {
 	protected int input = 2048;
 
 	private final HttpContext httpContext;
+	private final Bundle bundle;
 	private final String contextName;
 	private final String alias;
 	private final String name;
 	private final Context context;
+	private final ResourceCache resourceCache = ResourceCache.shared();
+	private final BundleEntryIndex entryIndex = BundleEntryIndex.shared();
+	private final FileResources fileResources = FileResources.shared();
+	private final AsyncResourceWriter asyncWriter = AsyncResourceWriter.shared();
+	private final ResourceFingerprints fingerprints = ResourceFingerprints.shared();
+	private final MimeTypeCache mimeTypeCache = new MimeTypeCache(MIME_TYPE_CACHE_SIZE);
+	private final WelcomeFileCache<String> welcomeFileCache = new WelcomeFileCache<>(WELCOME_FILE_CACHE_SIZE);
 	private String[] welcomes;
+	private boolean fingerprinted;
 
 	public TomcatResourceServlet(final HttpContext httpContext,
 								 final String contextName, final String alias, final String name,
 								 final Context context) {
+		this(httpContext, null, contextName, alias, name, context);
+	}
+
+	/**
+	 * @param bundle bundle of the http context, used to cache its resources; may be null
+	 */
+	public TomcatResourceServlet(final HttpContext httpContext, final Bundle bundle,
+								 final String contextName, final String alias, final String name,
+								 final Context context) {
 		this.httpContext = httpContext;
+		this.bundle = bundle;
 		this.contextName = "/" + contextName;
 		this.alias = alias;
 		if ("/".equals(name)) {
@@ -95,6 +149,19 @@ public class TomcatResourceServlet extends HttpServlet {
 	    if (welcomes == null) {
 	        welcomes = new String[]{"index.html", "index.jsp"};
 	    }
+		Map<String, String> mimeMappings = new HashMap<>();
+		for (String extension : context.findMimeMappings()) {
+			mimeMappings.put(extension, context.findMimeMapping(extension));
+		}
+		mimeTypeCache.seed(mimeMappings);
+		fingerprinted = Boolean.parseBoolean(getInitParameter(ResourceFingerprints.INIT_PARAM));
+	}
+
+	@Override
+	public void destroy() {
+		// cached resources are keyed by the http context, which may not be used anymore
+		resourceCache.invalidateContext(httpContext);
+		super.destroy();
 	}
 
 	@Override
@@ -135,6 +202,17 @@ public class TomcatResourceServlet extends HttpServlet {
 	    boolean endsWithSlash = (mapping == null ? request.getServletPath()
 	                : mapping).endsWith("/");
 
+		if (fingerprinted && !included) {
+			// "/app.3f2a9c0e1b.js" is served as "/app.js"
+			mapping = fingerprints.resolve(bundle, mapping, httpContext::getResource, response);
+		}
+
+		ResourceCache.Entry cached = resourceCache.get(bundle, httpContext, mapping);
+		if (cached != null) {
+			serveCached(request, response, cached);
+			return;
+		}
+
 		final URL url = httpContext.getResource(mapping);
 
 		if (url == null || "//".equals(mapping) && "bundleentry".equalsIgnoreCase(url.getProtocol())
@@ -149,16 +227,23 @@ public class TomcatResourceServlet extends HttpServlet {
 			return;
 		}
 
+		// entries of the context bundle are looked up in memory instead of connecting to the url
+		final BundleEntryIndex.Entry indexed = entryIndex.get(bundle, url);
+
 		URLConnection connection = null;
 		try {
 			boolean foundResource;
-			try {
-				// new Resource(url.openStream());
-				connection = url.openConnection();
-				connection.connect();
+			if (indexed != null) {
 				foundResource = true;
-			} catch (IOException ioex) {
-				foundResource = false;
+			} else {
+				try {
+					// new Resource(url.openStream());
+					connection = url.openConnection();
+					connection.connect();
+					foundResource = true;
+				} catch (IOException ioex) {
+					foundResource = false;
+				}
 			}
 
 			if (!foundResource && !endsWithSlash) {
@@ -171,7 +256,9 @@ public class TomcatResourceServlet extends HttpServlet {
 			// let's check if this is maybe a directory. org.osgi.framework.Bundle.getResource()
 			// returns proper URL for directory entry and we can't tell if it's a directory or not
 			boolean possibleDirectoryBundleEntry = false;
-			if (foundResource) {
+			if (indexed != null) {
+				possibleDirectoryBundleEntry = indexed.isDirectory();
+			} else if (foundResource) {
 				try (InputStream peek = url.openStream()) {
 					possibleDirectoryBundleEntry = peek.available() == 0;
 				}
@@ -203,71 +290,64 @@ public class TomcatResourceServlet extends HttpServlet {
 					}
 				}
 				return;
-			} else if (foundResource && url.getPath().endsWith("/")) {
+			} else if (foundResource && (url.getPath().endsWith("/") || indexed != null && indexed.isDirectory())) {
 				// directory listing
 				response.sendError(HttpServletResponse.SC_FORBIDDEN);
 				return;
 			}
 
-			// if the request contains an etag and its the same for the
-			// resource, we deliver a NOT MODIFIED response
-			String eTag = String.valueOf(connection.getLastModified());
-			if ((request.getHeader(IF_NONE_MATCH) != null) && (eTag.equals(request.getHeader(IF_NONE_MATCH)))) {
-				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			final long lastModified = indexed != null ? indexed.getLastModified() : connection.getLastModified();
+			final long length = indexed != null ? indexed.getLength() : connection.getContentLengthLong();
+			String eTag = resourceCache.getETag(bundle, url, lastModified, length);
+			String mimeType = getMimeType(mapping, url);
+
+			ResourceCache.Entry loaded = resourceCache.isEnabled()
+					? resourceCache.load(bundle, httpContext, mapping, url, length, lastModified, mimeType, eTag,
+							httpContext::getResource)
+					: null;
+			if (loaded != null) {
+				serveCached(request, response, loaded);
 				return;
-			} else if (request.getHeader(IF_MODIFIED_SINCE) != null) {
-				long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
-				if (connection.getLastModified() > 0) {
-					// resource.lastModified()/1000 <= ifmsl/1000
-					if (connection.getLastModified() / SECOND <= ifModifiedSince / SECOND) {
-						response.reset();
-						response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-						response.flushBuffer();
-						return;
-					}
-				}
-			} else if (request.getHeader(IF_UNMODIFIED_SINCE) != null) {
-				long modifiedSince = request.getDateHeader(IF_UNMODIFIED_SINCE);
+			}
 
-				if (modifiedSince != -1) {
-					if (connection.getLastModified() / SECOND > modifiedSince / SECOND) {
-						response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
-						return;
-					}
+			// precompressed siblings are served whether or not the resource itself is cached
+			Map<String, URL> precompressed = resourceCache.getPrecompressed(mapping, httpContext::getResource);
+			if (!precompressed.isEmpty()) {
+				response.addHeader(VARY, ACCEPT_ENCODING);
+				ResourceCache.Precompressed sibling = resourceCache.selectPrecompressed(bundle, entryIndex,
+						precompressed, request.getHeader(ACCEPT_ENCODING));
+				if (sibling != null) {
+					servePrecompressed(request, response, sibling, mimeType, included);
+					return;
 				}
 			}
 
+			// if the request contains an etag and its the same for the
+			// resource, we deliver a NOT MODIFIED response
+			if (!checkPreconditions(request, response, eTag, lastModified)) {
+				return;
+			}
+
 			// set the etag
 			response.setHeader(ETAG, eTag);
 
-			// String mimeType = m_httpContext.getMimeType(mapping);
-			String mimeType = getServletContext().getMimeType(url.getFile());
-			/*
-			 * No Fallback if (mimeType == null) { Buffer mimeTypeBuf =
-			 * mimeTypes.getMimeByExtension(mapping); mimeType = mimeTypeBuf !=
-			 * null ? mimeTypeBuf.toString() : null; }
-			 */
-
-			if (mimeType == null) {
-				try {
-					if (url.openConnection() != null) {
-						mimeType = url.openConnection().getContentType();
-					}
-				} catch (IOException | NullPointerException ignore) {
-					// we do not care about such an exception as the fact that
-					// we are using also the connection for
-					// finding the mime type is just a "nice to have" not an
-					// requirement
-				}
+			if (mimeType != null) {
+				response.setContentType(mimeType);
 			}
 
-			if (mimeType == null) {
-				ServletContext servletContext = getServletConfig().getServletContext();
-				mimeType = servletContext.getMimeType(mapping);
+			// entries of bundles installed from directories are sent from the file
+			final Path file = fileResources.toFile(bundle, url);
+			if (ByteRanges.serve(request, response, eTag, lastModified, length, mimeType,
+					file != null ? ByteRanges.source(file) : ByteRanges.source(url))) {
+				return;
 			}
-
-			if (mimeType != null) {
-				response.setContentType(mimeType);
+			if (file != null && !included && sendfile(request, response, file)) {
+				return;
+			}
+			// large resources are written by the container as the client reads them
+			if (asyncWriter.write(request, response, length,
+					file != null ? () -> Files.newInputStream(file) : url::openStream)) {
+				return;
 			}
 
 			ServletOutputStream out = response.getOutputStream();
@@ -280,7 +360,18 @@ public class TomcatResourceServlet extends HttpServlet {
 					((ResponseFacade) r).getContentWritten();
 				}
 
-				IOException ioException = copyRange(url.openStream(), out);
+				IOException ioException = null;
+				if (file != null) {
+					long size = Files.size(file);
+					response.setContentLengthLong(size);
+					try {
+						ByteRanges.source(file).write(out, 0, size);
+					} catch (IOException e) {
+						ioException = e;
+					}
+				} else {
+					ioException = copyRange(url.openStream(), out);
+				}
 
 				if (ioException != null) {
 					response.sendError(HttpServletResponse.SC_NOT_FOUND);
@@ -297,6 +388,182 @@ public class TomcatResourceServlet extends HttpServlet {
 		}
 	}
 
+	private String getMimeType(String mapping, URL url) {
+		// String mimeType = m_httpContext.getMimeType(mapping);
+		String mimeType = getServletContext().getMimeType(url.getFile());
+		/*
+		 * No Fallback if (mimeType == null) { Buffer mimeTypeBuf =
+		 * mimeTypes.getMimeByExtension(mapping); mimeType = mimeTypeBuf !=
+		 * null ? mimeTypeBuf.toString() : null; }
+		 */
+
+		if (mimeType == null) {
+			// the fallbacks only depend on the extension
+			mimeType = mimeTypeCache.get(mapping, name -> guessMimeType(name, url));
+		}
+		return mimeType;
+	}
+
+	private String guessMimeType(String mapping, URL url) {
+		String mimeType = null;
+		try {
+			if (url.openConnection() != null) {
+				mimeType = url.openConnection().getContentType();
+			}
+		} catch (IOException | NullPointerException ignore) {
+			// we do not care about such an exception as the fact that
+			// we are using also the connection for
+			// finding the mime type is just a "nice to have" not an
+			// requirement
+		}
+
+		if (mimeType == null) {
+			ServletContext servletContext = getServletConfig().getServletContext();
+			mimeType = servletContext.getMimeType(mapping);
+		}
+		return mimeType;
+	}
+
+	/**
+	 * Lets the connector send a file with sendfile, as
+	 * org.apache.catalina.servlets.DefaultServlet does for large files.
+	 *
+	 * @return true if the connector sends the file, false if it has to be written
+	 */
+	private boolean sendfile(HttpServletRequest request, HttpServletResponse response, Path file)
+			throws IOException {
+		if (!Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))
+				|| !(request instanceof RequestFacade) || !(response instanceof ResponseFacade)) {
+			return false;
+		}
+		long size = Files.size(file);
+		if (size < SENDFILE_MIN_SIZE) {
+			return false;
+		}
+		response.setContentLengthLong(size);
+		request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+		request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+		request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, size);
+		return true;
+	}
+
+	/**
+	 * Serves a cached resource in the content coding preferred by the client.
+	 */
+	private void serveCached(HttpServletRequest request, HttpServletResponse response, ResourceCache.Entry entry)
+			throws IOException {
+		ResourceCache.Entry representation = entry.select(request.getHeader(ACCEPT_ENCODING));
+		if (entry.hasVariants()) {
+			response.addHeader(VARY, ACCEPT_ENCODING);
+		}
+		if (!checkPreconditions(request, response, representation.getETag(), representation.getLastModified())) {
+			return;
+		}
+		response.setHeader(ETAG, representation.getETag());
+		if (representation.getContentEncoding() != null) {
+			response.setHeader(CONTENT_ENCODING, representation.getContentEncoding());
+		}
+		if (representation.getMimeType() != null) {
+			response.setContentType(representation.getMimeType());
+		}
+		send(request, response, representation);
+	}
+
+	/**
+	 * Streams the precompressed sibling of a resource which is not cached.
+	 */
+	private void servePrecompressed(HttpServletRequest request, HttpServletResponse response,
+									ResourceCache.Precompressed sibling, String mimeType, boolean included)
+			throws IOException {
+		if (!checkPreconditions(request, response, sibling.getETag(), sibling.getLastModified())) {
+			return;
+		}
+		response.setHeader(ETAG, sibling.getETag());
+		response.setHeader(CONTENT_ENCODING, sibling.getContentEncoding());
+		if (mimeType != null) {
+			response.setContentType(mimeType);
+		}
+		final URL url = sibling.getUrl();
+		final Path file = fileResources.toFile(bundle, url);
+		if (ByteRanges.serve(request, response, sibling.getETag(), sibling.getLastModified(),
+				sibling.getContentLength(), mimeType, file != null ? ByteRanges.source(file) : ByteRanges.source(url))) {
+			return;
+		}
+		if (file != null && !included && sendfile(request, response, file)) {
+			return;
+		}
+		if (asyncWriter.write(request, response, sibling.getContentLength(),
+				file != null ? () -> Files.newInputStream(file) : url::openStream)) {
+			return;
+		}
+		ServletOutputStream out = response.getOutputStream();
+		if (out != null) { // null should be just in unit testing
+			response.setContentLengthLong(sibling.getContentLength());
+			try (InputStream in = file != null ? Files.newInputStream(file) : url.openStream()) {
+				IOException ioException = copyRange(in, out);
+				if (ioException != null) {
+					response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Handles the conditional headers of a request.
+	 *
+	 * @return true if the resource should be sent, false if the response is already complete
+	 */
+	private boolean checkPreconditions(HttpServletRequest request, HttpServletResponse response,
+									   String eTag, long lastModified) throws IOException {
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+		if (ifNoneMatch != null && ETags.matches(ifNoneMatch, eTag)) {
+			response.setHeader(ETAG, eTag);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return false;
+		} else if (ifNoneMatch == null && request.getHeader(IF_MODIFIED_SINCE) != null) {
+			long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+			if (lastModified > 0) {
+				// resource.lastModified()/1000 <= ifmsl/1000
+				if (lastModified / SECOND <= ifModifiedSince / SECOND) {
+					response.reset();
+					response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					response.flushBuffer();
+					return false;
+				}
+			}
+		} else if (request.getHeader(IF_UNMODIFIED_SINCE) != null) {
+			long modifiedSince = request.getDateHeader(IF_UNMODIFIED_SINCE);
+
+			if (modifiedSince != -1) {
+				if (lastModified / SECOND > modifiedSince / SECOND) {
+					response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sends the content, or the requested ranges of it, of a cached resource.
+	 */
+	private void send(HttpServletRequest request, HttpServletResponse response, ResourceCache.Entry entry)
+			throws IOException {
+		if (ByteRanges.serve(request, response, entry.getETag(), entry.getLastModified(), entry.getContentLength(),
+				entry.getMimeType(), ByteRanges.source(entry.getContent()))) {
+			return;
+		}
+		if (asyncWriter.write(request, response, entry.getContentLength(),
+				() -> new ByteArrayInputStream(entry.getContent()))) {
+			return;
+		}
+		response.setContentLength(entry.getContentLength());
+		ServletOutputStream out = response.getOutputStream();
+		if (out != null) { // null should be just in unit testing
+			out.write(entry.getContent());
+		}
+	}
+
 	/**
 	 * Finds a matching welcome file for the supplied {@link Resource}. This
 	 * will be the first entry in the list of configured {@link #_welcomes
@@ -313,6 +580,15 @@ public class TomcatResourceServlet extends HttpServlet {
 	 * @throws MalformedURLException
 	 */
 	private String getWelcomeFile(String pathInContext) throws MalformedURLException, IOException {
+		// Tomcat replaces the array when welcome files are added to or removed from the context
+		String[] current = context.findWelcomeFiles();
+		if (current != null) {
+			welcomes = current;
+		}
+		return welcomeFileCache.get(bundle, welcomes, pathInContext, this::findWelcomeFile);
+	}
+
+	private String findWelcomeFile(String pathInContext) {
 
 		if (welcomes == null) {
 			return null;
@@ -809,7 +809,7 @@ class TomcatServerWrapper implements ServerWrapper {
 										 final String alias, final String name) {
 		LOG.debug("createResourceServlet( contextModel: {}, alias: {}, name: {})");
 		final Context context = findOrCreateContext(contextModel);
-		return new TomcatResourceServlet(contextModel.getHttpContext(),
+		return new TomcatResourceServlet(contextModel.getHttpContext(), contextModel.getBundle(),
 				contextModel.getContextName(), alias, name, context);
 	}
 
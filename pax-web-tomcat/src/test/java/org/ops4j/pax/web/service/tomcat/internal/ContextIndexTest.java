@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.catalina.Context;
+import org.junit.Test;
+
+public class ContextIndexTest {
+
+	private static Context context(final String... mappings) {
+		Context context = createMock(Context.class);
+		expect(context.findServletMappings()).andReturn(mappings).anyTimes();
+		replay(context);
+		return context;
+	}
+
+	@Test
+	public void firstContextWithAMappingIsSelected() {
+		Context first = context("/a/*", "*.jsp");
+		Context second = context("/b/c", "*.do", "/a/b");
+		Context third = context("/", "/b/c", "/d/*");
+		ContextIndex index = new ContextIndex(new Context[] { first, second, third },
+				HttpServiceContext.getMappingRevision());
+
+		// prefix
+		assertSame(first, index.select("/a"));
+		assertSame(first, index.select("/a/x.html"));
+		// an exact mapping of a later context doesn't win over a prefix mapping of an earlier one
+		assertSame(first, index.select("/a/b"));
+		assertSame(third, index.select("/ab"));
+		// exact, the first context using a pattern wins
+		assertSame(second, index.select("/b/c"));
+		// extension
+		assertSame(first, index.select("/z/page.jsp"));
+		assertSame(second, index.select("/z/run.do"));
+		assertSame(second, index.select("/d/run.do"));
+		assertSame(third, index.select("/z/run."));
+		// default
+		assertSame(third, index.select("/z/page"));
+		assertSame(third, index.select("/b/c/d"));
+	}
+
+	@Test
+	public void pathsWithoutMappingSelectNoContext() {
+		Context first = context("/a/*");
+		Context second = context("*.do", "/b");
+		ContextIndex index = new ContextIndex(new Context[] { first, second },
+				HttpServiceContext.getMappingRevision());
+
+		assertSame(second, index.select("/b"));
+		assertNull(index.select("/b/c"));
+		assertNull(index.select("/z/page.jsp"));
+		assertNull(index.select("/z.do/page"));
+	}
+
+	@Test
+	public void indexesAreRebuiltAfterMappingChanges() {
+		Context first = context("/a/*");
+		Context second = context("/b");
+		Context[] contexts = { first, second };
+		long revision = HttpServiceContext.getMappingRevision();
+		ContextIndex index = new ContextIndex(contexts, revision);
+		assertTrue(index.isCurrent(contexts));
+		// contexts added to or removed from the path replace the array
+		assertFalse(index.isCurrent(new Context[] { first, second }));
+
+		// an index built before a mapping was added or removed is stale ...
+		ContextIndex stale = new ContextIndex(contexts, revision - 1);
+		assertFalse(stale.isCurrent(contexts));
+		// ... and the rebuilt one reflects the current mappings
+		Context changed = context("/b", "/c");
+		Context[] changedContexts = { first, changed };
+		ContextIndex rebuilt = new ContextIndex(changedContexts, HttpServiceContext.getMappingRevision());
+		assertTrue(rebuilt.isCurrent(changedContexts));
+		assertNull(index.select("/c"));
+		assertSame(changed, rebuilt.select("/c"));
+	}
+
+}
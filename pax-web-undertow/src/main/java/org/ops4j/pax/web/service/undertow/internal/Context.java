@@ -15,22 +15,29 @@
  */
 package org.ops4j.pax.web.service.undertow.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletContainerInitializer;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import io.undertow.servlet.api.ServletSessionConfig;
@@ -52,7 +59,13 @@ import org.ops4j.pax.web.service.spi.model.ResourceModel;
 import org.ops4j.pax.web.service.spi.model.SecurityConstraintMappingModel;
 import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
+import org.ops4j.pax.web.service.spi.util.AsyncResourceWriter;
+import org.ops4j.pax.web.service.spi.util.BundleEntryIndex;
+import org.ops4j.pax.web.service.spi.util.ETags;
+import org.ops4j.pax.web.service.spi.util.FileResources;
+import org.ops4j.pax.web.service.spi.util.ResourceCache;
 import org.ops4j.pax.web.service.spi.util.ResourceDelegatingBundleClassLoader;
+import org.ops4j.pax.web.service.spi.util.WelcomeFileCache;
 import org.ops4j.pax.web.utils.ServletContainerInitializerScanner;
 import org.osgi.framework.*;
 import org.osgi.service.packageadmin.PackageAdmin;
@@ -68,6 +81,9 @@ import io.undertow.server.DefaultByteBufferPool;
 import io.undertow.server.HandlerWrapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.FileResource;
+import io.undertow.server.handlers.resource.FileResourceManager;
+import io.undertow.server.handlers.resource.RangeAwareResource;
 import io.undertow.server.handlers.resource.Resource;
 import io.undertow.server.handlers.resource.ResourceChangeListener;
 import io.undertow.server.handlers.resource.ResourceManager;
@@ -88,7 +104,9 @@ import io.undertow.servlet.api.WebResourceCollection;
 import io.undertow.servlet.handlers.ServletRequestContext;
 import io.undertow.servlet.util.ConstructorInstanceFactory;
 import io.undertow.servlet.util.ImmediateInstanceFactory;
+import io.undertow.util.DateUtils;
 import io.undertow.util.ETag;
+import io.undertow.util.Headers;
 import io.undertow.util.MimeMappings;
 import io.undertow.util.StatusCodes;
 
@@ -99,6 +117,11 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Context.class);
 
+	/**
+	 * Files of at least this size are sent with FileChannel.transferTo()
+	 */
+	private static final long FILE_TRANSFER_MIN_SIZE = 1024;
+
 	private final IdentityManager identityManager;
 	private final ContextAwarePathHandler path;
 	private final ContextModel contextModel;
@@ -113,6 +136,13 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 	private final ServletContainer container = ServletContainer.Factory.newInstance();
 	private final AtomicBoolean started = new AtomicBoolean();
 	private final ClassLoader classLoader;
+	private final ResourceCache resourceCache = ResourceCache.shared();
+	private final BundleEntryIndex entryIndex = BundleEntryIndex.shared();
+	private final FileResources fileResources = FileResources.shared();
+	/**
+	 * Urls of the welcome files of directories, cleared when welcome files are added or removed
+	 */
+	private final WelcomeFileCache<URL> welcomeFileCache = new WelcomeFileCache<>(1024);
 	private volatile HttpHandler handler;
 
 	private DeploymentManager manager;
@@ -259,6 +289,9 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 				LOG.error(e.getMessage(), e);
 			}
 		});
+
+		// cached resources are keyed by this context
+		resourceCache.invalidateContext(this);
 	}
 
 	@Override
@@ -726,6 +759,10 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	@Override
 	public Resource getResource(String path) throws IOException {
+		ResourceCache.Entry cached = resourceCache.get(contextModel.getBundle(), this, path);
+		if (cached != null) {
+			return new CachedResource(cached, path);
+		}
 		WebContainerContext context = contextModel.getHttpContext();
 		if (context != null && context.isDefaultOrSharedContext()) { // FIXME why is this special treatment necessary
 			final URL resource = context.getResource(path);
@@ -736,32 +773,24 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 			} else {
 				// let's check if this is maybe a directory. org.osgi.framework.Bundle.getResource()
 				// returns proper URL for directory entry and we can't tell if it's a directory or not
+				BundleEntryIndex.Entry indexed = entryIndex.get(contextModel.getBundle(), resource);
 				boolean possibleDirectoryBundleEntry = false;
-				try (InputStream peek = resource.openStream()) {
-					possibleDirectoryBundleEntry = peek.available() == 0;
+				if (indexed != null) {
+					possibleDirectoryBundleEntry = indexed.isDirectory();
+				} else {
+					try (InputStream peek = resource.openStream()) {
+						possibleDirectoryBundleEntry = peek.available() == 0;
+					}
 				}
 				if (possibleDirectoryBundleEntry) {
 				    // consult welcome files
-					String realBase;
-					if (path.endsWith("/")) {
-						realBase = path;
-					} else {
-						realBase = path + "/";
-					}
-					final URLResource[] indexResource = new URLResource[1];
-					welcomeFiles.forEach(wfm -> {
-						for (String wf : wfm.getWelcomeFiles()) {
-							URL index = context.getResource(CanonicalPathUtils.canonicalize(realBase + wf));
-							if (index != null) {
-								indexResource[0] = new URLResource(index, path);
-							}
-						}
-					});
-					if (indexResource[0] != null) {
-						return indexResource[0];
+					URL index = welcomeFileCache.get(contextModel.getBundle(), welcomeFiles, path,
+							directory -> findWelcomeFile(context, directory));
+					if (index != null) {
+						return new URLResource(index, path);
 					}
 				}
-				return new URLResource(resource, path);
+				return urlResource(resource, path, context::getResource);
 			}
 		} else {
 			String modPath = path;
@@ -773,11 +802,134 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 			if (resource == null) {
 				return null;
 			} else {
-				return new URLResource(resource, path);
+				return urlResource(resource, path,
+						sibling -> classLoader.getResource(sibling.startsWith("/") ? sibling.substring(1) : sibling));
 			}
 		}
 	}
 
+	private URL findWelcomeFile(WebContainerContext context, String path) {
+		String realBase;
+		if (path.endsWith("/")) {
+			realBase = path;
+		} else {
+			realBase = path + "/";
+		}
+		final URL[] index = new URL[1];
+		welcomeFiles.forEach(wfm -> {
+			for (String wf : wfm.getWelcomeFiles()) {
+				URL url = context.getResource(CanonicalPathUtils.canonicalize(realBase + wf));
+				if (url != null) {
+					index[0] = url;
+				}
+			}
+		});
+		return index[0];
+	}
+
+	/**
+	 * Selects the content coding of a resource for a client, see {@link ResourceCache.Entry#select(String)}
+	 * and {@link ResourceCache#selectPrecompressed(Bundle, BundleEntryIndex, Map, String)}.
+	 * {@link #getResource(String)} itself always returns resources in identity coding.
+	 *
+	 * @param resource resource returned by {@link #getResource(String)}, may be null
+	 * @param exchange the request, whose response varies with its Accept-Encoding header
+	 * @return the resource to send
+	 * @throws IOException if a precompressed sibling can not be read
+	 */
+	Resource selectEncoding(Resource resource, HttpServerExchange exchange) throws IOException {
+		String acceptEncoding = exchange.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING);
+		if (resource instanceof CachedResource) {
+			CachedResource cached = (CachedResource) resource;
+			if (!cached.entry.hasVariants()) {
+				return resource;
+			}
+			return new CachedResource(cached.entry.select(acceptEncoding), cached.path, true);
+		}
+		Map<String, URL> precompressed = resource instanceof TaggedURLResource
+				? ((TaggedURLResource) resource).precompressed
+				: resource instanceof TaggedFileResource
+				? ((TaggedFileResource) resource).precompressed
+				: Collections.<String, URL>emptyMap();
+		if (precompressed.isEmpty()) {
+			return resource;
+		}
+		exchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+		ResourceCache.Precompressed sibling = resourceCache.selectPrecompressed(contextModel.getBundle(),
+				entryIndex, precompressed, acceptEncoding);
+		return sibling == null ? resource : new PrecompressedResource(sibling, resource);
+	}
+
+	/**
+	 * Creates the resource of a bundle entry, served from the {@link ResourceCache} if it is cacheable.
+	 */
+	private Resource urlResource(URL url, String path, Function<String, URL> siblings) throws IOException {
+		TaggedURLResource resource = new TaggedURLResource(url, path,
+				entryIndex.get(contextModel.getBundle(), url));
+		Date lastModified = resource.getLastModified();
+		if (lastModified == null) {
+			return resource;
+		}
+		Long length = resource.getContentLength();
+		String eTag = resourceCache.getETag(contextModel.getBundle(), url, lastModified.getTime(),
+				length != null ? length : -1L);
+		if (resourceCache.isEnabled()) {
+			if (length != null) {
+				WebContainerContext context = contextModel.getHttpContext();
+				ResourceCache.Entry entry = resourceCache.load(contextModel.getBundle(), this, path, url, length,
+						lastModified.getTime(), context == null ? null : context.getMimeType(path), eTag, siblings);
+				if (entry != null) {
+					return new CachedResource(entry, path);
+				}
+			}
+		}
+		// precompressed siblings are served whether or not the resource itself is cached
+		Map<String, URL> precompressed = resourceCache.getPrecompressed(path, siblings);
+		// files (file: urls, bundles installed from directories) are transferred from a file channel
+		Path file = fileResources.toFile(contextModel.getBundle(), url);
+		if (file != null) {
+			TaggedFileResource fileResource = new TaggedFileResource(file.toFile(),
+					new FileResourceManager(file.getParent().toFile(), FILE_TRANSFER_MIN_SIZE), path, url);
+			fileResource.eTag = eTag;
+			fileResource.precompressed = precompressed;
+			return fileResource;
+		}
+		resource.eTag = eTag;
+		resource.precompressed = precompressed;
+		return resource;
+	}
+
+	private static ETag toETag(String eTag) {
+		return eTag == null ? null : new ETag(ETags.isWeak(eTag), ETags.opaque(eTag));
+	}
+
+	/**
+	 * Writes a large resource with non-blocking servlet output, see {@link AsyncResourceWriter}. The
+	 * {@link io.undertow.server.handlers.resource.ResourceHandler} has already set the headers of the response.
+	 *
+	 * @return true if the resource is written (or failed) asynchronously and the exchange is completed
+	 *         by the writer, false if the resource is to be sent by the sender
+	 */
+	private static boolean serveAsync(Sender sender, HttpServerExchange exchange, IoCallback completionCallback,
+			Long length, AsyncResourceWriter.Content content) {
+		AsyncResourceWriter asyncWriter = AsyncResourceWriter.shared();
+		ServletRequestContext src = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+		if (!asyncWriter.isEnabled() || src == null || length == null) {
+			return false;
+		}
+		ServletRequest request = src.getServletRequest();
+		ServletResponse response = src.getServletResponse();
+		if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+			return false;
+		}
+		try {
+			return asyncWriter.write((HttpServletRequest) request, (HttpServletResponse) response, length, content);
+		} catch (IOException e) {
+			completionCallback.onException(exchange, sender, e);
+			return true;
+		}
+	}
+
 	@Override
 	public boolean isResourceChangeListenerSupported() {
 		return false;
@@ -834,6 +986,7 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	public synchronized void addWelcomeFile(WelcomeFileModel welcomeFile) throws ServletException {
 		if (welcomeFiles.add(welcomeFile)) {
+			welcomeFileCache.clear();
 			if (started.get()) {
 				destroyHandler();
 			}
@@ -842,6 +995,7 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	public synchronized void removeWelcomeFile(WelcomeFileModel welcomeFile) throws ServletException {
 		if (welcomeFiles.remove(welcomeFile)) {
+			welcomeFileCache.clear();
 			if (started.get()) {
 				destroyHandler();
 			}
@@ -1040,6 +1194,291 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 		}
 	}
 
+	/**
+	 * Bundle entry with the entity tag provided by the {@link ResourceCache} and, if indexed,
+	 * the attributes known to the {@link BundleEntryIndex}.
+	 */
+	private static class TaggedURLResource extends URLResource {
+		private final BundleEntryIndex.Entry indexed;
+		private String eTag;
+		private Map<String, URL> precompressed = Collections.emptyMap();
+
+		TaggedURLResource(URL url, String path, BundleEntryIndex.Entry indexed) {
+			super(url, path);
+			this.indexed = indexed;
+		}
+
+		@Override
+		public Date getLastModified() {
+			if (indexed == null || indexed.getLastModified() <= 0) {
+				return super.getLastModified();
+			}
+			return new Date(indexed.getLastModified());
+		}
+
+		@Override
+		public Long getContentLength() {
+			if (indexed == null || indexed.getLength() < 0) {
+				return super.getContentLength();
+			}
+			return indexed.getLength();
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return indexed != null ? indexed.isDirectory() : super.isDirectory();
+		}
+
+		@Override
+		public ETag getETag() {
+			return toETag(eTag);
+		}
+
+		@Override
+		public void serve(Sender sender, HttpServerExchange exchange, IoCallback completionCallback) {
+			if (!serveAsync(sender, exchange, completionCallback, getContentLength(), getUrl()::openStream)) {
+				super.serve(sender, exchange, completionCallback);
+			}
+		}
+	}
+
+	/**
+	 * File behind a resource url with the entity tag provided by the {@link ResourceCache}. Keeps the
+	 * original url, which is what {@link ServletContext#getResource(String)} returns.
+	 */
+	private static class TaggedFileResource extends FileResource {
+		private final URL url;
+		private String eTag;
+		private Map<String, URL> precompressed = Collections.emptyMap();
+
+		TaggedFileResource(File file, FileResourceManager manager, String path, URL url) {
+			super(file, manager, path);
+			this.url = url;
+		}
+
+		@Override
+		public ETag getETag() {
+			return toETag(eTag);
+		}
+
+		@Override
+		public URL getUrl() {
+			return url;
+		}
+
+		@Override
+		public void serve(Sender sender, HttpServerExchange exchange, IoCallback completionCallback) {
+			if (!serveAsync(sender, exchange, completionCallback, getContentLength(),
+					() -> Files.newInputStream(getFilePath()))) {
+				super.serve(sender, exchange, completionCallback);
+			}
+		}
+	}
+
+	/**
+	 * Precompressed sibling of a resource which is not cached, streamed from its url
+	 * with the name and mime type of the resource.
+	 */
+	private static class PrecompressedResource extends URLResource {
+		private final ResourceCache.Precompressed sibling;
+		private final Resource resource;
+
+		PrecompressedResource(ResourceCache.Precompressed sibling, Resource resource) {
+			super(sibling.getUrl(), resource.getPath());
+			this.sibling = sibling;
+			this.resource = resource;
+		}
+
+		@Override
+		public Date getLastModified() {
+			return new Date(sibling.getLastModified());
+		}
+
+		@Override
+		public String getLastModifiedString() {
+			return DateUtils.toDateString(getLastModified());
+		}
+
+		@Override
+		public ETag getETag() {
+			return toETag(sibling.getETag());
+		}
+
+		@Override
+		public String getName() {
+			return resource.getName();
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return false;
+		}
+
+		@Override
+		public String getContentType(MimeMappings mimeMappings) {
+			return resource.getContentType(mimeMappings);
+		}
+
+		@Override
+		public Long getContentLength() {
+			return sibling.getContentLength();
+		}
+
+		@Override
+		public String getCacheKey() {
+			return resource.getCacheKey() + ";" + sibling.getContentEncoding();
+		}
+
+		@Override
+		public void serve(Sender sender, HttpServerExchange exchange, IoCallback completionCallback) {
+			exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, sibling.getContentEncoding());
+			if (!serveAsync(sender, exchange, completionCallback, getContentLength(), getUrl()::openStream)) {
+				super.serve(sender, exchange, completionCallback);
+			}
+		}
+
+		@Override
+		public void serveRange(Sender sender, HttpServerExchange exchange, long start, long end,
+				IoCallback completionCallback) {
+			exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, sibling.getContentEncoding());
+			super.serveRange(sender, exchange, start, end, completionCallback);
+		}
+	}
+
+	/**
+	 * Resource served from the content held by the {@link ResourceCache}.
+	 */
+	private class CachedResource implements Resource, RangeAwareResource {
+		private final ResourceCache.Entry entry;
+		private final String path;
+		// whether the response depends on the Accept-Encoding header
+		private final boolean varies;
+
+		CachedResource(ResourceCache.Entry entry, String path) {
+			this(entry, path, false);
+		}
+
+		CachedResource(ResourceCache.Entry entry, String path, boolean varies) {
+			this.entry = entry;
+			this.path = path;
+			this.varies = varies;
+		}
+
+		@Override
+		public String getPath() {
+			return path;
+		}
+
+		@Override
+		public Date getLastModified() {
+			return new Date(entry.getLastModified());
+		}
+
+		@Override
+		public String getLastModifiedString() {
+			return DateUtils.toDateString(getLastModified());
+		}
+
+		@Override
+		public ETag getETag() {
+			return toETag(entry.getETag());
+		}
+
+		@Override
+		public String getName() {
+			return path.substring(path.lastIndexOf('/') + 1);
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return false;
+		}
+
+		@Override
+		public List<Resource> list() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public String getContentType(MimeMappings mimeMappings) {
+			if (entry.getMimeType() != null) {
+				return entry.getMimeType();
+			}
+			String name = getName();
+			int index = name.lastIndexOf('.');
+			if (index != -1 && index != name.length() - 1) {
+				return mimeMappings.getMimeType(name.substring(index + 1));
+			}
+			return null;
+		}
+
+		@Override
+		public void serve(Sender sender, HttpServerExchange exchange, IoCallback completionCallback) {
+			setEncodingHeaders(exchange);
+			if (!serveAsync(sender, exchange, completionCallback, getContentLength(),
+					() -> new ByteArrayInputStream(entry.getContent()))) {
+				sender.send(ByteBuffer.wrap(entry.getContent()), completionCallback);
+			}
+		}
+
+		@Override
+		public void serveRange(Sender sender, HttpServerExchange exchange, long start, long end,
+				IoCallback completionCallback) {
+			setEncodingHeaders(exchange);
+			sender.send(ByteBuffer.wrap(entry.getContent(), (int) start, (int) (end - start + 1)), completionCallback);
+		}
+
+		@Override
+		public boolean isRangeSupported() {
+			return true;
+		}
+
+		private void setEncodingHeaders(HttpServerExchange exchange) {
+			if (varies) {
+				exchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+			}
+			if (entry.getContentEncoding() != null) {
+				exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, entry.getContentEncoding());
+			}
+		}
+
+		@Override
+		public Long getContentLength() {
+			return (long) entry.getContentLength();
+		}
+
+		@Override
+		public String getCacheKey() {
+			String key = contextModel.getContextName() + path;
+			return entry.getContentEncoding() == null ? key : key + ";" + entry.getContentEncoding();
+		}
+
+		@Override
+		public File getFile() {
+			return null;
+		}
+
+		@Override
+		public File getResourceManagerRoot() {
+			return null;
+		}
+
+		@Override
+		public URL getUrl() {
+			return entry.getUrl();
+		}
+
+		@Override
+		public Path getFilePath() {
+			return null;
+		}
+
+		@Override
+		public Path getResourceManagerRootPath() {
+			return null;
+		}
+	}
+
 	private class FilterRankComparator implements Comparator<FilterModel> {
 		@Override
 		public int compare(FilterModel fm1, FilterModel fm2) {
@@ -16,6 +16,10 @@
 package org.ops4j.pax.web.service.undertow.internal;
 
 import java.util.Dictionary;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import javax.servlet.Servlet;
 
 import io.undertow.Handlers;
@@ -23,7 +27,6 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.ResponseCodeHandler;
-import io.undertow.server.handlers.cache.LRUCache;
 import org.osgi.service.http.HttpContext;
 
 /**
@@ -35,12 +38,18 @@ import org.osgi.service.http.HttpContext;
  * the path from {@code etc/undertow.xml} configuration - assuming it's configured and user know what (s)he's
  * doing.</p>
  * <p>It's a direct fork of original {@link PathHandler} but with different {@link io.undertow.util.PathMatcher}</p>
+ * <p>Matches may be cached by relative path. The cache is bounded, lock free for lookups and replaced as a whole
+ * by every change of the registered paths.</p>
  */
 public class ContextAwarePathHandler extends PathHandler {
 
 	private final PathMatcher<HttpHandler> pathMatcher = new PathMatcher<>();
 
-	private final LRUCache<String, PathMatcher.PathMatch<HttpHandler>> cache;
+	private volatile MatchCache cache;
+
+	private final LongAdder cacheHits = new LongAdder();
+
+	private final LongAdder cacheMisses = new LongAdder();
 
 	public ContextAwarePathHandler(final HttpHandler defaultHandler) {
 		this(0);
@@ -57,31 +66,42 @@ public class ContextAwarePathHandler extends PathHandler {
 	}
 
 	public ContextAwarePathHandler(int cacheSize) {
-		if(cacheSize > 0) {
-			cache = new LRUCache<>(cacheSize, -1, true);
-		} else {
-			cache = null;
-		}
+		setCacheSize(cacheSize);
+	}
+
+	/**
+	 * Changes the size of the match cache, dropping all cached matches.
+	 *
+	 * @param cacheSize maximum number of cached relative paths, {@code 0} disables the cache
+	 */
+	public synchronized void setCacheSize(int cacheSize) {
+		cache = cacheSize > 0 ? new MatchCache(cacheSize) : null;
 	}
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) throws Exception {
+		final String relativePath = exchange.getRelativePath();
+		final MatchCache matchCache = cache;
 		PathMatcher.PathMatch<HttpHandler> match = null;
-		boolean hit = false;
-		if(cache != null) {
-			match = cache.get(exchange.getRelativePath());
-			hit = true;
+		if (matchCache != null) {
+			match = matchCache.matches.get(relativePath);
+			if (match != null) {
+				cacheHits.increment();
+			} else {
+				cacheMisses.increment();
+			}
 		}
-		if(match == null) {
-			match = pathMatcher.match(exchange.getRelativePath());
+		if (match == null) {
+			match = pathMatcher.match(relativePath);
+			if (matchCache != null) {
+				// a cache replaced in the meantime is simply dropped with this match
+				matchCache.put(relativePath, match);
+			}
 		}
 		if (match.getValue() == null) {
 			ResponseCodeHandler.HANDLE_404.handleRequest(exchange);
 			return;
 		}
-		if(hit) {
-			cache.add(exchange.getRelativePath(), match);
-		}
 		exchange.setRelativePath(match.getRemaining());
 		if(exchange.getResolvedPath().isEmpty()) {
 			//first path handler, we can just use the matched part
@@ -132,6 +152,7 @@ public class ContextAwarePathHandler extends PathHandler {
 	public synchronized PathHandler addPrefixPath(final String path, final HttpHandler handler) {
 		Handlers.handlerNotNull(handler);
 		pathMatcher.addPrefixPath(path, handler);
+		invalidateCache();
 		return this;
 	}
 
@@ -147,6 +168,7 @@ public class ContextAwarePathHandler extends PathHandler {
 	public synchronized PathHandler addExactPath(final String path, final HttpHandler handler) {
 		Handlers.handlerNotNull(handler);
 		pathMatcher.addExactPath(path, handler);
+		invalidateCache();
 		return this;
 	}
 
@@ -157,16 +179,19 @@ public class ContextAwarePathHandler extends PathHandler {
 
 	public synchronized PathHandler removePrefixPath(final String path) {
 		pathMatcher.removePrefixPath(path);
+		invalidateCache();
 		return this;
 	}
 
 	public synchronized PathHandler removeExactPath(final String path) {
 		pathMatcher.removeExactPath(path);
+		invalidateCache();
 		return this;
 	}
 
 	public synchronized PathHandler clearPaths() {
 		pathMatcher.clearPaths();
+		invalidateCache();
 		return this;
 	}
 
@@ -174,4 +199,64 @@ public class ContextAwarePathHandler extends PathHandler {
 		return pathMatcher.getDefaultHandler();
 	}
 
+	/**
+	 * Replaces the match cache after the paths changed. Must be called after the {@link #pathMatcher} is updated,
+	 * so requests seeing the new cache also see the new paths.
+	 */
+	private void invalidateCache() {
+		MatchCache current = cache;
+		if (current != null) {
+			cache = new MatchCache(current.maxEntries);
+		}
+	}
+
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * @return ratio of requests matched from the cache, {@code 0} if there were no cached lookups yet
+	 */
+	public double getCacheHitRatio() {
+		long hits = cacheHits.sum();
+		long total = hits + cacheMisses.sum();
+		return total == 0L ? 0d : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		MatchCache current = cache;
+		if (current == null) {
+			return "ContextAwarePathHandler{cache=disabled}";
+		}
+		return String.format("ContextAwarePathHandler{cache=%d/%d,hits=%d,misses=%d,hitRatio=%.2f}",
+				current.matches.size(), current.maxEntries, getCacheHits(), getCacheMisses(), getCacheHitRatio());
+	}
+
+	private static final class MatchCache {
+
+		private final int maxEntries;
+		private final ConcurrentMap<String, PathMatcher.PathMatch<HttpHandler>> matches = new ConcurrentHashMap<>();
+
+		MatchCache(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+		void put(String relativePath, PathMatcher.PathMatch<HttpHandler> match) {
+			if (matches.size() >= maxEntries) {
+				// evict an arbitrary entry, hot paths are put back on their next miss
+				Iterator<String> iterator = matches.keySet().iterator();
+				if (iterator.hasNext()) {
+					iterator.next();
+					iterator.remove();
+				}
+			}
+			matches.put(relativePath, match);
+		}
+	}
+
 }
@@ -15,21 +15,28 @@
  */
 package org.ops4j.pax.web.service.undertow.internal;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.ConcurrentMap;
+import java.util.TreeMap;
 
 import io.undertow.UndertowLogger;
 import io.undertow.UndertowMessages;
 import io.undertow.server.handlers.resource.ResourceHandler;
-import io.undertow.util.CopyOnWriteMap;
-import io.undertow.util.SubstringMap;
 import io.undertow.util.URLUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>Path matcher with the contract of {@link io.undertow.util.PathMatcher}: exact paths first, then the longest
+ * prefix path ending at a path segment boundary, then the default handler.</p>
+ * <p>Prefix paths are kept in an immutable compressed radix tree, so a match walks the request path once instead of
+ * probing a map for every registered path length. Registrations rebuild the tree (and the exact path map) copy on
+ * write, {@link #match(String)} never locks. Matches of a whole registered path return a shared {@link PathMatch}.</p>
+ */
 public class PathMatcher<T> {
 
 	public static Logger LOG = LoggerFactory.getLogger(PathMatcher.class);
@@ -37,13 +44,18 @@ public class PathMatcher<T> {
 	private static final String STRING_PATH_SEPARATOR = "/";
 
 	private volatile T defaultHandler;
-	private final SubstringMap<T> paths = new SubstringMap<>();
-	private final ConcurrentMap<String, T> exactPathMatches = new CopyOnWriteMap<>();
 
 	/**
-	 * lengths of all registered paths
+	 * Registered prefix paths, guarded by {@code this}, source of {@link #prefixTree}
 	 */
-	private volatile int[] lengths = {};
+	private final Map<String, T> paths = new HashMap<>();
+
+	private volatile Node<T> prefixTree = Node.empty();
+
+	/**
+	 * Immutable map of exact paths to their (shared) matches, replaced on every change
+	 */
+	private volatile Map<String, PathMatch<T>> exactPathMatches = Collections.emptyMap();
 
 	public PathMatcher(final T defaultHandler) {
 		this.defaultHandler = defaultHandler;
@@ -58,41 +70,62 @@ public class PathMatcher<T> {
 	 * @return The match match. This will never be null, however if none matched its value field will be
 	 */
 	public PathMatcher.PathMatch<T> match(String path){
-		if (!exactPathMatches.isEmpty()) {
-			T match = getExactPath(path);
-			if (match != null) {
+		final Map<String, PathMatch<T>> exactMatches = this.exactPathMatches;
+		if (!exactMatches.isEmpty()) {
+			PathMatch<T> exact = exactMatches.get(path);
+			if (exact == null && isNotNormalized(path)) {
+				exact = exactMatches.get(URLUtils.normalizeSlashes(path));
+				if (exact != null) {
+					// keep the request path as matched path
+					exact = new PathMatcher.PathMatch<>(path, "", exact.getValue());
+				}
+			}
+			if (exact != null) {
 				UndertowLogger.REQUEST_LOGGER.debugf("Matched exact path %s", path);
-				return new PathMatcher.PathMatch<>(path, "", match);
+				return exact;
 			}
 		}
 
-		int length = path.length();
-		final int[] lengths = this.lengths;
-		for (int i = 0; i < lengths.length; ++i) {
-			int pathLength = lengths[i];
-			if (pathLength == length) {
-				SubstringMap.SubstringMatch<T> next = paths.get(path, length);
-				if (next != null) {
-					UndertowLogger.REQUEST_LOGGER.debugf("Matched prefix path %s for path %s", next.getKey(), path);
-					return new PathMatcher.PathMatch<>(path, "", next.getValue());
-				}
-			} else if (pathLength < length) {
-				char c = path.charAt(pathLength);
-				if (c == '/') {
-
-					//String part = path.substring(0, pathLength);
-					SubstringMap.SubstringMatch<T> next = paths.get(path, pathLength);
-					if (next != null) {
-						UndertowLogger.REQUEST_LOGGER.debugf("Matched prefix path %s for path %s", next.getKey(), path);
-						return new PathMatcher.PathMatch<>(next.getKey(), path.substring(pathLength), next.getValue());
-					}
-				}
+		final int length = path.length();
+		Node<T> node = prefixTree;
+		Node<T> longest = null;
+		int longestLength = 0;
+		int position = 0;
+		while (true) {
+			if (node.match != null && (position == length || path.charAt(position) == '/')) {
+				longest = node;
+				longestLength = position;
 			}
+			if (position == length) {
+				break;
+			}
+			Node<T> child = node.child(path.charAt(position));
+			if (child == null || !path.startsWith(child.label, position)) {
+				break;
+			}
+			position += child.label.length();
+			node = child;
+		}
+		if (longest != null) {
+			PathMatch<T> match = longest.match;
+			UndertowLogger.REQUEST_LOGGER.debugf("Matched prefix path %s for path %s", match.getMatched(), path);
+			if (longestLength == length) {
+				return match;
+			}
+			return new PathMatcher.PathMatch<>(match.getMatched(), path.substring(longestLength), match.getValue());
 		}
 		UndertowLogger.REQUEST_LOGGER.debugf("Matched default handler path %s", path);
 		return new PathMatcher.PathMatch<>("", path, defaultHandler);
 	}
 
+	/**
+	 * Whether {@link URLUtils#normalizeSlashes(String)} would change the path, checked without allocation.
+	 */
+	private static boolean isNotNormalized(String path) {
+		final int length = path.length();
+		return length == 0 || path.charAt(0) != '/' || (length > 1 && path.charAt(length - 1) == '/');
+	}
+
 	/**
 	 * Adds a path prefix and a handler for that path. If the path does not start
 	 * with a / then one will be prepended.
@@ -135,7 +168,7 @@ public class PathMatcher<T> {
 
 		paths.put(normalizedPath, handler);
 
-		buildLengths();
+		prefixTree = Node.build(paths);
 		return this;
 	}
 
@@ -144,48 +177,30 @@ public class PathMatcher<T> {
 		if (path.isEmpty()) {
 			throw UndertowMessages.MESSAGES.pathMustBeSpecified();
 		}
-		exactPathMatches.put(URLUtils.normalizeSlashes(path), handler);
+		final String normalizedPath = URLUtils.normalizeSlashes(path);
+		Map<String, PathMatch<T>> exactMatches = new HashMap<>(exactPathMatches);
+		exactMatches.put(normalizedPath, new PathMatch<>(normalizedPath, "", handler));
+		exactPathMatches = Collections.unmodifiableMap(exactMatches);
 		return this;
 	}
 
 	public T getExactPath(final String path) {
-		return exactPathMatches.get(URLUtils.normalizeSlashes(path));
+		PathMatch<T> match = exactPathMatches.get(URLUtils.normalizeSlashes(path));
+		return match == null ? null : match.getValue();
 	}
 
-	public T getPrefixPath(final String path) {
+	public synchronized T getPrefixPath(final String path) {
 
 		final String normalizedPath = URLUtils.normalizeSlashes(path);
 
 		// enable the prefix path mechanism to return the default handler
-		SubstringMap.SubstringMatch<T> match = paths.get(normalizedPath);
+		T match = paths.get(normalizedPath);
 		if (PathMatcher.STRING_PATH_SEPARATOR.equals(normalizedPath) && match == null) {
 			return this.defaultHandler;
 		}
-		if(match == null) {
-			return null;
-		}
 
 		// return the value for the given path
-		return match.getValue();
-	}
-
-	private void buildLengths() {
-		final Set<Integer> lengths = new TreeSet<>(new Comparator<Integer>() {
-			@Override
-			public int compare(Integer o1, Integer o2) {
-				return -o1.compareTo(o2);
-			}
-		});
-		for (String p : paths.keys()) {
-			lengths.add(p.length());
-		}
-
-		int[] lengthArray = new int[lengths.size()];
-		int pos = 0;
-		for (int i : lengths) {
-			lengthArray[pos++] = i;
-		}
-		this.lengths = lengthArray;
+		return match;
 	}
 
 	@Deprecated
@@ -205,9 +220,9 @@ public class PathMatcher<T> {
 			return this;
 		}
 
-		paths.remove(normalizedPath);
-
-		buildLengths();
+		if (paths.remove(normalizedPath) != null) {
+			prefixTree = Node.build(paths);
+		}
 		return this;
 	}
 
@@ -216,27 +231,111 @@ public class PathMatcher<T> {
 			throw UndertowMessages.MESSAGES.pathMustBeSpecified();
 		}
 
-		exactPathMatches.remove(URLUtils.normalizeSlashes(path));
+		final String normalizedPath = URLUtils.normalizeSlashes(path);
+		if (exactPathMatches.containsKey(normalizedPath)) {
+			Map<String, PathMatch<T>> exactMatches = new HashMap<>(exactPathMatches);
+			exactMatches.remove(normalizedPath);
+			exactPathMatches = Collections.unmodifiableMap(exactMatches);
+		}
 
 		return this;
 	}
 
 	public synchronized PathMatcher clearPaths() {
 		paths.clear();
-		exactPathMatches.clear();
-		this.lengths = new int[0];
+		prefixTree = Node.empty();
+		exactPathMatches = Collections.emptyMap();
 		defaultHandler = null;
 		return this;
 	}
 
-	public Map<String, T> getPaths() {
-		return paths.toMap();
+	public synchronized Map<String, T> getPaths() {
+		return new HashMap<>(paths);
 	}
 
 	public T getDefaultHandler() {
 		return defaultHandler;
 	}
 
+	/**
+	 * Immutable node of the prefix radix tree. The edge from the parent is labelled with one or more characters,
+	 * children are kept sorted by the first character of their label.
+	 */
+	private static final class Node<T> {
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		private static final Node<?> EMPTY = new Node("", null, new char[0], new Node[0]);
+
+		private final String label;
+		/**
+		 * Match of the whole path ending at this node, null if no prefix path ends here
+		 */
+		private final PathMatch<T> match;
+		private final char[] firstChars;
+		private final Node<T>[] children;
+
+		private Node(String label, PathMatch<T> match, char[] firstChars, Node<T>[] children) {
+			this.label = label;
+			this.match = match;
+			this.firstChars = firstChars;
+			this.children = children;
+		}
+
+		@SuppressWarnings("unchecked")
+		static <T> Node<T> empty() {
+			return (Node<T>) EMPTY;
+		}
+
+		Node<T> child(char c) {
+			int index = Arrays.binarySearch(firstChars, c);
+			return index < 0 ? null : children[index];
+		}
+
+		static <T> Node<T> build(Map<String, T> paths) {
+			if (paths.isEmpty()) {
+				return empty();
+			}
+			Builder<T> root = new Builder<>();
+			for (Map.Entry<String, T> entry : paths.entrySet()) {
+				Builder<T> builder = root;
+				for (int i = 0; i < entry.getKey().length(); i++) {
+					builder = builder.children.computeIfAbsent(entry.getKey().charAt(i), c -> new Builder<>());
+				}
+				builder.match = new PathMatch<>(entry.getKey(), "", entry.getValue());
+			}
+			return root.build("");
+		}
+
+		/**
+		 * Mutable, uncompressed trie node used while building the tree.
+		 */
+		private static final class Builder<T> {
+
+			private final TreeMap<Character, Builder<T>> children = new TreeMap<>();
+			private PathMatch<T> match;
+
+			@SuppressWarnings("unchecked")
+			Node<T> build(String label) {
+				char[] firstChars = new char[children.size()];
+				List<Node<T>> nodes = new ArrayList<>(children.size());
+				int i = 0;
+				for (Map.Entry<Character, Builder<T>> entry : children.entrySet()) {
+					// compress the chain of nodes with a single child and without match
+					StringBuilder childLabel = new StringBuilder().append(entry.getKey().charValue());
+					Builder<T> child = entry.getValue();
+					while (child.match == null && child.children.size() == 1) {
+						Map.Entry<Character, Builder<T>> only = child.children.firstEntry();
+						childLabel.append(only.getKey().charValue());
+						child = only.getValue();
+					}
+					firstChars[i++] = entry.getKey();
+					nodes.add(child.build(childLabel.toString()));
+				}
+				return new Node<>(label, match, firstChars, nodes.toArray(new Node[nodes.size()]));
+			}
+		}
+	}
+
 	public static final class PathMatch<T> {
 		private final String matched;
 		private final String remaining;
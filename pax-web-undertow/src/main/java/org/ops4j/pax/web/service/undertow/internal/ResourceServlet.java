@@ -15,6 +15,7 @@
  */
 package org.ops4j.pax.web.service.undertow.internal;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -31,6 +32,8 @@ import io.undertow.server.handlers.resource.ResourceManager;
 import io.undertow.servlet.handlers.DefaultServlet;
 import io.undertow.servlet.handlers.ServletRequestContext;
 import io.undertow.servlet.spec.HttpServletRequestImpl;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.util.ResourceFingerprints;
 
 /**
  * TODO: Undertow resource handling is done not by {@link DefaultServlet} but by {@link ResourceHandler}.
@@ -48,6 +51,8 @@ public class ResourceServlet extends HttpServlet implements ResourceManager {
 	// accessing resources from some path under root of the bundle
 	private final String name;
 	private List<String> welcomePages;
+	private final ResourceFingerprints fingerprints = ResourceFingerprints.shared();
+	private boolean fingerprinted;
 
 	public ResourceServlet(final Context context, String alias, String name) {
 		this.context = context;
@@ -66,6 +71,11 @@ public class ResourceServlet extends HttpServlet implements ResourceManager {
 		});
 	}
 
+	@Override
+	public void init() throws ServletException {
+		fingerprinted = Boolean.parseBoolean(getInitParameter(ResourceFingerprints.INIT_PARAM));
+	}
+
 	@Override
 	protected void service(HttpServletRequest request, HttpServletResponse resp) throws ServletException, IOException {
 		if (!(request instanceof HttpServletRequestImpl)) {
@@ -97,7 +107,21 @@ public class ResourceServlet extends HttpServlet implements ResourceManager {
 		if (!name.isEmpty() && !"default".equals(name)) {
 			mapping = name + mapping;
 		}
-		return context.getResource(mapping);
+		ServletRequestContext src = ServletRequestContext.current();
+		if (fingerprinted && src != null && src.getDispatcherType() != DispatcherType.INCLUDE
+				&& src.getServletResponse() instanceof HttpServletResponse) {
+			WebContainerContext httpContext = context.getContextModel().getHttpContext();
+			if (httpContext != null) {
+				// "/app.3f2a9c0e1b.js" is served as "/app.js"
+				mapping = fingerprints.resolve(context.getContextModel().getBundle(), mapping,
+						httpContext::getResource, (HttpServletResponse) src.getServletResponse());
+			}
+		}
+		Resource resource = context.getResource(mapping);
+		if (src == null) {
+			return resource;
+		}
+		return context.selectEncoding(resource, src.getExchange());
 	}
 
 	@Override
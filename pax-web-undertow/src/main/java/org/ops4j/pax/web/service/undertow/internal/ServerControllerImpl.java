@@ -270,6 +270,8 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
         // if no configuration method change root handler, simple path->HttpHandler will be used
         // where each HttpHandler is created in separate org.ops4j.pax.web.service.undertow.internal.Context
         HttpHandler rootHandler = path;
+        Integer routeCacheSize = configuration.getServerRouteCacheSize();
+        path.setCacheSize(routeCacheSize == null ? 0 : routeCacheSize);
 
         URL undertowResource = detectUndertowConfiguration();
         ConfigSource source = ConfigSource.kind(undertowResource);
@@ -1034,6 +1036,7 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
     }
 
     void doStop() {
+        LOG.debug("Stopping Undertow, path handler: {}", path);
         if (xnioWorker != null) {
             xnioWorker.shutdown();
         }
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import org.junit.Test;
+
+public class ContextAwarePathHandlerTest {
+
+	private final List<String> handled = new ArrayList<>();
+
+	private HttpHandler handler(final String name) {
+		return exchange -> handled.add(name + ":" + exchange.getResolvedPath() + ":" + exchange.getRelativePath());
+	}
+
+	private void request(final ContextAwarePathHandler pathHandler, final String path) throws Exception {
+		HttpServerExchange exchange = new HttpServerExchange(null);
+		exchange.setRelativePath(path);
+		exchange.setResolvedPath("");
+		pathHandler.handleRequest(exchange);
+	}
+
+	@Test
+	public void cachedMatchesAreCountedAndInvalidated() throws Exception {
+		ContextAwarePathHandler pathHandler = new ContextAwarePathHandler(handler("default"), 10);
+		pathHandler.addPrefixPath("/a", handler("a"));
+
+		request(pathHandler, "/a/x");
+		request(pathHandler, "/a/x");
+		assertEquals(1L, pathHandler.getCacheHits());
+		assertEquals(1L, pathHandler.getCacheMisses());
+		assertEquals(0.5d, pathHandler.getCacheHitRatio(), 0.001d);
+
+		pathHandler.addPrefixPath("/a/x", handler("ax"));
+		request(pathHandler, "/a/x");
+		pathHandler.removePrefixPath("/a/x");
+		request(pathHandler, "/a/x");
+
+		assertEquals("[a:/a:/x, a:/a:/x, ax:/a/x:, a:/a:/x]", handled.toString());
+		assertEquals(1L, pathHandler.getCacheHits());
+		assertEquals(3L, pathHandler.getCacheMisses());
+	}
+
+	@Test
+	public void disabledCache() throws Exception {
+		ContextAwarePathHandler pathHandler = new ContextAwarePathHandler(handler("default"));
+		request(pathHandler, "/b");
+		request(pathHandler, "/b");
+		assertEquals("[default::/b, default::/b]", handled.toString());
+		assertEquals(0L, pathHandler.getCacheHits());
+		assertEquals(0L, pathHandler.getCacheMisses());
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PathMatcherTest {
+
+	private static final String[] SEGMENTS = { "a", "ab", "abc", "b", "app", "application" };
+
+	private static void assertMatch(PathMatcher.PathMatch<String> match, String matched, String remaining, String value) {
+		assertEquals(matched, match.getMatched());
+		assertEquals(remaining, match.getRemaining());
+		assertEquals(value, match.getValue());
+	}
+
+	@Test
+	public void longestPrefixOnSegmentBoundary() {
+		PathMatcher<String> matcher = new PathMatcher<>("default");
+		matcher.addPrefixPath("/app", "app");
+		matcher.addPrefixPath("/app/admin", "admin");
+		matcher.addPrefixPath("/application/", "application");
+
+		assertMatch(matcher.match("/app/admin/users"), "/app/admin", "/users", "admin");
+		assertMatch(matcher.match("/app/administration"), "/app", "/administration", "app");
+		assertMatch(matcher.match("/application"), "/application", "", "application");
+		assertMatch(matcher.match("/appl"), "", "/appl", "default");
+		assertMatch(matcher.match("/"), "", "/", "default");
+	}
+
+	@Test
+	public void exactPathsFirst() {
+		PathMatcher<String> matcher = new PathMatcher<>("default");
+		matcher.addPrefixPath("/app", "app");
+		matcher.addExactPath("/app/index", "index");
+
+		assertMatch(matcher.match("/app/index"), "/app/index", "", "index");
+		assertMatch(matcher.match("/app/index/"), "/app/index/", "", "index");
+		assertMatch(matcher.match("/app/index/more"), "/app", "/index/more", "app");
+		// whole path matches are shared
+		assertSame(matcher.match("/app/index"), matcher.match("/app/index"));
+		assertSame(matcher.match("/app"), matcher.match("/app"));
+	}
+
+	@Test
+	public void removeAndClear() {
+		PathMatcher<String> matcher = new PathMatcher<>("default");
+		matcher.addPrefixPath("/a", "a");
+		matcher.addPrefixPath("/a/b", "b");
+		matcher.removePrefixPath("/a/b/");
+		assertMatch(matcher.match("/a/b"), "/a", "/b", "a");
+		assertEquals("a", matcher.getPrefixPath("/a"));
+		assertNull(matcher.getPrefixPath("/a/b"));
+
+		matcher.clearPaths();
+		assertMatch(matcher.match("/a"), "", "/a", null);
+		assertEquals(0, matcher.getPaths().size());
+	}
+
+	@Test
+	public void matchesLikeSubstringMapLookup() {
+		for (long seed = 0; seed < 50; seed++) {
+			Random random = new Random(seed);
+			PathMatcher<String> matcher = new PathMatcher<>("default");
+			SubstringMapPathMatcher<String> reference = new SubstringMapPathMatcher<>("default");
+			for (int i = 0; i < 200; i++) {
+				String path = randomPath(random);
+				String value = "v" + i;
+				switch (random.nextInt(5)) {
+					case 0:
+					case 1:
+						matcher.addPrefixPath(path, value);
+						reference.addPrefixPath(path, value);
+						break;
+					case 2:
+						matcher.addExactPath(path, value);
+						reference.addExactPath(path, value);
+						break;
+					case 3:
+						matcher.removePrefixPath(path);
+						reference.removePrefixPath(path);
+						break;
+					default:
+						matcher.removeExactPath(path);
+						reference.removeExactPath(path);
+						break;
+				}
+				for (int j = 0; j < 20; j++) {
+					String request = randomPath(random);
+					String message = "seed " + seed + ", request " + request;
+					PathMatcher.PathMatch<String> expected = reference.match(request);
+					PathMatcher.PathMatch<String> actual = matcher.match(request);
+					assertEquals(message, expected.getMatched(), actual.getMatched());
+					assertEquals(message, expected.getRemaining(), actual.getRemaining());
+					assertEquals(message, expected.getValue(), actual.getValue());
+					assertEquals(message, reference.getPrefixPath(request), matcher.getPrefixPath(request));
+					assertEquals(message, reference.getExactPath(request), matcher.getExactPath(request));
+				}
+			}
+			assertEquals("seed " + seed, reference.getPaths(), matcher.getPaths());
+		}
+	}
+
+	/**
+	 * Paths of up to three segments, some of them with a trailing slash, the root path included.
+	 */
+	private static String randomPath(Random random) {
+		StringBuilder path = new StringBuilder();
+		int segments = random.nextInt(4);
+		for (int i = 0; i < segments; i++) {
+			path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		if (path.length() == 0 || random.nextInt(4) == 0) {
+			path.append('/');
+		}
+		return path.toString();
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+
+import io.undertow.util.CopyOnWriteMap;
+import io.undertow.util.SubstringMap;
+import io.undertow.util.URLUtils;
+
+/**
+ * The previous {@link PathMatcher}, which probes a {@link SubstringMap} once per distinct length of the
+ * registered prefix paths. Kept as reference for {@link PathMatcherTest}.
+ */
+class SubstringMapPathMatcher<T> {
+
+	private static final String STRING_PATH_SEPARATOR = "/";
+
+	private volatile T defaultHandler;
+	private final SubstringMap<T> paths = new SubstringMap<>();
+	private final ConcurrentMap<String, T> exactPathMatches = new CopyOnWriteMap<>();
+
+	/**
+	 * lengths of all registered paths
+	 */
+	private volatile int[] lengths = {};
+
+	SubstringMapPathMatcher(final T defaultHandler) {
+		this.defaultHandler = defaultHandler;
+	}
+
+	public PathMatcher.PathMatch<T> match(String path) {
+		if (!exactPathMatches.isEmpty()) {
+			T match = getExactPath(path);
+			if (match != null) {
+				return new PathMatcher.PathMatch<>(path, "", match);
+			}
+		}
+
+		int length = path.length();
+		final int[] lengths = this.lengths;
+		for (int i = 0; i < lengths.length; ++i) {
+			int pathLength = lengths[i];
+			if (pathLength == length) {
+				SubstringMap.SubstringMatch<T> next = paths.get(path, length);
+				if (next != null) {
+					return new PathMatcher.PathMatch<>(path, "", next.getValue());
+				}
+			} else if (pathLength < length) {
+				char c = path.charAt(pathLength);
+				if (c == '/') {
+					SubstringMap.SubstringMatch<T> next = paths.get(path, pathLength);
+					if (next != null) {
+						return new PathMatcher.PathMatch<>(next.getKey(), path.substring(pathLength), next.getValue());
+					}
+				}
+			}
+		}
+		return new PathMatcher.PathMatch<>("", path, defaultHandler);
+	}
+
+	public synchronized SubstringMapPathMatcher<T> addPrefixPath(final String path, final T handler) {
+		final String normalizedPath = URLUtils.normalizeSlashes(path);
+		if (STRING_PATH_SEPARATOR.equals(normalizedPath)) {
+			this.defaultHandler = handler;
+			return this;
+		}
+		paths.put(normalizedPath, handler);
+		buildLengths();
+		return this;
+	}
+
+	public synchronized SubstringMapPathMatcher<T> addExactPath(final String path, final T handler) {
+		exactPathMatches.put(URLUtils.normalizeSlashes(path), handler);
+		return this;
+	}
+
+	public T getExactPath(final String path) {
+		return exactPathMatches.get(URLUtils.normalizeSlashes(path));
+	}
+
+	public T getPrefixPath(final String path) {
+		final String normalizedPath = URLUtils.normalizeSlashes(path);
+		// enable the prefix path mechanism to return the default handler
+		SubstringMap.SubstringMatch<T> match = paths.get(normalizedPath);
+		if (STRING_PATH_SEPARATOR.equals(normalizedPath) && match == null) {
+			return this.defaultHandler;
+		}
+		if (match == null) {
+			return null;
+		}
+		return match.getValue();
+	}
+
+	private void buildLengths() {
+		final Set<Integer> lengths = new TreeSet<>(new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return -o1.compareTo(o2);
+			}
+		});
+		for (String p : paths.keys()) {
+			lengths.add(p.length());
+		}
+
+		int[] lengthArray = new int[lengths.size()];
+		int pos = 0;
+		for (int i : lengths) {
+			lengthArray[pos++] = i;
+		}
+		this.lengths = lengthArray;
+	}
+
+	public synchronized SubstringMapPathMatcher<T> removePrefixPath(final String path) {
+		final String normalizedPath = URLUtils.normalizeSlashes(path);
+		if (STRING_PATH_SEPARATOR.equals(normalizedPath)) {
+			defaultHandler = null;
+			return this;
+		}
+		paths.remove(normalizedPath);
+		buildLengths();
+		return this;
+	}
+
+	public synchronized SubstringMapPathMatcher<T> removeExactPath(final String path) {
+		exactPathMatches.remove(URLUtils.normalizeSlashes(path));
+		return this;
+	}
+
+	public Map<String, T> getPaths() {
+		return paths.toMap();
+	}
+
+}